@@ -0,0 +1,58 @@
+package elibraryparser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Разбор записанной страницы профиля автора: целиком, как в {@link ElibraryParserRegex}
+ *  и {@link ElibraryParserHttp} без потоковой загрузки, и порциями через {@link AuthorPageExtractor.Session},
+ *  как при потоковой загрузке в {@link ElibraryParserHttp}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthorPageExtractorBenchmark {
+
+    @Param({"8192"})
+    private int chunkSize;
+
+    private final AuthorPageExtractor extractor = new AuthorPageExtractor();
+    private String page;
+    private char[] pageChars;
+
+    @Setup
+    public void setUp() {
+        page = Fixtures.load(Fixtures.AUTHOR_PAGE);
+        pageChars = page.toCharArray();
+    }
+
+    @Benchmark
+    public AuthorPageData extractWholePage() {
+        return extractor.extract(page);
+    }
+
+    @Benchmark
+    public AuthorPageData extractStreaming() {
+        AuthorPageExtractor.Session session = extractor.newSession();
+        for (int offset = 0; offset < pageChars.length; offset += chunkSize) {
+            if (session.feed(pageChars, offset, Math.min(chunkSize, pageChars.length - offset))) {
+                break;
+            }
+        }
+        return session.finish();
+    }
+}
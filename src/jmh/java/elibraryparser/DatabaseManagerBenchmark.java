@@ -0,0 +1,101 @@
+package elibraryparser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Одиночные и пакетные вставка и поиск авторов во временном файле SQLite.
+ *  Перед измерениями в базу записывается {@value #PRELOADED_AUTHORS} авторов; вставляемые авторы получают новые ID,
+ *  поэтому одиночная вставка всегда проходит путь добавления новой записи.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DatabaseManagerBenchmark {
+    private static final int PRELOADED_AUTHORS = 100_000;
+    private static final int BATCH_SIZE = 1000;
+    private static final int LOOKUP_SIZE = 500;
+
+    private Path databaseFile;
+    private DatabaseManager database;
+    private final Random random = new Random(42);
+    private int nextAuthorId = PRELOADED_AUTHORS + 1;
+    private List<Author> batch;
+    private Set<Integer> lookupIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        databaseFile = Files.createTempFile("bench-authors", ".db");
+        database = new DatabaseManager("jdbc:sqlite:" + databaseFile);
+        List<Author> authors = new ArrayList<>(PRELOADED_AUTHORS);
+        for (int authorId = 1; authorId <= PRELOADED_AUTHORS; authorId++) {
+            authors.add(author(authorId));
+        }
+        database.addAuthors(authors);
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(author(random.nextInt(PRELOADED_AUTHORS) + 1));
+        }
+        lookupIds = new HashSet<>();
+        while (lookupIds.size() < LOOKUP_SIZE) {
+            lookupIds.add(random.nextInt(PRELOADED_AUTHORS * 2) + 1);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.close();
+        Files.deleteIfExists(databaseFile);
+        Files.deleteIfExists(Path.of(databaseFile + "-wal"));
+        Files.deleteIfExists(Path.of(databaseFile + "-shm"));
+    }
+
+    @Benchmark
+    public boolean addAuthorSingle() {
+        return database.addAuthor(author(nextAuthorId++));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Map<Integer, Boolean> addAuthorsBatch() {
+        return database.addAuthors(batch);
+    }
+
+    @Benchmark
+    public Author getAuthorSingle() {
+        return database.getAuthor(random.nextInt(PRELOADED_AUTHORS) + 1);
+    }
+
+    @Benchmark
+    public DatabaseManager.AuthorsLookup getAuthorsBatch() {
+        return database.getAuthors(lookupIds);
+    }
+
+    private static Author author(int authorId) {
+        return new Author(authorId, "Автор " + authorId, authorId % 300, authorId % 100, authorId % 40);
+    }
+}
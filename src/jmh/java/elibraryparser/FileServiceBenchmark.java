@@ -0,0 +1,83 @@
+package elibraryparser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Чтение ID авторов из строки и из файла, запись Markdown отчета.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileServiceBenchmark {
+
+    @Param({"100000"})
+    private int idCount;
+
+    private final FileService fileService = new FileService();
+    private String idsText;
+    private Path idsFile;
+    private Path reportFile;
+    private Set<Author> authors;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        StringJoiner joiner = new StringJoiner(", ");
+        authors = new HashSet<>();
+        for (int i = 0; i < idCount; i++) {
+            int authorId = random.nextInt(2_000_000) + 1;
+            joiner.add(Integer.toString(authorId));
+            authors.add(new Author(authorId, "Автор " + authorId, random.nextInt(300), random.nextInt(100), random.nextInt(40)));
+        }
+        idsText = joiner.toString();
+        idsFile = Files.createTempFile("bench-ids", ".txt");
+        Files.writeString(idsFile, idsText.replace(", ", "\n"));
+        reportFile = Files.createTempFile("bench-report", ".md");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(idsFile);
+        Files.deleteIfExists(reportFile);
+    }
+
+    @Benchmark
+    public Set<Integer> parseAuthorIds() {
+        return fileService.parseAuthorIds(idsText);
+    }
+
+    @Benchmark
+    public AuthorIdSet readAuthorIds() throws IOException {
+        return fileService.readAuthorIds(idsFile);
+    }
+
+    @Benchmark
+    public long saveAuthorsToMarkdown() throws IOException {
+        fileService.saveAuthorsToMarkdown(authors, reportFile);
+        return Files.size(reportFile);
+    }
+}
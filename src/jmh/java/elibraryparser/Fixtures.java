@@ -0,0 +1,33 @@
+package elibraryparser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ *  Загрузка записанных страниц elibrary.ru из ресурсов бенчмарков.
+ */
+final class Fixtures {
+    static final String AUTHOR_PAGE = "fixtures/author_page.html";
+
+    private Fixtures() {
+    }
+
+    /**
+     * Читает ресурс в строку.
+     *
+     * @param name Путь к ресурсу относительно корня ресурсов.
+     * @return Содержимое ресурса в кодировке UTF-8.
+     */
+    static String load(String name) {
+        try (InputStream stream = Fixtures.class.getClassLoader().getResourceAsStream(name)) {
+            if (stream == null) {
+                throw new IllegalStateException("Ресурс не найден: " + name);
+            }
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
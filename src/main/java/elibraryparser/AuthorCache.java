@@ -0,0 +1,242 @@
+package elibraryparser;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *  Ограниченный по размеру кэш авторов в памяти процесса, расположенный перед {@link DatabaseManager}.
+ *  Кэш разбит на сегменты с отдельными блокировками, внутри сегмента вытесняется давно не использованная запись (LRU).
+ *  Для записей можно задать время жизни, после которого они считаются отсутствующими, и допустимый возраст данных:
+ *  запись удаляется, как только данные автора устаревают, независимо от того, когда она помещена в кэш,
+ *  поэтому устаревший автор снова запрашивается из базы данных и ставится в очередь фонового обновления.
+ *  Счетчики попаданий, промахов и вытеснений доступны через геттеры.
+ */
+@Log4j2
+public class AuthorCache {
+    private static final int SEGMENT_COUNT = 16;
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+    private final long ttlNanos;
+    private final long maxAgeMillis;
+    private final int maxSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Создает кэш.
+     *
+     * @param maxSize Максимальное количество записей.
+     * @param ttl     Время жизни записи; {@link Duration#ZERO} означает, что записи не устаревают.
+     * @throws IllegalArgumentException Если размер не положителен.
+     */
+    public AuthorCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, Duration.ZERO);
+    }
+
+    /**
+     * Создает кэш с ограничением возраста данных.
+     *
+     * @param maxSize Максимальное количество записей.
+     * @param ttl     Время жизни записи; {@link Duration#ZERO} означает, что записи не устаревают.
+     * @param maxAge  Допустимый возраст данных автора, отсчитываемый от времени загрузки;
+     *                {@link Duration#ZERO} означает, что данные не устаревают.
+     * @throws IllegalArgumentException Если размер не положителен.
+     */
+    public AuthorCache(int maxSize, Duration ttl, Duration maxAge) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Размер кэша должен быть положительным: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.maxAgeMillis = maxAge.toMillis();
+        int segmentCapacity = Math.max(1, (maxSize + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        log.info("Создан кэш авторов: размер {}, время жизни записи {}, допустимый возраст данных {}", maxSize,
+                ttl.isZero() ? "не ограничено" : ttl, maxAge.isZero() ? "не ограничен" : maxAge);
+    }
+
+    /**
+     * Возвращает автора из кэша.
+     *
+     * @param authorId Идентификатор автора.
+     * @return Автор или {@code null}, если записи нет или она устарела.
+     */
+    public Author get(int authorId) {
+        Segment segment = segmentFor(authorId);
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.get(authorId);
+            if (entry != null && entry.isExpired(System.nanoTime())) {
+                segment.remove(authorId);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.author();
+    }
+
+    /**
+     * Помещает только что загруженного автора в кэш, заменяя предыдущую запись с тем же идентификатором.
+     *
+     * @param author Автор.
+     */
+    public void put(Author author) {
+        put(author, System.currentTimeMillis());
+    }
+
+    /**
+     * Помещает автора в кэш, заменяя предыдущую запись с тем же идентификатором.
+     * Запись удаляется по истечении времени жизни или когда данные становятся старше допустимого возраста,
+     * в зависимости от того, что наступит раньше. Уже устаревший автор в кэш не помещается.
+     *
+     * @param author      Автор.
+     * @param fetchedAt Время загрузки данных автора в миллисекундах.
+     */
+    public void put(Author author, long fetchedAt) {
+        long lifetimeNanos = ttlNanos > 0 ? ttlNanos : Long.MAX_VALUE;
+        if (maxAgeMillis > 0) {
+            long remainingMillis = fetchedAt + maxAgeMillis - System.currentTimeMillis();
+            if (remainingMillis <= 0) {
+                invalidate(author.authorId());
+                return;
+            }
+            lifetimeNanos = Math.min(lifetimeNanos, TimeUnit.MILLISECONDS.toNanos(remainingMillis));
+        }
+        long expiresAt = lifetimeNanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + lifetimeNanos;
+        Segment segment = segmentFor(author.authorId());
+        synchronized (segment) {
+            segment.put(author.authorId(), new Entry(author, expiresAt));
+        }
+    }
+
+    /**
+     * Удаляет автора из кэша.
+     *
+     * @param authorId Идентификатор автора.
+     */
+    public void invalidate(int authorId) {
+        Segment segment = segmentFor(authorId);
+        synchronized (segment) {
+            segment.remove(authorId);
+        }
+    }
+
+    /**
+     * Возвращает текущее количество записей.
+     *
+     * @return Количество записей во всех сегментах, включая еще не удаленные устаревшие.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Возвращает максимальное количество записей.
+     *
+     * @return Размер кэша, заданный при создании.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Возвращает количество попаданий в кэш.
+     *
+     * @return Количество запросов, для которых автор найден.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Возвращает количество промахов кэша.
+     *
+     * @return Количество запросов, для которых автор не найден или запись устарела.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Возвращает количество вытесненных записей.
+     *
+     * @return Количество записей, удаленных из-за превышения размера.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Возвращает долю попаданий.
+     *
+     * @return Отношение попаданий к общему числу запросов или 0, если запросов не было.
+     */
+    public double getHitRatio() {
+        long hitCount = getHitCount();
+        long total = hitCount + getMissCount();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Возвращает строку со статистикой кэша для логов.
+     *
+     * @return Размер, попадания, промахи и вытеснения.
+     */
+    @Override
+    public String toString() {
+        return String.format("AuthorCache[размер: %d/%d, попаданий: %d, промахов: %d, вытеснений: %d]",
+                size(), maxSize, getHitCount(), getMissCount(), getEvictionCount());
+    }
+
+    private Segment segmentFor(int authorId) {
+        int hash = authorId * 0x9E3779B9;
+        return segments[(hash >>> 16 ^ hash) & (SEGMENT_COUNT - 1)];
+    }
+
+    private record Entry(Author author, long expiresAtNanos) {
+        private boolean isExpired(long now) {
+            return now - expiresAtNanos > 0 && expiresAtNanos != Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     *  Сегмент кэша: {@link LinkedHashMap} в порядке доступа, вытесняющий самую старую запись при переполнении.
+     *  Доступ к сегменту синхронизируется на нем самом.
+     */
+    private final class Segment extends LinkedHashMap<Integer, Entry> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
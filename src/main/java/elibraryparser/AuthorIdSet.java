@@ -0,0 +1,160 @@
+package elibraryparser;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ *  Набор уникальных идентификаторов авторов, хранящийся в битовых картах без упаковки чисел в объекты.
+ *  Диапазон {@code int} разбит на блоки по {@value #CHUNK_SIZE} значений, и карта создается только для блоков,
+ *  в которых есть хотя бы один ID: каждый занятый блок занимает 8 КБ. Идентификаторы elibrary.ru плотно заполняют
+ *  начало диапазона, поэтому память почти не отличается от одной битовой карты, а одиночный большой ID
+ *  (например, 2147483647) добавляет один блок, а не карту до этого значения.
+ *  Объем памяти не зависит от количества повторов во входных данных.
+ *  Идентификаторы перебираются в порядке возрастания. Экземпляр не потокобезопасен.
+ */
+public class AuthorIdSet {
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final TreeMap<Integer, long[]> chunks = new TreeMap<>();
+    private int size;
+
+    /**
+     * Добавляет идентификатор в набор.
+     *
+     * @param authorId Положительный идентификатор автора.
+     * @return {@code true}, если идентификатора еще не было в наборе.
+     * @throws IllegalArgumentException Если идентификатор не положителен.
+     */
+    public boolean add(int authorId) {
+        if (authorId <= 0) {
+            throw new IllegalArgumentException("ID автора должен быть положительным: " + authorId);
+        }
+        long[] words = chunks.computeIfAbsent(authorId >>> CHUNK_SHIFT, chunk -> new long[CHUNK_SIZE / Long.SIZE]);
+        int bit = authorId & CHUNK_MASK;
+        long mask = 1L << bit;
+        if ((words[bit >>> 6] & mask) != 0) {
+            return false;
+        }
+        words[bit >>> 6] |= mask;
+        size++;
+        return true;
+    }
+
+    /**
+     * Проверяет наличие идентификатора в наборе.
+     *
+     * @param authorId Идентификатор автора.
+     * @return {@code true}, если идентификатор есть в наборе.
+     */
+    public boolean contains(int authorId) {
+        if (authorId <= 0) {
+            return false;
+        }
+        long[] words = chunks.get(authorId >>> CHUNK_SHIFT);
+        int bit = authorId & CHUNK_MASK;
+        return words != null && (words[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Возвращает количество идентификаторов.
+     *
+     * @return Количество уникальных идентификаторов в наборе.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Проверяет, пуст ли набор.
+     *
+     * @return {@code true}, если в наборе нет идентификаторов.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Возвращает поток идентификаторов в порядке возрастания.
+     *
+     * @return Поток идентификаторов без упаковки в объекты.
+     */
+    public IntStream stream() {
+        return StreamSupport.intStream(Spliterators.spliterator(iterator(), size,
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Возвращает итератор идентификаторов в порядке возрастания.
+     *
+     * @return Итератор идентификаторов без упаковки в объекты.
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new AscendingIterator();
+    }
+
+    /**
+     * Копирует идентификаторы в обычный набор для API, работающих с {@link Set}.
+     *
+     * @return Новый изменяемый набор идентификаторов.
+     */
+    public Set<Integer> toSet() {
+        Set<Integer> set = new HashSet<>(Math.max(16, (int) (size / 0.75f) + 1));
+        stream().forEach(set::add);
+        return set;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthorIdSet[размер: " + size + ", блоков: " + chunks.size() + "]";
+    }
+
+    /**
+     *  Перебор установленных битов по блокам в порядке возрастания номера блока.
+     */
+    private final class AscendingIterator implements PrimitiveIterator.OfInt {
+        private final Iterator<Map.Entry<Integer, long[]>> chunkIterator = chunks.entrySet().iterator();
+        private long[] words;
+        private int base;
+        private int wordIndex;
+        private long word;
+
+        @Override
+        public boolean hasNext() {
+            while (word == 0) {
+                if (words != null && ++wordIndex < words.length) {
+                    word = words[wordIndex];
+                } else if (chunkIterator.hasNext()) {
+                    Map.Entry<Integer, long[]> chunk = chunkIterator.next();
+                    words = chunk.getValue();
+                    base = chunk.getKey() << CHUNK_SHIFT;
+                    wordIndex = 0;
+                    word = words[0];
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int bit = Long.numberOfTrailingZeros(word);
+            word &= word - 1;
+            return base + wordIndex * Long.SIZE + bit;
+        }
+    }
+}
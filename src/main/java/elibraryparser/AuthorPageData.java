@@ -0,0 +1,62 @@
+package elibraryparser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *  Данные, извлеченные со страницы профиля автора на elibrary.ru.
+ *  Поле равно {@code null}, если его не удалось найти на странице.
+ *
+ *  @param name                Полное имя автора.
+ *  @param publishesCount      Число публикаций на elibrary.ru.
+ *  @param citedPublishesCount Число публикаций, процитированных хотя бы один раз.
+ *  @param hirshIndex          Индекс Хирша по всем публикациям.
+ */
+public record AuthorPageData(String name, Integer publishesCount, Integer citedPublishesCount, Integer hirshIndex) {
+
+    /**
+     * Проверяет, что со страницы извлечены все поля.
+     *
+     * @return {@code true}, если все поля найдены.
+     */
+    public boolean isComplete() {
+        return name != null && publishesCount != null && citedPublishesCount != null && hirshIndex != null;
+    }
+
+    /**
+     * Возвращает названия полей, которые не удалось извлечь.
+     *
+     * @return Список названий отсутствующих полей, пустой для полных данных.
+     */
+    public List<String> missingFields() {
+        List<String> missing = new ArrayList<>();
+        if (name == null) {
+            missing.add("ФИО");
+        }
+        if (publishesCount == null) {
+            missing.add("Число публикаций");
+        }
+        if (citedPublishesCount == null) {
+            missing.add("Число цитирований");
+        }
+        if (hirshIndex == null) {
+            missing.add("Индекс Хирша");
+        }
+        return missing;
+    }
+
+    /**
+     * Создает объект {@link Author} из извлеченных данных.
+     *
+     * @param authorId Идентификатор автора.
+     * @return Автор, у которого число публикаций без цитирований вычислено как разность общего числа
+     *         публикаций и числа процитированных публикаций.
+     * @throws IllegalStateException Если данные неполные.
+     */
+    public Author toAuthor(int authorId) {
+        if (!isComplete()) {
+            throw new IllegalStateException("Неполные данные автора " + authorId + ", отсутствуют: " + missingFields());
+        }
+        return new Author(authorId, name, publishesCount, publishesCount - citedPublishesCount, hirshIndex);
+    }
+}
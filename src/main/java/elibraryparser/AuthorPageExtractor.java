@@ -0,0 +1,175 @@
+package elibraryparser;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ *  Извлекает данные об авторе из HTML страницы профиля на elibrary.ru.
+ *  Все поля описаны одним заранее скомпилированным регулярным выражением с именованными группами,
+ *  поэтому документ просматривается один раз, а просмотр прекращается, как только найдены все поля.
+ *  Класс не имеет изменяемого состояния и может использоваться из нескольких потоков одновременно.
+ *  Для разбора страницы по мере загрузки используется {@link Session}.
+ */
+@Log4j2
+public class AuthorPageExtractor {
+    private static final String TABLE_CELL = "</font></td><td align=\"center\" class=\"midtext\"><font color=\"#000000\">";
+    private static final Pattern FIELDS_PATTERN = Pattern.compile(
+            "<title>(?<name>.+?) - Анализ публикационной активности</title>"
+                    + "|>Число публикаций на elibrary\\.ru" + TABLE_CELL + "<a[^>]*>(?<publishes>\\d+)</a>"
+                    + "|>Индекс Хирша по всем публикациям на elibrary\\.ru" + TABLE_CELL + "(?<hirsh>\\d+)</font>"
+                    + "|>Число публикаций автора, процитированных хотя бы один раз" + TABLE_CELL + "(?<cited>\\d+)[^<]+</font>");
+    /**
+     * Количество последних символов, которые сессия хранит между порциями: совпадение,
+     * начавшееся в конце одной порции, может завершиться в следующей.
+     */
+    private static final int MAX_MATCH_LENGTH = 4096;
+
+    /**
+     * Извлекает данные об авторе из HTML контента страницы за один проход.
+     *
+     * @param pageContent HTML контент страницы профиля автора.
+     * @return Извлеченные данные. Поля, которые не удалось найти, равны {@code null}.
+     */
+    public AuthorPageData extract(CharSequence pageContent) {
+        long startNanos = System.nanoTime();
+        Fields fields = new Fields();
+        fields.scan(FIELDS_PATTERN.matcher(pageContent));
+        AuthorPageData data = fields.toData();
+        log.debug("Страница длиной {} символов разобрана за {} мкс", pageContent.length(), (System.nanoTime() - startNanos) / 1000);
+        return data;
+    }
+
+    /**
+     * Создает сессию для разбора страницы по мере ее загрузки.
+     *
+     * @return Новая сессия разбора одной страницы.
+     */
+    public Session newSession() {
+        return new Session();
+    }
+
+    private static Integer parseNumber(String fieldName, String value) {
+        try {
+            int number = Integer.parseInt(value);
+            log.debug("Извлечено значение '{}': '{}'", fieldName, number);
+            return number;
+        } catch (NumberFormatException e) {
+            log.error("Некорректное числовое значение '{}': '{}'", fieldName, value);
+            return null;
+        }
+    }
+
+    /**
+     *  Накопитель найденных значений полей.
+     */
+    private static final class Fields {
+        private String name;
+        private Integer publishes;
+        private Integer cited;
+        private Integer hirsh;
+
+        /**
+         * Просматривает текст сопоставителя, пока не найдены все поля.
+         *
+         * @param matcher Сопоставитель по {@link #FIELDS_PATTERN}.
+         * @return Позиция конца последнего совпадения или 0, если совпадений не было.
+         */
+        private int scan(Matcher matcher) {
+            int lastMatchEnd = 0;
+            while (!isComplete() && matcher.find()) {
+                lastMatchEnd = matcher.end();
+                if (name == null && matcher.group("name") != null) {
+                    name = matcher.group("name").trim();
+                } else if (publishes == null && matcher.group("publishes") != null) {
+                    publishes = parseNumber("Число публикаций", matcher.group("publishes"));
+                } else if (hirsh == null && matcher.group("hirsh") != null) {
+                    hirsh = parseNumber("Индекс Хирша", matcher.group("hirsh"));
+                } else if (cited == null && matcher.group("cited") != null) {
+                    cited = parseNumber("Число цитирований", matcher.group("cited"));
+                }
+            }
+            return lastMatchEnd;
+        }
+
+        private boolean isComplete() {
+            return name != null && publishes != null && cited != null && hirsh != null;
+        }
+
+        private AuthorPageData toData() {
+            AuthorPageData data = new AuthorPageData(name, publishes, cited, hirsh);
+            if (!data.isComplete()) {
+                log.warn("Не удалось найти на странице поля: {}", data.missingFields());
+            }
+            return data;
+        }
+    }
+
+    /**
+     *  Сессия разбора одной страницы, получаемой порциями.
+     *  Сессия хранит только необработанный хвост текста, поэтому объем занятой памяти не зависит от размера страницы.
+     *  Экземпляр не потокобезопасен и предназначен для одной загрузки.
+     */
+    public static final class Session {
+        private final Fields fields = new Fields();
+        private final StringBuilder buffer = new StringBuilder();
+        private final long startNanos = System.nanoTime();
+        private long consumed;
+        private boolean blockPage;
+
+        private Session() {
+        }
+
+        /**
+         * Передает сессии очередную порцию текста страницы.
+         *
+         * @param chars  Массив символов.
+         * @param offset Начало порции в массиве.
+         * @param length Длина порции.
+         * @return {@code true}, если все поля найдены или страница оказалась страницей блокировки
+         *         и дальнейшая загрузка не нужна.
+         */
+        public boolean feed(char[] chars, int offset, int length) {
+            buffer.append(chars, offset, length);
+            consumed += length;
+            if (!blockPage) {
+                blockPage = ElibraryParser.BLOCK_PAGE_MARKERS.stream().anyMatch(marker -> buffer.indexOf(marker) >= 0);
+            }
+            int lastMatchEnd = fields.scan(FIELDS_PATTERN.matcher(buffer));
+            int cut = Math.max(lastMatchEnd, buffer.length() - MAX_MATCH_LENGTH);
+            if (cut > 0) {
+                buffer.delete(0, cut);
+            }
+            return isDone();
+        }
+
+        /**
+         * Проверяет, нужна ли дальнейшая загрузка страницы.
+         *
+         * @return {@code true}, если все поля найдены или получена страница блокировки.
+         */
+        public boolean isDone() {
+            return blockPage || fields.isComplete();
+        }
+
+        /**
+         * Проверяет, содержит ли полученный текст признаки страницы блокировки.
+         *
+         * @return {@code true}, если получена страница блокировки.
+         */
+        public boolean isBlockPage() {
+            return blockPage;
+        }
+
+        /**
+         * Завершает сессию.
+         *
+         * @return Извлеченные данные. Поля, которые не удалось найти, равны {@code null}.
+         */
+        public AuthorPageData finish() {
+            log.debug("Потоковый разбор завершен: прочитано {} символов за {} мкс", consumed, (System.nanoTime() - startNanos) / 1000);
+            return fields.toData();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package elibraryparser;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ *  Издатель авторов для {@link ElibraryParser#getAuthors(IntStream, int)}.
+ *  Запросы к парсеру выполняются через {@link ElibraryParser#getAuthorAsync(int)}: новый запрос начинается, только если
+ *  количество выполняющихся запросов меньше {@code maxConcurrency}, а вместе с еще не переданными авторами
+ *  их меньше, чем запросил подписчик. Сигналы подписчику передаются последовательно из того потока,
+ *  в котором завершился запрос или подписчик запросил авторов, без выделенного потока.
+ */
+@Log4j2
+final class AuthorPublisher implements Flow.Publisher<Author> {
+    private final ElibraryParser parser;
+    private final PrimitiveIterator.OfInt authorIds;
+    private final int maxConcurrency;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    /**
+     * Создает издателя.
+     *
+     * @param parser         Парсер, через который запрашиваются авторы.
+     * @param authorIds      Поток идентификаторов авторов, читается по мере запросов подписчика.
+     * @param maxConcurrency Максимальное количество одновременно выполняемых запросов; значения меньше 1 заменяются на 1.
+     */
+    AuthorPublisher(ElibraryParser parser, IntStream authorIds, int maxConcurrency) {
+        this.parser = parser;
+        this.authorIds = authorIds.iterator();
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+    }
+
+    /**
+     * Подписывает получателя авторов. Повторная подписка завершается ошибкой {@link IllegalStateException}.
+     *
+     * @param subscriber Подписчик.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super Author> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("Издатель авторов допускает только одного подписчика"));
+            return;
+        }
+        subscriber.onSubscribe(new AuthorSubscription(subscriber));
+    }
+
+    /**
+     *  Подписка: учитывает запрошенное количество авторов и выполняющиеся запросы.
+     *  Все сигналы подписчику и чтение потока идентификаторов выполняются в {@link #drain()},
+     *  который в каждый момент времени выполняется не более чем в одном потоке.
+     */
+    private final class AuthorSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super Author> subscriber;
+        private final Queue<Author> ready = new ConcurrentLinkedQueue<>();
+        private final Set<CompletableFuture<Author>> running = ConcurrentHashMap.newKeySet();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger drainRequests = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable error;
+        private boolean done;
+
+        private AuthorSubscription(Flow.Subscriber<? super Author> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Запрошенное количество должно быть положительным: " + n);
+            } else {
+                requested.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            running.forEach(future -> future.cancel(true));
+            drain();
+        }
+
+        private void onFetched(int authorId, CompletableFuture<Author> future, Author author, Throwable failure) {
+            running.remove(future);
+            if (failure == null) {
+                if (author != null) {
+                    ready.add(author);
+                }
+            } else {
+                Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+                if (!(cause instanceof CancellationException)) {
+                    log.warn("Автор {} пропущен: {}", authorId, cause.getMessage());
+                }
+            }
+            inFlight.decrementAndGet();
+            drain();
+        }
+
+        private void drain() {
+            if (drainRequests.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (!done) {
+                    drainOnce();
+                }
+                missed = drainRequests.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drainOnce() {
+            if (cancelled) {
+                ready.clear();
+                done = true;
+                return;
+            }
+            if (error != null) {
+                cancel();
+                done = true;
+                subscriber.onError(error);
+                return;
+            }
+            long demand = requested.get();
+            long emitted = 0;
+            Author author;
+            while (emitted < demand && (author = ready.poll()) != null) {
+                try {
+                    subscriber.onNext(author);
+                } catch (RuntimeException e) {
+                    log.error("Подписчик завершился ошибкой при получении автора, подписка отменена", e);
+                    cancel();
+                    done = true;
+                    return;
+                }
+                emitted++;
+            }
+            if (emitted > 0 && demand != Long.MAX_VALUE) {
+                demand = requested.addAndGet(-emitted);
+            }
+            while (!cancelled && inFlight.get() < maxConcurrency && inFlight.get() + ready.size() < demand && authorIds.hasNext()) {
+                int authorId = authorIds.nextInt();
+                inFlight.incrementAndGet();
+                CompletableFuture<Author> future;
+                try {
+                    future = parser.getAuthorAsync(authorId);
+                } catch (RuntimeException e) {
+                    future = CompletableFuture.failedFuture(e);
+                }
+                running.add(future);
+                CompletableFuture<Author> started = future;
+                future.whenComplete((result, failure) -> onFetched(authorId, started, result, failure));
+            }
+            if (!cancelled && !authorIds.hasNext() && inFlight.get() == 0 && ready.isEmpty()) {
+                done = true;
+                subscriber.onComplete();
+            }
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package elibraryparser;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ *  Режим сервиса: локальный HTTP API поверх одного {@link AuthorsManager}, который остается открытым между запросами.
+ *  Парсер (в том числе запущенный браузер), кэш авторов и соединение с базой данных создаются один раз при запуске,
+ *  поэтому запрос уже сохраненного автора обрабатывается за миллисекунды.
+ *  <ul>
+ *      <li>{@code GET /authors/{id}} - JSON объект автора, ответ 404, если автор не найден, или ответ 503,
+ *      если данные автора не удалось загрузить;</li>
+ *      <li>{@code POST /authors:batch} - тело запроса содержит JSON массив ID, ответ - NDJSON, по одной строке на ID
+ *      в порядке получения результатов: авторы из кэша и базы данных передаются сразу, запрошенные через парсер -
+ *      по мере загрузки.</li>
+ *  </ul>
+ *  Строки авторов имеют тот же формат, что и выгрузка {@link AuthorsExporter.Format#JSONL}; для ненайденных ID
+ *  передается строка {@code {"id":N,"found":false}}, а для ID, данные которых не удалось загрузить, -
+ *  {@code {"id":N,"found":false,"error":true}}. ID авторов должны быть положительными.
+ *  Сервер слушает только адрес обратной петли.
+ */
+@Log4j2
+public class AuthorsApiServer implements AutoCloseable {
+    private static final String CONFIG_PATH = "analyzer.config";
+    private static final int DEFAULT_PORT = 8090;
+    private static final int DEFAULT_THREADS = 16;
+    private static final int DEFAULT_MAX_BATCH = 10_000;
+    private static final String AUTHOR_PREFIX = "/authors/";
+    private static final String BATCH_PATH = "/authors:batch";
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson; charset=utf-8";
+    private static final Metrics.Counter SINGLE_REQUESTS = requestsCounter("single");
+    private static final Metrics.Counter BATCH_REQUESTS = requestsCounter("batch");
+
+    private final AuthorsManager authorsManager;
+    private final int maxBatch;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Запускает сервер.
+     *
+     * @param authorsManager Менеджер авторов, через который обрабатываются запросы; не закрывается сервером.
+     * @param port           Порт; 0 выбирает свободный порт.
+     * @param threads        Количество потоков обработки запросов, значения меньше 1 заменяются на 1.
+     * @param maxBatch       Максимальное количество ID в одном пакетном запросе.
+     * @throws IOException Если порт не удалось открыть.
+     */
+    public AuthorsApiServer(AuthorsManager authorsManager, int port, int threads, int maxBatch) throws IOException {
+        this.authorsManager = authorsManager;
+        this.maxBatch = maxBatch;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "api-server-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.createContext("/authors", this::handle);
+        server.setExecutor(executor);
+        server.start();
+        log.info("HTTP API доступен по адресу http://127.0.0.1:{}/authors", getPort());
+    }
+
+    /**
+     * Запускает режим сервиса с параметрами из файла конфигурации и ожидает завершения процесса.
+     * Параметры "serve_port", "serve_threads" и "serve_max_batch" задают порт, количество потоков обработки запросов
+     * и максимальное количество ID в пакетном запросе. При завершении процесса сервер и менеджер авторов закрываются.
+     *
+     * @param port Порт, переопределяющий параметр "serve_port", или {@code null}.
+     * @throws IOException          Если порт не удалось открыть.
+     * @throws InterruptedException Если ожидание завершения было прервано.
+     */
+    public static void serve(Integer port) throws IOException, InterruptedException {
+        Map<String, String> config = FileService.readConfigFile(CONFIG_PATH);
+        AuthorsManager authorsManager = new AuthorsManager(config);
+        AuthorsApiServer server;
+        try {
+            server = new AuthorsApiServer(authorsManager,
+                    port != null ? port : FileService.getIntParameter(config, "serve_port", DEFAULT_PORT),
+                    FileService.getIntParameter(config, "serve_threads", DEFAULT_THREADS),
+                    FileService.getIntParameter(config, "serve_max_batch", DEFAULT_MAX_BATCH));
+        } catch (IOException | RuntimeException e) {
+            authorsManager.close();
+            throw e;
+        }
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            log.info("Остановка HTTP API");
+            server.close();
+            authorsManager.close();
+            stopped.countDown();
+        }, "api-server-shutdown"));
+        stopped.await();
+    }
+
+    /**
+     * Возвращает порт, на котором слушает сервер.
+     *
+     * @return Номер порта.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Останавливает сервер, не дожидаясь завершения выполняющихся запросов.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static Metrics.Counter requestsCounter(String type) {
+        return Metrics.counter("elibrary_api_requests_total", "Количество запросов к HTTP API по типу", "type", type);
+    }
+
+    /**
+     * Обрабатывает запрос. Если обработка завершилась непредвиденной ошибкой до отправки заголовков ответа,
+     * клиент получает ответ 500 с JSON описанием ошибки; после отправки заголовков соединение просто закрывается.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                route(exchange);
+            } catch (RuntimeException e) {
+                log.error("Ошибка при обработке запроса " + exchange.getRequestURI(), e);
+                // Код ответа -1 означает, что заголовки еще не отправлены
+                if (exchange.getResponseCode() == -1) {
+                    sendError(exchange, 500, "Внутренняя ошибка сервера");
+                }
+            }
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        if (path.equals(BATCH_PATH)) {
+            if (!method.equals("POST")) {
+                sendError(exchange, 405, "Ожидается метод POST");
+                return;
+            }
+            handleBatch(exchange);
+        } else if (path.startsWith(AUTHOR_PREFIX)) {
+            if (!method.equals("GET")) {
+                sendError(exchange, 405, "Ожидается метод GET");
+                return;
+            }
+            handleAuthor(exchange, path.substring(AUTHOR_PREFIX.length()));
+        } else {
+            sendError(exchange, 404, "Неизвестный путь: " + path);
+        }
+    }
+
+    private void handleAuthor(HttpExchange exchange, String id) throws IOException {
+        SINGLE_REQUESTS.increment();
+        int authorId;
+        try {
+            authorId = parseId(id);
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+            return;
+        }
+        AtomicReference<AuthorsManager.FetchOutcome> result = new AtomicReference<>();
+        Set<Author> authors = authorsManager.getAuthors(Set.of(authorId), (ignored, author, outcome) -> result.set(outcome));
+        if (result.get() == AuthorsManager.FetchOutcome.FAILED) {
+            sendError(exchange, 503, "Не удалось загрузить данные автора " + authorId);
+            return;
+        }
+        StringBuilder body = new StringBuilder();
+        if (authors.isEmpty()) {
+            appendNotFound(body, authorId);
+            send(exchange, 404, JSON_CONTENT_TYPE, body.toString());
+        } else {
+            AuthorsExporter.appendJson(body, authors.iterator().next());
+            send(exchange, 200, JSON_CONTENT_TYPE, body.toString());
+        }
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        BATCH_REQUESTS.increment();
+        Set<Integer> authorIds;
+        try (InputStream input = exchange.getRequestBody()) {
+            authorIds = parseIds(new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+            return;
+        }
+        if (authorIds.size() > maxBatch) {
+            sendError(exchange, 413, "Количество ID превышает " + maxBatch);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", NDJSON_CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, 0);
+        try (NdjsonWriter writer = new NdjsonWriter(exchange.getResponseBody())) {
+            authorsManager.getAuthors(authorIds, writer::write);
+        }
+    }
+
+    /**
+     * Разбирает тело пакетного запроса: JSON массив целых чисел, повторяющиеся ID учитываются один раз.
+     *
+     * @param body Тело запроса.
+     * @return ID в порядке первого появления.
+     * @throws IllegalArgumentException Если тело не является JSON массивом положительных целых чисел.
+     */
+    static Set<Integer> parseIds(String body) {
+        String trimmed = body.trim();
+        if (!trimmed.startsWith("[") || !trimmed.endsWith("]")) {
+            throw new IllegalArgumentException("Ожидается JSON массив ID авторов");
+        }
+        Set<Integer> authorIds = new LinkedHashSet<>();
+        String content = trimmed.substring(1, trimmed.length() - 1).trim();
+        if (content.isEmpty()) {
+            return authorIds;
+        }
+        for (String value : content.split(",")) {
+            authorIds.add(parseId(value.trim()));
+        }
+        return authorIds;
+    }
+
+    /**
+     * Разбирает ID автора.
+     *
+     * @param value Строковое значение ID.
+     * @return ID автора.
+     * @throws IllegalArgumentException Если значение не является положительным целым числом.
+     */
+    private static int parseId(String value) {
+        int authorId;
+        try {
+            authorId = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный ID автора: " + value);
+        }
+        if (authorId <= 0) {
+            throw new IllegalArgumentException("Некорректный ID автора: " + value);
+        }
+        return authorId;
+    }
+
+    private static void appendNotFound(StringBuilder line, int authorId) {
+        line.append("{\"id\":").append(authorId).append(",\"found\":false}");
+    }
+
+    private static void appendFailed(StringBuilder line, int authorId) {
+        line.append("{\"id\":").append(authorId).append(",\"found\":false,\"error\":true}");
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder body = new StringBuilder("{\"error\":");
+        AuthorsExporter.appendJsonString(body, message);
+        body.append('}');
+        send(exchange, status, JSON_CONTENT_TYPE, body.toString());
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        } catch (IOException e) {
+            log.debug("Клиент закрыл соединение до конца ответа: {}", e.getMessage());
+        }
+    }
+
+    /**
+     *  Запись строк NDJSON в тело ответа по мере получения результатов. Вызывается из потоков {@link AuthorsManager},
+     *  поэтому запись синхронизирована; каждая строка сразу отправляется клиенту.
+     *  Если клиент закрыл соединение, следующие строки отбрасываются, а запросы к парсеру завершаются,
+     *  и полученные авторы сохраняются в базу данных.
+     */
+    private static final class NdjsonWriter implements AutoCloseable {
+        private final OutputStream output;
+        private final StringBuilder line = new StringBuilder();
+        private boolean broken;
+
+        private NdjsonWriter(OutputStream output) {
+            this.output = output;
+        }
+
+        private synchronized void write(int authorId, Author author, AuthorsManager.FetchOutcome outcome) {
+            if (broken) {
+                return;
+            }
+            line.setLength(0);
+            if (author != null) {
+                AuthorsExporter.appendJson(line, author);
+            } else if (outcome == AuthorsManager.FetchOutcome.FAILED) {
+                appendFailed(line, authorId);
+            } else {
+                appendNotFound(line, authorId);
+            }
+            line.append('\n');
+            try {
+                output.write(line.toString().getBytes(StandardCharsets.UTF_8));
+                output.flush();
+            } catch (IOException e) {
+                broken = true;
+                log.debug("Клиент закрыл соединение до конца ответа: {}", e.getMessage());
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            try {
+                output.close();
+            } catch (IOException e) {
+                log.debug("Клиент закрыл соединение до конца ответа: {}", e.getMessage());
+            }
+        }
+    }
+}
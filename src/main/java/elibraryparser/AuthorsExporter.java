@@ -0,0 +1,156 @@
+package elibraryparser;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ *  Выгружает сохраненных авторов из базы данных в файл формата CSV, JSON Lines или Markdown.
+ *  Авторы читаются однонаправленным курсором и сразу записываются через буферизованный поток,
+ *  поэтому объем занятой памяти не зависит от количества выгружаемых записей.
+ */
+@Log4j2
+public class AuthorsExporter {
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final DatabaseManager database;
+
+    /**
+     *  Формат файла выгрузки.
+     */
+    public enum Format {
+        /** CSV с заголовком, разделитель - запятая, значения экранируются по RFC 4180. */
+        CSV,
+        /** Один JSON объект на строку. */
+        JSONL,
+        /** Markdown таблица в формате отчета {@link MarkdownReportWriter}. */
+        MD
+    }
+
+    /**
+     * Создает экспортер для базы данных.
+     *
+     * @param database База данных с сохраненными авторами.
+     */
+    public AuthorsExporter(DatabaseManager database) {
+        this.database = database;
+    }
+
+    /**
+     * Выгружает авторов, удовлетворяющих условиям, в файл в порядке возрастания ID.
+     *
+     * @param filter   Условия выборки авторов.
+     * @param format   Формат файла.
+     * @param filePath Путь к файлу выгрузки; существующий файл перезаписывается.
+     * @return Количество выгруженных авторов или {@code -1}, если авторов не удалось прочитать из базы данных.
+     * @throws IOException Если файл не удалось записать.
+     */
+    public long export(DatabaseManager.AuthorFilter filter, Format format, Path filePath) throws IOException {
+        log.info("Выгрузка авторов в файл {} в формате {}", filePath, format);
+        long startNanos = System.nanoTime();
+        long count;
+        if (format == Format.MD) {
+            try (MarkdownReportWriter writer = new MarkdownReportWriter(filePath)) {
+                count = database.forEachAuthor(filter, writer::write);
+            }
+        } else {
+            try (BufferedWriter writer = new BufferedWriter(
+                    Files.newBufferedWriter(filePath, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE)) {
+                StringBuilder line = new StringBuilder();
+                if (format == Format.CSV) {
+                    writer.write("id,name,publishesCount,zeroCittPublishesCount,hirshIndex");
+                    writer.newLine();
+                }
+                count = database.forEachAuthor(filter, author -> writeLine(writer, line, format, author));
+            }
+        }
+        log.info("Выгрузка в файл {} завершена: {} авторов за {} мс", filePath, count, (System.nanoTime() - startNanos) / 1_000_000);
+        return count;
+    }
+
+    private static void writeLine(Writer writer, StringBuilder line, Format format, Author author) throws IOException {
+        line.setLength(0);
+        if (format == Format.CSV) {
+            line.append(author.authorId()).append(',');
+            appendCsvValue(line, author.name());
+            line.append(',').append(author.publishesCount())
+                    .append(',').append(author.zeroCittPublishesCount())
+                    .append(',').append(author.hirshIndex());
+        } else {
+            appendJson(line, author);
+        }
+        line.append('\n');
+        writer.append(line);
+    }
+
+    /**
+     * Добавляет автора в виде JSON объекта, который используется в формате {@link Format#JSONL}.
+     *
+     * @param line   Буфер строки.
+     * @param author Автор.
+     */
+    static void appendJson(StringBuilder line, Author author) {
+        line.append("{\"id\":").append(author.authorId()).append(",\"name\":");
+        appendJsonString(line, author.name());
+        line.append(",\"publishesCount\":").append(author.publishesCount())
+                .append(",\"zeroCittPublishesCount\":").append(author.zeroCittPublishesCount())
+                .append(",\"hirshIndex\":").append(author.hirshIndex())
+                .append('}');
+    }
+
+    private static void appendCsvValue(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"') {
+                line.append('"');
+            }
+            line.append(ch);
+        }
+        line.append('"');
+    }
+
+    /**
+     * Добавляет строку в виде JSON строки с экранированием или {@code null}.
+     *
+     * @param line  Буфер строки.
+     * @param value Значение.
+     */
+    static void appendJsonString(StringBuilder line, String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (ch < 0x20) {
+                        line.append(String.format("\\u%04x", (int) ch));
+                    } else {
+                        line.append(ch);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+}
@@ -2,32 +2,172 @@ package elibraryparser;
 
 import lombok.extern.log4j.Log4j2;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.PrimitiveIterator;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 /**
  *  Управляет процессом получения данных об авторах.
  *  Этот класс отвечает за получение информации об авторах из базы данных или с помощью парсера,
  *  а также за сохранение полученных данных в базу данных.
+ *  Запросы к парсеру выполняются асинхронно через {@link ElibraryParser#getAuthorAsync(int)}, одновременно
+ *  не более заданного количества: получение, сохранение в базу данных и передача результата получателю
+ *  составляют цепочку {@link CompletableFuture}, и поток не занимается на время ожидания ответа.
+ *  Сохранение в базу данных выполняется в отдельном пуле потоков, так как JDBC блокирует поток.
  */
 @Log4j2
-public class AuthorsManager {
+public class AuthorsManager implements AutoCloseable {
+    private static final int DEFAULT_MAX_CONCURRENCY = 8;
+    private static final double DEFAULT_RATE_LIMIT = 2.0;
+    private static final int DEFAULT_RATE_BURST = 2;
+    private static final int DEFAULT_CONNECT_TIMEOUT = 10;
+    private static final int DEFAULT_READ_TIMEOUT = 60;
+    private static final int DEFAULT_BROWSER_POOL_SIZE = 4;
+    private static final int DEFAULT_BROWSER_PAGE_MAX_USES = 50;
+    private static final int DEFAULT_BROWSER_DEBUG_PORT = 0;
+    private static final int DEFAULT_CACHE_SIZE = 10000;
+    private static final int DEFAULT_CACHE_TTL = 0;
+    private static final int DEFAULT_MAX_AGE_DAYS = 30;
+    private static final int DEFAULT_REFRESH_CONCURRENCY = 2;
+    private static final int DEFAULT_REFRESH_QUEUE_SIZE = 1000;
+    private static final double DEFAULT_REFRESH_DRAIN_TIMEOUT = 60;
+    private static final int DEFAULT_METRICS_PORT = 0;
+    private static final int DEFAULT_RETRY_ATTEMPTS = 4;
+    private static final double DEFAULT_RETRY_BASE_DELAY = 1;
+    private static final double DEFAULT_RETRY_MAX_DELAY = 30;
+    private static final int DEFAULT_CIRCUIT_BREAKER_THRESHOLD = 10;
+    private static final double DEFAULT_CIRCUIT_BREAKER_PAUSE = 30;
+    private static final int DEFAULT_PROXY_EJECT_FAILURES = 5;
+    private static final double DEFAULT_PROXY_EJECT_TIME = 30;
+    private static final Pattern PROXY_KEY = Pattern.compile("web_proxy\\.(\\d+)");
+    private static final int ID_CHUNK_SIZE = 10_000;
+    private static final Metrics.Counter CACHE_AUTHORS = authorsCounter("cache");
+    private static final Metrics.Counter DATABASE_AUTHORS = authorsCounter("database");
+    private static final Metrics.Counter PARSER_AUTHORS = authorsCounter("parser");
+    private static final Metrics.Counter COALESCED_FETCHES = Metrics.counter("elibrary_fetch_coalesced_total",
+            "Количество запросов автора, присоединившихся к уже выполняющемуся запросу того же ID");
+    private static final Metrics.Counter NOT_FOUND_AUTHORS = Metrics.counter("elibrary_authors_not_found_total",
+            "Количество ID, для которых автор не найден или данные не извлечены со страницы");
+    private static final Metrics.Counter FAILED_AUTHORS = Metrics.counter("elibrary_author_failures_total",
+            "Количество ID, страницы которых не удалось загрузить");
+    private static final Metrics.Counter REFRESHED_AUTHORS = Metrics.counter("elibrary_author_refreshes_total",
+            "Количество устаревших авторов, обновленных в фоне", "result", "success");
+    private static final Metrics.Counter FAILED_REFRESHES = Metrics.counter("elibrary_author_refreshes_total",
+            "Количество устаревших авторов, обновленных в фоне", "result", "failure");
+    private static final Metrics.Counter SKIPPED_REFRESHES = Metrics.counter("elibrary_author_refreshes_total",
+            "Количество устаревших авторов, обновленных в фоне", "result", "skipped");
     private final ElibraryParser parser;
     private final DatabaseManager database;
+    private final ExecutorService executor;
+    private final FetchPermits fetchPermits;
+    private final AuthorCache cache;
+    private final Duration maxAge;
+    private final ThreadPoolExecutor refreshExecutor;
+    private final long refreshDrainTimeoutMillis;
+    private final Set<Integer> refreshing = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<Integer, Flight> inFlight = new ConcurrentHashMap<>();
+    private final MetricsServer metricsServer;
+
+    /**
+     * Итог обработки одного ID.
+     */
+    public enum FetchOutcome {
+        /** Автор получен из кэша, базы данных или через парсер. */
+        FOUND,
+        /** Парсер загрузил страницу, но автор с таким ID не найден. */
+        NOT_FOUND,
+        /** Данные получить не удалось: ошибка загрузки страницы или базы данных, ID можно запросить повторно. */
+        FAILED
+    }
+
+    /**
+     *  Получатель результата обработки каждого ID в {@link #getAuthors(Set, FetchListener)}.
+     *  Вызывается из потоков пула, поэтому реализация должна быть потокобезопасной.
+     */
+    @FunctionalInterface
+    public interface FetchListener {
+        /**
+         * Сообщает результат обработки одного ID.
+         *
+         * @param authorId Идентификатор автора.
+         * @param author   Полученный автор или {@code null}, если автор не найден или данные получить не удалось.
+         * @param outcome  Итог обработки, отличающий ненайденного автора от ошибки.
+         */
+        void onResult(int authorId, Author author, FetchOutcome outcome);
+    }
 
     /**
      * Конструктор для создания {@code AuthorsManager} с конфигурацией.
      *
      * @param config Карта параметров конфигурации, включая параметры прокси.
-     *               Параметр "web_proxy" задает адрес прокси-сервера.
+     *               Параметр "web_proxy" задает адрес прокси-сервера, параметры "web_proxy.N" - пул прокси
+     *               (см. {@link #createProxyPool(Map)}), параметр "max_concurrency" - максимальное общее количество
+     *               одновременных запросов (см. {@link #getMaxConcurrency(Map, ProxyPool)}),
+     *               параметры "rate_limit" и "rate_burst" - частота запросов в секунду и допустимый всплеск,
+     *               параметр "parser" - используемый парсер: "http" (по умолчанию) или "browser",
+     *               параметры "connect_timeout" и "read_timeout" - таймауты HTTP запросов в секундах,
+     *               параметр "streaming_download" - разбор страницы по мере загрузки,
+     *               параметры "cache_size" и "cache_ttl" - размер кэша авторов в памяти (0 отключает кэш)
+     *               и время жизни записи в секундах (0 - без ограничения),
+     *               параметр "max_age_days" - возраст данных в днях, после которого автор обновляется в фоне
+     *               (0 - данные не устаревают), параметр "refresh_concurrency" - количество одновременных фоновых обновлений,
+     *               параметры "refresh_queue_size" и "refresh_drain_timeout" - размер очереди фоновых обновлений
+     *               и время в секундах, в течение которого при закрытии ожидается выполнение запланированных обновлений,
+     *               параметр "metrics_port" - порт HTTP сервера метрик в формате Prometheus (0 - сервер не запускается),
+     *               параметры "retry_attempts", "retry_base_delay" и "retry_max_delay" - количество попыток и пауза
+     *               между повторами в секундах при временных ошибках, параметры "circuit_breaker_threshold"
+     *               и "circuit_breaker_pause" - количество ошибок подряд, после которого запросы приостанавливаются,
+     *               и длительность паузы в секундах, параметр "page_archive" - каталог архива загруженных страниц
+     *               (пустое значение - страницы не сохраняются).
      */
     public AuthorsManager(Map<String, String> config) {
         log.info("Создание AuthorsManager с конфигурацией: {}", config);
-        String webProxy = config.getOrDefault("web_proxy", "");
-        this.parser = new ElibraryParserHttp(webProxy);
+        ProxyPool proxyPool = createProxyPool(config);
+        this.parser = createParser(config, proxyPool);
         this.database = new DatabaseManager();
+        int maxConcurrency = getMaxConcurrency(config, proxyPool);
+        this.executor = createExecutor(maxConcurrency);
+        this.fetchPermits = new FetchPermits(maxConcurrency);
+        this.maxAge = Duration.ofDays(Math.max(0, FileService.getIntParameter(config, "max_age_days", DEFAULT_MAX_AGE_DAYS)));
+        this.cache = createCache(
+                FileService.getIntParameter(config, "cache_size", DEFAULT_CACHE_SIZE),
+                FileService.getIntParameter(config, "cache_ttl", DEFAULT_CACHE_TTL), maxAge);
+        this.refreshExecutor = createRefreshExecutor(
+                FileService.getIntParameter(config, "refresh_concurrency", DEFAULT_REFRESH_CONCURRENCY),
+                FileService.getIntParameter(config, "refresh_queue_size", DEFAULT_REFRESH_QUEUE_SIZE));
+        this.refreshDrainTimeoutMillis = secondsToMillis(
+                FileService.getDoubleParameter(config, "refresh_drain_timeout", DEFAULT_REFRESH_DRAIN_TIMEOUT));
+        this.metricsServer = createMetricsServer(FileService.getIntParameter(config, "metrics_port", DEFAULT_METRICS_PORT));
+        Metrics.registerMBean();
+        registerGauges();
         log.info("AuthorsManager создан");
     }
 
@@ -39,58 +179,777 @@ public class AuthorsManager {
      * @param database Экземпляр {@link DatabaseManager} для работы с базой данных.
      */
     public AuthorsManager(ElibraryParser parser, DatabaseManager database) {
+        this(parser, database, DEFAULT_MAX_CONCURRENCY);
+    }
+
+    /**
+     * Конструктор для создания {@code AuthorsManager} с заданным парсером, менеджером базы данных
+     * и ограничением количества одновременных запросов.
+     *
+     * @param parser         Экземпляр {@link ElibraryParser} для получения данных об авторах.
+     * @param database       Экземпляр {@link DatabaseManager} для работы с базой данных.
+     * @param maxConcurrency Максимальное количество одновременно выполняемых запросов к парсеру.
+     */
+    public AuthorsManager(ElibraryParser parser, DatabaseManager database, int maxConcurrency) {
+        this(parser, database, maxConcurrency, null);
+    }
+
+    /**
+     * Конструктор для создания {@code AuthorsManager} с заданным парсером, менеджером базы данных,
+     * ограничением количества одновременных запросов и кэшем авторов в памяти.
+     *
+     * @param parser         Экземпляр {@link ElibraryParser} для получения данных об авторах.
+     * @param database       Экземпляр {@link DatabaseManager} для работы с базой данных.
+     * @param maxConcurrency Максимальное количество одновременно выполняемых запросов к парсеру.
+     * @param cache          Кэш авторов перед базой данных или {@code null}, чтобы не использовать кэш.
+     */
+    public AuthorsManager(ElibraryParser parser, DatabaseManager database, int maxConcurrency, AuthorCache cache) {
+        this(parser, database, maxConcurrency, cache, Duration.ZERO, DEFAULT_REFRESH_CONCURRENCY);
+    }
+
+    /**
+     * Конструктор для создания {@code AuthorsManager} со всеми параметрами.
+     *
+     * @param parser             Экземпляр {@link ElibraryParser} для получения данных об авторах.
+     * @param database           Экземпляр {@link DatabaseManager} для работы с базой данных.
+     * @param maxConcurrency     Максимальное количество одновременно выполняемых запросов к парсеру.
+     * @param cache              Кэш авторов перед базой данных или {@code null}, чтобы не использовать кэш;
+     *                           допустимый возраст данных кэша должен совпадать с {@code maxAge}.
+     * @param maxAge             Возраст данных, после которого автор обновляется в фоне;
+     *                           {@link Duration#ZERO} означает, что данные не устаревают.
+     * @param refreshConcurrency Максимальное количество одновременных фоновых обновлений.
+     */
+    public AuthorsManager(ElibraryParser parser, DatabaseManager database, int maxConcurrency, AuthorCache cache,
+                          Duration maxAge, int refreshConcurrency) {
         log.info("Создание AuthorsManager с парсером: {} и базой данных: {}", parser, database);
         this.parser = parser;
         this.database = database;
+        this.executor = createExecutor(maxConcurrency);
+        this.fetchPermits = new FetchPermits(maxConcurrency);
+        this.cache = cache;
+        this.maxAge = maxAge;
+        this.refreshExecutor = createRefreshExecutor(refreshConcurrency, DEFAULT_REFRESH_QUEUE_SIZE);
+        this.refreshDrainTimeoutMillis = secondsToMillis(DEFAULT_REFRESH_DRAIN_TIMEOUT);
+        this.metricsServer = null;
+        registerGauges();
         log.info("AuthorsManager создан");
     }
 
+    /**
+     * Создает ограничитель частоты запросов по параметрам "rate_limit" и "rate_burst".
+     *
+     * @param config Карта параметров конфигурации.
+     * @return Ограничитель частоты запросов.
+     */
+    static RateLimiter createRateLimiter(Map<String, String> config) {
+        return new RateLimiter(
+                FileService.getDoubleParameter(config, "rate_limit", DEFAULT_RATE_LIMIT),
+                FileService.getIntParameter(config, "rate_burst", DEFAULT_RATE_BURST));
+    }
+
+    /**
+     * Создает пул прокси. Прокси пула задаются параметрами "web_proxy.1", "web_proxy.2" и т.д.; для каждого можно задать
+     * предел одновременных запросов "web_proxy.N.concurrency" и ограничитель частоты "web_proxy.N.rate" и "web_proxy.N.burst"
+     * (по умолчанию "max_concurrency", "rate_limit" и "rate_burst"). Если такие параметры не заданы, пул состоит
+     * из одного прокси "web_proxy" с общим ограничителем частоты запросов. Параметры "proxy_eject_failures"
+     * и "proxy_eject_time" задают количество ошибок подряд, после которого прокси исключается из пула,
+     * и длительность исключения в секундах.
+     *
+     * @param config Карта параметров конфигурации.
+     * @return Пул прокси.
+     */
+    static ProxyPool createProxyPool(Map<String, String> config) {
+        Map<Integer, String> proxies = new TreeMap<>();
+        for (Map.Entry<String, String> entry : config.entrySet()) {
+            Matcher matcher = PROXY_KEY.matcher(entry.getKey());
+            if (matcher.matches() && !entry.getValue().isBlank()) {
+                proxies.put(Integer.parseInt(matcher.group(1)), entry.getValue().trim());
+            }
+        }
+        if (proxies.isEmpty()) {
+            return ProxyPool.single(config.getOrDefault("web_proxy", ""), createRateLimiter(config));
+        }
+        int defaultConcurrency = FileService.getIntParameter(config, "max_concurrency", DEFAULT_MAX_CONCURRENCY);
+        double defaultRate = FileService.getDoubleParameter(config, "rate_limit", DEFAULT_RATE_LIMIT);
+        int defaultBurst = FileService.getIntParameter(config, "rate_burst", DEFAULT_RATE_BURST);
+        List<ProxyPool.EndpointSettings> endpoints = new ArrayList<>(proxies.size());
+        for (Map.Entry<Integer, String> proxy : proxies.entrySet()) {
+            String key = "web_proxy." + proxy.getKey();
+            endpoints.add(new ProxyPool.EndpointSettings(key, proxy.getValue(),
+                    Math.max(1, FileService.getIntParameter(config, key + ".concurrency", defaultConcurrency)),
+                    new RateLimiter(
+                            FileService.getDoubleParameter(config, key + ".rate", defaultRate),
+                            FileService.getIntParameter(config, key + ".burst", defaultBurst))));
+        }
+        return new ProxyPool(endpoints,
+                FileService.getIntParameter(config, "proxy_eject_failures", DEFAULT_PROXY_EJECT_FAILURES),
+                secondsToMillis(FileService.getDoubleParameter(config, "proxy_eject_time", DEFAULT_PROXY_EJECT_TIME)));
+    }
+
+    /**
+     * Возвращает максимальное общее количество одновременных запросов к парсеру. Если параметр "max_concurrency"
+     * не задан, а прокси заданы пулом "web_proxy.N", используется сумма пределов "web_proxy.N.concurrency",
+     * чтобы общий предел не ограничивал пределы отдельных прокси.
+     *
+     * @param config    Карта параметров конфигурации.
+     * @param proxyPool Пул прокси, созданный по этой конфигурации.
+     * @return Максимальное количество одновременных запросов.
+     */
+    static int getMaxConcurrency(Map<String, String> config, ProxyPool proxyPool) {
+        int totalConcurrency = proxyPool.getTotalConcurrency();
+        return FileService.getIntParameter(config, "max_concurrency",
+                totalConcurrency < Integer.MAX_VALUE ? totalConcurrency : DEFAULT_MAX_CONCURRENCY);
+    }
+
+    /**
+     * Создает парсер, указанный в конфигурации.
+     *
+     * @param config    Карта параметров конфигурации.
+     * @param proxyPool Пул прокси, через который выполняются запросы.
+     * @return {@link ElibraryParserRegex} с пулом вкладок, если параметр "parser" равен "browser",
+     *         иначе {@link ElibraryParserHttp}, обернутый в {@link ResilientParser}.
+     */
+    static ElibraryParser createParser(Map<String, String> config, ProxyPool proxyPool) {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(
+                FileService.getIntParameter(config, "circuit_breaker_threshold", DEFAULT_CIRCUIT_BREAKER_THRESHOLD),
+                secondsToMillis(FileService.getDoubleParameter(config, "circuit_breaker_pause", DEFAULT_CIRCUIT_BREAKER_PAUSE)));
+        return new ResilientParser(createBaseParser(config, proxyPool),
+                FileService.getIntParameter(config, "retry_attempts", DEFAULT_RETRY_ATTEMPTS),
+                secondsToMillis(FileService.getDoubleParameter(config, "retry_base_delay", DEFAULT_RETRY_BASE_DELAY)),
+                secondsToMillis(FileService.getDoubleParameter(config, "retry_max_delay", DEFAULT_RETRY_MAX_DELAY)),
+                circuitBreaker);
+    }
+
+    /**
+     * Создает парсер, указанный в параметре "parser", без повторов запросов.
+     *
+     * @param config    Карта параметров конфигурации.
+     * @param proxyPool Пул прокси, через который выполняются запросы.
+     * @return {@link ElibraryParserRegex} или {@link ElibraryParserHttp}.
+     */
+    private static ElibraryParser createBaseParser(Map<String, String> config, ProxyPool proxyPool) {
+        if ("browser".equalsIgnoreCase(config.getOrDefault("parser", "http"))) {
+            BrowserPagePool pagePool = new BrowserPagePool(
+                    Boolean.parseBoolean(config.getOrDefault("headless", "true")),
+                    FileService.getIntParameter(config, "browser_pool_size", DEFAULT_BROWSER_POOL_SIZE),
+                    FileService.getIntParameter(config, "browser_page_max_uses", DEFAULT_BROWSER_PAGE_MAX_USES),
+                    FileService.getIntParameter(config, "browser_debug_port", DEFAULT_BROWSER_DEBUG_PORT));
+            return new ElibraryParserRegex(proxyPool, pagePool, openPageArchive(config));
+        }
+        HttpFetcher fetcher = new HttpFetcher(
+                Duration.ofSeconds(FileService.getIntParameter(config, "connect_timeout", DEFAULT_CONNECT_TIMEOUT)),
+                Duration.ofSeconds(FileService.getIntParameter(config, "read_timeout", DEFAULT_READ_TIMEOUT)));
+        boolean streaming = Boolean.parseBoolean(config.getOrDefault("streaming_download", "true"));
+        return new ElibraryParserHttp(proxyPool, fetcher, streaming, openPageArchive(config));
+    }
+
+    /**
+     * Открывает архив загруженных страниц из каталога, заданного параметром "page_archive".
+     *
+     * @param config Карта параметров конфигурации.
+     * @return Архив или {@code null}, если параметр не задан или архив не удалось открыть.
+     */
+    private static PageArchive openPageArchive(Map<String, String> config) {
+        String directory = config.getOrDefault("page_archive", "").trim();
+        if (directory.isEmpty()) {
+            return null;
+        }
+        try {
+            return new PageArchive(Path.of(directory));
+        } catch (IOException | RuntimeException e) {
+            log.error("Не удалось открыть архив страниц " + directory + ", страницы не будут сохраняться", e);
+            return null;
+        }
+    }
+
+    /**
+     * Переводит значение параметра конфигурации в секундах в миллисекунды.
+     *
+     * @param seconds Количество секунд, отрицательные значения заменяются на 0.
+     * @return Количество миллисекунд.
+     */
+    private static long secondsToMillis(double seconds) {
+        return Math.round(Math.max(0, seconds) * 1000);
+    }
+
+    /**
+     * Создает кэш авторов в памяти.
+     *
+     * @param size       Максимальное количество записей; 0 или меньше отключает кэш.
+     * @param ttlSeconds Время жизни записи в секундах; 0 или меньше означает отсутствие ограничения.
+     * @param maxAge     Допустимый возраст данных, после которого автор удаляется из кэша.
+     * @return Кэш или {@code null}, если кэш отключен.
+     */
+    private static AuthorCache createCache(int size, int ttlSeconds, Duration maxAge) {
+        if (size <= 0) {
+            log.info("Кэш авторов в памяти отключен");
+            return null;
+        }
+        return new AuthorCache(size, Duration.ofSeconds(Math.max(0, ttlSeconds)), maxAge);
+    }
+
+    /**
+     * Запускает HTTP сервер метрик.
+     *
+     * @param port Порт; 0 или меньше означает, что сервер не запускается.
+     * @return Сервер или {@code null}, если сервер отключен или его не удалось запустить.
+     */
+    private static MetricsServer createMetricsServer(int port) {
+        if (port <= 0) {
+            return null;
+        }
+        try {
+            return new MetricsServer(port);
+        } catch (IOException e) {
+            log.error("Не удалось запустить сервер метрик на порту " + port, e);
+            return null;
+        }
+    }
+
+    /**
+     * Регистрирует показатели кэша и очереди фоновых обновлений этого менеджера.
+     */
+    private void registerGauges() {
+        Metrics.gauge("elibrary_refresh_pending", "Количество запланированных фоновых обновлений", refreshing::size);
+        if (cache != null) {
+            Metrics.gauge("elibrary_cache_hit_ratio", "Доля попаданий в кэш авторов", cache::getHitRatio);
+            Metrics.gauge("elibrary_cache_size", "Количество записей в кэше авторов", cache::size);
+            Metrics.gauge("elibrary_cache_evictions", "Количество записей, вытесненных из кэша авторов", cache::getEvictionCount);
+        }
+    }
+
+    private static Metrics.Counter authorsCounter(String source) {
+        return Metrics.counter("elibrary_authors_total", "Количество полученных авторов по источнику данных", "source", source);
+    }
+
+    /**
+     * Создает пул потоков для сохранения полученных авторов в базу данных.
+     *
+     * @param maxConcurrency Размер пула, значения меньше 1 заменяются на 1.
+     * @return Пул потоков-демонов фиксированного размера.
+     */
+    private static ExecutorService createExecutor(int maxConcurrency) {
+        return createExecutor("author-writer-", maxConcurrency);
+    }
+
+    /**
+     * Создает пул потоков-демонов фиксированного размера.
+     *
+     * @param namePrefix     Префикс имен потоков.
+     * @param maxConcurrency Размер пула, значения меньше 1 заменяются на 1.
+     * @return Пул потоков-демонов фиксированного размера.
+     */
+    private static ExecutorService createExecutor(String namePrefix, int maxConcurrency) {
+        int threads = Math.max(1, maxConcurrency);
+        log.info("Размер пула {}: {}", namePrefix, threads);
+        return Executors.newFixedThreadPool(threads, daemonThreadFactory(namePrefix));
+    }
+
+    /**
+     * Создает пул фоновых обновлений с ограниченной очередью: обновления, не поместившиеся в очередь, отклоняются,
+     * а устаревшие авторы будут снова запланированы при следующем обращении к ним.
+     *
+     * @param concurrency Количество одновременных обновлений, значения меньше 1 заменяются на 1.
+     * @param queueSize   Размер очереди, значения меньше 1 заменяются на 1.
+     * @return Пул потоков-демонов фиксированного размера.
+     */
+    private static ThreadPoolExecutor createRefreshExecutor(int concurrency, int queueSize) {
+        int threads = Math.max(1, concurrency);
+        log.info("Размер пула author-refresher-: {}, размер очереди: {}", threads, Math.max(1, queueSize));
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)), daemonThreadFactory("author-refresher-"));
+    }
+
+    private static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
     /**
      * Получает данные о нескольких авторах.
-     * Сначала проверяет наличие данных в базе данных, если нет, использует парсер для запроса данных.
+     * Сначала ищет авторов в кэше в памяти, затем одним пакетным запросом получает из базы данных
+     * остальных уже сохраненных авторов и только отсутствующих запрашивает через парсер.
+     * Устаревшие авторы возвращаются сразу, а их обновление ставится в очередь фоновых обновлений.
+     * ID, которые не удалось проверить в базе данных из-за ошибки SQL, сообщаются как не полученные и через парсер
+     * не запрашиваются, чтобы временная ошибка базы данных не приводила к повторной загрузке сохраненных авторов.
+     * Авторы обрабатываются параллельно, ошибка при обработке одного автора не влияет на остальных.
+     * При прерывании вызывающего потока незавершенные запросы отменяются и возвращаются уже полученные авторы.
      *
      * @param authorIds Набор идентификаторов авторов.
      * @return Набор объектов {@link Author}, представляющих найденных авторов.
      */
     public Set<Author> getAuthors(Set<Integer> authorIds) {
-        log.info("Получение информации об авторах с ID: {}", authorIds);
-        Set<Author> authors = authorIds.stream()
-                .map(this::getAuthor)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
+        return getAuthors(authorIds, (authorId, author, outcome) -> {
+        });
+    }
+
+    /**
+     * Получает данные о нескольких авторах так же, как {@link #getAuthors(Set)}, сообщая результат
+     * для каждого ID сразу после его обработки. Отмененные при прерывании запросы не сообщаются.
+     * Исключение, выброшенное получателем, прекращает обработку: выполняющиеся запросы отменяются,
+     * а исключение передается вызывающему, как для авторов из кэша и базы данных, так и для запрошенных через парсер.
+     *
+     * @param authorIds Набор идентификаторов авторов.
+     * @param listener  Получатель результата для каждого ID.
+     * @return Набор объектов {@link Author}, представляющих найденных авторов.
+     */
+    public Set<Author> getAuthors(Set<Integer> authorIds, FetchListener listener) {
+        log.info("Получение информации о {} авторах", authorIds.size());
+        log.debug("ID авторов: {}", authorIds);
+        Set<Author> authors = new HashSet<>();
+        Set<Integer> uncachedIds = authorIds;
+        if (cache != null) {
+            uncachedIds = new HashSet<>();
+            for (int authorId : authorIds) {
+                Author author = cache.get(authorId);
+                if (author != null) {
+                    authors.add(author);
+                    listener.onResult(authorId, author, FetchOutcome.FOUND);
+                } else {
+                    uncachedIds.add(authorId);
+                }
+            }
+            CACHE_AUTHORS.add(authors.size());
+            log.info("Из кэша получено {} авторов", authors.size());
+        }
+
+        DatabaseManager.AuthorsLookup lookup = database.getAuthors(uncachedIds, maxAge);
+        authors.addAll(lookup.found());
+        DATABASE_AUTHORS.add(lookup.found().size());
+        lookup.found().forEach(author -> listener.onResult(author.authorId(), author, FetchOutcome.FOUND));
+        if (cache != null) {
+            for (Author author : lookup.found()) {
+                if (!lookup.stale().contains(author.authorId())) {
+                    cache.put(author, lookup.fetchedAt().getOrDefault(author.authorId(), System.currentTimeMillis()));
+                }
+            }
+        }
+        lookup.stale().forEach(this::scheduleRefresh);
+        if (!lookup.failed().isEmpty()) {
+            log.warn("{} ID не удалось проверить в базе данных, они не будут запрошены через парсер", lookup.failed().size());
+            lookup.failed().forEach(authorId -> listener.onResult(authorId, null, FetchOutcome.FAILED));
+        }
+        log.info("Из базы данных получено {} авторов, через парсер будет запрошено {}", lookup.found().size(), lookup.missing().size());
+
+        List<Future<Author>> futures = new ArrayList<>(lookup.missing().size());
+        List<CompletableFuture<Author>> fetches = new ArrayList<>(lookup.missing().size());
+        AtomicReference<RuntimeException> listenerError = new AtomicReference<>();
+        for (int authorId : lookup.missing()) {
+            CompletableFuture<Author> fetch = fetchAuthor(authorId);
+            fetches.add(fetch);
+            futures.add(fetch.whenComplete((author, error) -> {
+                try {
+                    if (error == null) {
+                        listener.onResult(authorId, author, author != null ? FetchOutcome.FOUND : FetchOutcome.NOT_FOUND);
+                    } else if (!(error instanceof CancellationException)) {
+                        listener.onResult(authorId, null, FetchOutcome.FAILED);
+                    }
+                } catch (RuntimeException e) {
+                    listenerError.compareAndSet(null, e);
+                }
+            }));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                Author author = futures.get(i).get();
+                if (author != null) {
+                    authors.add(author);
+                }
+            } catch (ExecutionException | CancellationException e) {
+                // Ошибка загрузки уже записана в лог в checkFetched, отмена сообщается при прерывании
+                log.debug("Данные автора не получены: {}", e.getMessage());
+            } catch (InterruptedException e) {
+                log.warn("Получение информации об авторах прервано, отмена {} запросов", futures.size() - i);
+                cancelFetches(fetches);
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (listenerError.get() != null) {
+                log.error("Обработка результата завершилась ошибкой, отмена {} запросов", futures.size() - i - 1);
+                cancelFetches(fetches);
+                throw listenerError.get();
+            }
+        }
         log.info("Получена информация о {} авторах", authors.size());
+        if (cache != null) {
+            log.info("Статистика кэша: {}", cache);
+        }
         return authors;
     }
 
     /**
-     * Получает данные об одном авторе.
-     * Сначала проверяет наличие данных в базе данных, если нет, запрашивает данные через парсер.
+     * Получает данные об авторах из потока идентификаторов, обрабатывая его порциями по {@value #ID_CHUNK_SIZE}.
+     * В памяти одновременно находится только одна порция идентификаторов, поэтому поток может быть
+     * сколь угодно длинным, например {@link AuthorIdSet#stream()} для файла с миллионами ID.
+     * При прерывании вызывающего потока обработка прекращается после текущей порции.
+     *
+     * Найденные авторы не накапливаются в памяти и передаются только получателю результата.
+     *
+     * @param authorIds Поток идентификаторов авторов.
+     * @param listener  Получатель результата для каждого ID.
+     * @return Количество найденных авторов.
+     */
+    public int processAuthors(IntStream authorIds, FetchListener listener) {
+        int foundCount = 0;
+        Set<Integer> chunk = new HashSet<>();
+        PrimitiveIterator.OfInt iterator = authorIds.iterator();
+        int chunkNumber = 0;
+        while (iterator.hasNext() && !Thread.currentThread().isInterrupted()) {
+            chunk.add(iterator.nextInt());
+            if (chunk.size() == ID_CHUNK_SIZE || !iterator.hasNext()) {
+                log.info("Обработка порции {} из {} ID", ++chunkNumber, chunk.size());
+                foundCount += getAuthors(chunk, listener).size();
+                chunk = new HashSet<>();
+            }
+        }
+        return foundCount;
+    }
+
+    /**
+     * Отменяет ожидание запросов этим вызовом. Сначала отменяются ожидающие разрешения запросы,
+     * иначе разрешение отмененного запроса получит следующий.
+     *
+     * @param fetches Результаты {@link #fetchAuthor(int)} в порядке запуска.
+     */
+    private static void cancelFetches(List<CompletableFuture<Author>> fetches) {
+        for (int i = fetches.size() - 1; i >= 0; i--) {
+            fetches.get(i).cancel(false);
+        }
+    }
+
+    /**
+     * Запускает запрос данных об одном авторе через парсер с сохранением в базу данных.
+     * Одновременные запросы одного ID объединяются: если запрос этого ID уже выполняется или ожидает разрешения,
+     * вызов присоединяется к нему, поэтому прокси и база данных получают один запрос на ID.
+     * Каждый вызов получает собственный Future: его отмена отменяет только ожидание этого вызова,
+     * а запрос к парсеру отменяется, когда от него отказались все ожидающие.
+     * Запись об ID удаляется из таблицы выполняющихся запросов при любом завершении, в том числе при отмене.
      *
      * @param authorId Идентификатор автора.
-     * @return Объект {@link Author} с данными об авторе, или {@code null}, если данные не найдены или произошла ошибка.
+     * @return Результат запроса: объект {@link Author} или {@code null}, если автор не найден;
+     * при ошибке загрузки результат завершается исключением.
+     * @throws RejectedExecutionException Если менеджер уже закрыт.
      */
-    private Author getAuthor(int authorId) {
-        log.debug("Получение информации об авторе с ID: {}", authorId);
-        if (database.recordExists(authorId)) {
-            Author author = database.getAuthor(authorId);
-            log.debug("Автор {} найден в базе данных: {}", authorId, author);
-            return author;
+    private CompletableFuture<Author> fetchAuthor(int authorId) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("AuthorsManager закрыт");
+        }
+        Flight[] created = new Flight[1];
+        Flight flight = inFlight.compute(authorId, (id, existing) -> {
+            if (existing != null && existing.join()) {
+                return existing;
+            }
+            created[0] = new Flight();
+            return created[0];
+        });
+        if (flight == created[0]) {
+            flight.result.whenComplete((author, error) -> inFlight.remove(authorId, flight));
+            startFlight(authorId, flight.result);
+        } else {
+            COALESCED_FETCHES.increment();
+            log.debug("Автор {} уже запрашивается, ожидание результата", authorId);
         }
+        CompletableFuture<Author> waiter = new CompletableFuture<>();
+        flight.result.whenComplete((author, error) -> {
+            if (error != null) {
+                waiter.completeExceptionally(error);
+            } else {
+                waiter.complete(author);
+            }
+        });
+        waiter.whenComplete((author, error) -> {
+            if (waiter.isCancelled()) {
+                flight.leave();
+            }
+        });
+        return waiter;
+    }
 
-        try {
+    /**
+     * Выполняет запрос к парсеру после получения разрешения и завершает общий результат запроса.
+     * Отмена результата отменяет запрос к парсеру.
+     *
+     * @param authorId Идентификатор автора.
+     * @param flight   Общий результат запроса.
+     */
+    private void startFlight(int authorId, CompletableFuture<Author> flight) {
+        fetchPermits.acquire().thenRunAsync(() -> {
+            if (flight.isDone() || executor.isShutdown()) {
+                flight.cancel(false);
+                fetchPermits.release();
+                return;
+            }
             log.debug("Получение информации об авторе {} через парсер", authorId);
-            Author author = parser.getAuthor(authorId);
-            if (author != null) {
-                database.addAuthor(author);
-                log.debug("Информация об авторе {} сохранена в базе данных: {}", authorId, author);
-                return author;
-            } else {
-                log.warn("Парсер вернул null для authorId: {}", authorId);
-                return null;
+            CompletableFuture<Author> fetch;
+            try {
+                fetch = parser.getAuthorAsync(authorId);
+            } catch (RuntimeException e) {
+                fetch = CompletableFuture.failedFuture(e);
             }
-        } catch (RuntimeException e) {
-            log.error("Ошибка при получении данных об авторе с ID " + authorId, e);
+            CompletableFuture<Author> started = fetch;
+            flight.whenComplete((author, error) -> {
+                if (flight.isCancelled()) {
+                    started.cancel(true);
+                }
+            });
+            fetch.whenComplete((author, error) -> fetchPermits.release())
+                    .handle((author, error) -> checkFetched(authorId, author, error))
+                    .thenApplyAsync(this::saveAuthor, executor)
+                    .whenComplete((author, error) -> {
+                        if (error != null) {
+                            flight.completeExceptionally(error);
+                        } else {
+                            flight.complete(author);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Учитывает результат запроса к парсеру: ненайденный автор и ошибка загрузки записываются в лог и метрики.
+     * Ошибка передается дальше, чтобы получатель результата отличал ее от ненайденного автора.
+     *
+     * @param authorId Идентификатор автора.
+     * @param author   Полученный автор или {@code null}.
+     * @param error    Ошибка запроса или {@code null}.
+     * @return Автор или {@code null}, если автор не найден.
+     * @throws CompletionException Если запрос завершился ошибкой.
+     */
+    private Author checkFetched(int authorId, Author author, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof CancellationException) {
             return null;
         }
+        if (cause instanceof FetchException) {
+            FAILED_AUTHORS.increment();
+            log.error("Не удалось загрузить страницу автора {}: {}", authorId, cause.getMessage());
+            throw new CompletionException(cause);
+        }
+        if (cause != null) {
+            FAILED_AUTHORS.increment();
+            log.error("Ошибка при получении данных об авторе с ID " + authorId, cause);
+            throw new CompletionException(cause);
+        }
+        if (author == null) {
+            log.warn("Парсер вернул null для authorId: {}", authorId);
+            NOT_FOUND_AUTHORS.increment();
+        }
+        return author;
+    }
+
+    /**
+     * Сохраняет полученного через парсер автора в базу данных и кэш. Существующая запись перезаписывается,
+     * поэтому так же сохраняются и обновленные устаревшие авторы.
+     *
+     * @param author Автор или {@code null}.
+     * @return Тот же автор.
+     */
+    private Author saveAuthor(Author author) {
+        if (author == null) {
+            return null;
+        }
+        PARSER_AUTHORS.increment();
+        database.addAuthors(List.of(author));
+        if (cache != null) {
+            cache.put(author);
+        }
+        log.debug("Информация об авторе {} сохранена в базе данных: {}", author.authorId(), author);
+        return author;
+    }
+
+    /**
+     * Ставит в очередь фоновое обновление устаревшего автора, если оно еще не запланировано.
+     * Количество одновременных обновлений ограничено размером пула фоновых обновлений. Если очередь заполнена
+     * или менеджер закрывается, обновление пропускается: автор остается устаревшим в базе данных
+     * и будет запланирован снова при следующем обращении.
+     *
+     * @param authorId Идентификатор автора.
+     */
+    private void scheduleRefresh(int authorId) {
+        if (!refreshing.add(authorId)) {
+            return;
+        }
+        log.debug("Запланировано фоновое обновление автора {}", authorId);
+        try {
+            refreshExecutor.execute(() -> refresh(authorId));
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(authorId);
+            SKIPPED_REFRESHES.increment();
+            log.debug("Очередь фоновых обновлений заполнена, обновление автора {} пропущено", authorId);
+        }
+    }
+
+    /**
+     * Загружает устаревшего автора через парсер и заменяет его данные в базе данных и кэше.
+     * Запрос выполняется через {@link #fetchAuthor(int)}, поэтому на него распространяются ограничение
+     * одновременных запросов к парсеру и объединение с другими запросами того же ID.
+     * При ошибке сохраняются прежние данные.
+     *
+     * @param authorId Идентификатор автора.
+     */
+    private void refresh(int authorId) {
+        CompletableFuture<Author> fetch = null;
+        try {
+            fetch = fetchAuthor(authorId);
+            Author author = fetch.get();
+            if (author == null) {
+                FAILED_REFRESHES.increment();
+                log.warn("Не удалось обновить данные автора {}, сохранены прежние данные", authorId);
+                return;
+            }
+            REFRESHED_AUTHORS.increment();
+            log.info("Данные автора {} обновлены: {}", authorId, author);
+        } catch (InterruptedException | CancellationException | RejectedExecutionException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (fetch != null) {
+                fetch.cancel(false);
+            }
+            SKIPPED_REFRESHES.increment();
+            log.debug("Фоновое обновление автора {} отменено", authorId);
+        } catch (ExecutionException e) {
+            FAILED_REFRESHES.increment();
+            if (e.getCause() instanceof FetchException) {
+                log.warn("Не удалось обновить данные автора {}, сохранены прежние данные: {}", authorId, e.getCause().getMessage());
+            } else {
+                log.error("Ошибка при фоновом обновлении автора " + authorId, e.getCause());
+            }
+        } finally {
+            refreshing.remove(authorId);
+        }
+    }
+
+    /**
+     * Возвращает кэш авторов в памяти, через который доступны счетчики попаданий, промахов и вытеснений.
+     *
+     * @return Кэш или {@code null}, если кэш отключен.
+     */
+    public AuthorCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Возвращает базу данных, в которую сохраняются авторы.
+     *
+     * @return Экземпляр {@link DatabaseManager} менеджера.
+     */
+    public DatabaseManager getDatabase() {
+        return database;
+    }
+
+    /**
+     * Останавливает пул потоков, прерывая выполняющиеся запросы, освобождает ресурсы парсера
+     * и закрывает соединение с базой данных. Запланированные фоновые обновления перед этим выполняются
+     * в течение времени, заданного параметром "refresh_drain_timeout"; невыполненные обновления отменяются,
+     * и соответствующие авторы будут запланированы снова при следующем обращении к ним.
+     */
+    @Override
+    public void close() {
+        log.info("Остановка AuthorsManager");
+        drainRefreshes();
+        inFlight.values().forEach(flight -> flight.result.cancel(false));
+        executor.shutdownNow();
+        if (metricsServer != null) {
+            metricsServer.close();
+        }
+        parser.close();
+        database.close();
+    }
+
+    private void drainRefreshes() {
+        refreshExecutor.shutdown();
+        int pending = refreshExecutor.getQueue().size() + refreshExecutor.getActiveCount();
+        if (pending > 0 && refreshDrainTimeoutMillis > 0) {
+            log.info("Ожидание завершения {} фоновых обновлений, не более {} мс", pending, refreshDrainTimeoutMillis);
+            try {
+                refreshExecutor.awaitTermination(refreshDrainTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<Runnable> skipped = refreshExecutor.shutdownNow();
+        if (!skipped.isEmpty()) {
+            SKIPPED_REFRESHES.add(skipped.size());
+            log.warn("Не выполнено {} фоновых обновлений, авторы будут обновлены при следующем обращении", skipped.size());
+        }
+    }
+
+    /**
+     *  Выполняющийся запрос одного ID, общий для всех вызовов, ожидающих его результата.
+     *  Запрос отменяется, только когда от него отказался последний ожидающий.
+     */
+    private static final class Flight {
+        private final CompletableFuture<Author> result = new CompletableFuture<>();
+        private int waiters = 1;
+
+        /**
+         * Присоединяет еще одного ожидающего.
+         *
+         * @return {@code false}, если все ожидающие уже отказались и запрос отменяется.
+         */
+        private synchronized boolean join() {
+            if (waiters == 0) {
+                return false;
+            }
+            waiters++;
+            return true;
+        }
+
+        /**
+         * Отказ одного ожидающего; после отказа последнего запрос отменяется.
+         */
+        private void leave() {
+            synchronized (this) {
+                if (waiters == 0 || --waiters > 0) {
+                    return;
+                }
+            }
+            result.cancel(false);
+        }
+    }
+
+    /**
+     *  Ограничение количества одновременных запросов к парсеру, не блокирующее потоки:
+     *  запрос, не получивший разрешения сразу, получит его, когда завершится один из выполняющихся.
+     */
+    private static final class FetchPermits {
+        private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+        private int available;
+
+        private FetchPermits(int permits) {
+            this.available = Math.max(1, permits);
+        }
+
+        private synchronized CompletableFuture<Void> acquire() {
+            if (available > 0) {
+                available--;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        }
+
+        private void release() {
+            while (true) {
+                CompletableFuture<Void> waiter;
+                synchronized (this) {
+                    waiter = waiters.poll();
+                    if (waiter == null) {
+                        available++;
+                        return;
+                    }
+                }
+                if (waiter.complete(null)) {
+                    return;
+                }
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,279 @@
+package elibraryparser;
+
+import com.microsoft.playwright.*;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ *  Пул переиспользуемых вкладок браузера для {@link ElibraryParserRegex}.
+ *  <p>
+ *  Пул запускает один процесс Chromium с открытым портом отладки во временном каталоге профиля. Порт по умолчанию
+ *  выбирает сам Chromium и записывает в файл {@code DevToolsActivePort} профиля, поэтому несколько экземпляров
+ *  приложения не мешают друг другу. Каждый слот пула подключается к браузеру
+ *  через CDP собственным экземпляром {@link Playwright} и держит отдельный {@link BrowserContext} с одной вкладкой.
+ *  Объекты Playwright не потокобезопасны, поэтому слот в каждый момент времени принадлежит только одному потоку,
+ *  а разные слоты могут загружать страницы параллельно внутри одного браузера.
+ *  <p>
+ *  Слоты создаются лениво, проверяются перед выдачей и пересоздаются после {@code maxUses} загрузок,
+ *  при этом у нового контекста выбирается новый User-Agent.
+ */
+@Log4j2
+public class BrowserPagePool implements AutoCloseable {
+    private static final List<String> USER_AGENTS = List.of(
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/123.0.0.0 Safari/537.36",
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64; rv:123.0) Gecko/20100101 Firefox/123.0",
+            "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.2 Safari/605.1.15",
+            "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/123.0.0.0 Safari/537.36",
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Edge/123.0.2420.53 Safari/537.36"
+    );
+    private static final Random RANDOM = new Random();
+    private static final String DEVTOOLS_PORT_FILE = "DevToolsActivePort";
+    private static final long DEVTOOLS_PORT_TIMEOUT_MILLIS = 30_000;
+    private static final long DEVTOOLS_PORT_POLL_MILLIS = 50;
+
+    private final Playwright playwright;
+    private final Path userDataDir;
+    private final BrowserContext launcherContext;
+    private final String cdpEndpoint;
+    private final int size;
+    private final int maxUses;
+    private final Semaphore available;
+    private final BlockingQueue<PooledPage> idle = new LinkedBlockingQueue<>();
+    private volatile boolean closed;
+
+    /**
+     * Запускает браузер и создает пул вкладок.
+     *
+     * @param headless  Запускать ли браузер без графического интерфейса.
+     * @param size      Максимальное количество одновременно используемых вкладок.
+     * @param maxUses   Количество загрузок, после которого контекст вкладки пересоздается.
+     * @param debugPort Порт отладки Chromium, через который подключаются слоты пула; 0 - свободный порт,
+     *                  выбранный браузером.
+     * @throws UncheckedIOException Если не удалось создать каталог профиля браузера.
+     * @throws PlaywrightException  Если браузер не запустился или не сообщил порт отладки.
+     */
+    public BrowserPagePool(boolean headless, int size, int maxUses, int debugPort) {
+        log.info("Инициализация BrowserPagePool: headless={}, size={}, maxUses={}, debugPort={}", headless, size, maxUses, debugPort);
+        this.size = Math.max(1, size);
+        this.maxUses = Math.max(1, maxUses);
+        this.available = new Semaphore(this.size, true);
+        try {
+            this.userDataDir = Files.createTempDirectory("elibrary-browser");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось создать каталог профиля браузера", e);
+        }
+        this.playwright = Playwright.create();
+        try {
+            this.launcherContext = playwright.chromium().launchPersistentContext(userDataDir,
+                    new BrowserType.LaunchPersistentContextOptions()
+                            .setHeadless(headless)
+                            .setArgs(List.of("--remote-debugging-port=" + Math.max(0, debugPort))));
+            this.cdpEndpoint = "http://127.0.0.1:" + readDevToolsPort(userDataDir);
+        } catch (RuntimeException e) {
+            playwright.close();
+            deleteDirectory(userDataDir);
+            throw e;
+        }
+        log.info("Браузер запущен, CDP: {}", cdpEndpoint);
+    }
+
+    /**
+     * Выдает вкладку из пула, ожидая освобождения, если все вкладки заняты.
+     * Неисправная вкладка перед выдачей пересоздается.
+     *
+     * @return Вкладка, которую необходимо вернуть через {@link #release(PooledPage)}.
+     * @throws InterruptedException Если ожидание свободной вкладки было прервано.
+     */
+    public PooledPage checkout() throws InterruptedException {
+        available.acquire();
+        try {
+            PooledPage pooledPage = idle.poll();
+            if (pooledPage != null && !pooledPage.isHealthy()) {
+                log.warn("Вкладка пула неисправна и будет пересоздана");
+                pooledPage.close();
+                pooledPage = null;
+            }
+            if (pooledPage == null) {
+                pooledPage = new PooledPage(cdpEndpoint);
+            }
+            return pooledPage;
+        } catch (RuntimeException e) {
+            available.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Возвращает вкладку в пул. После {@code maxUses} загрузок контекст вкладки пересоздается с новым User-Agent,
+     * неисправная вкладка закрывается и будет создана заново при следующей выдаче.
+     *
+     * @param pooledPage Вкладка, полученная через {@link #checkout()}.
+     */
+    public void release(PooledPage pooledPage) {
+        try {
+            pooledPage.uses++;
+            if (closed) {
+                pooledPage.close();
+                return;
+            }
+            if (!pooledPage.isHealthy()) {
+                log.warn("Возвращена неисправная вкладка, она будет закрыта");
+                pooledPage.close();
+                return;
+            }
+            if (pooledPage.uses >= maxUses) {
+                log.debug("Вкладка использована {} раз, пересоздание контекста", pooledPage.uses);
+                pooledPage.recycle();
+            }
+            idle.offer(pooledPage);
+        } catch (PlaywrightException e) {
+            log.error("Ошибка при возврате вкладки в пул", e);
+            pooledPage.close();
+        } finally {
+            available.release();
+        }
+    }
+
+    /**
+     * Возвращает максимальное количество одновременно используемых вкладок.
+     *
+     * @return Размер пула.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Закрывает все вкладки пула и завершает процесс браузера.
+     */
+    @Override
+    public void close() {
+        log.info("Закрытие BrowserPagePool");
+        closed = true;
+        PooledPage pooledPage;
+        while ((pooledPage = idle.poll()) != null) {
+            pooledPage.close();
+        }
+        launcherContext.close();
+        playwright.close();
+        deleteDirectory(userDataDir);
+    }
+
+    /**
+     * Ожидает, пока Chromium запишет порт отладки в файл {@code DevToolsActivePort} каталога профиля.
+     *
+     * @param userDataDir Каталог профиля браузера.
+     * @return Порт отладки.
+     * @throws PlaywrightException Если порт не записан за отведенное время или ожидание было прервано.
+     */
+    private static int readDevToolsPort(Path userDataDir) {
+        Path portFile = userDataDir.resolve(DEVTOOLS_PORT_FILE);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DEVTOOLS_PORT_TIMEOUT_MILLIS);
+        while (true) {
+            try {
+                List<String> lines = Files.readAllLines(portFile, StandardCharsets.UTF_8);
+                if (!lines.isEmpty() && !lines.get(0).isBlank()) {
+                    return Integer.parseInt(lines.get(0).trim());
+                }
+            } catch (IOException | NumberFormatException e) {
+                log.trace("Порт отладки еще не записан: {}", e.getMessage());
+            }
+            if (System.nanoTime() > deadline) {
+                throw new PlaywrightException("Браузер не сообщил порт отладки в " + portFile);
+            }
+            try {
+                Thread.sleep(DEVTOOLS_PORT_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PlaywrightException("Ожидание порта отладки браузера прервано");
+            }
+        }
+    }
+
+    private static void deleteDirectory(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Не удалось удалить каталог профиля браузера {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private static String getRandomUserAgent() {
+        String userAgent = USER_AGENTS.get(RANDOM.nextInt(USER_AGENTS.size()));
+        log.debug("Выбран случайный User-Agent: {}", userAgent);
+        return userAgent;
+    }
+
+    /**
+     *  Слот пула: собственное подключение Playwright к общему браузеру, контекст и вкладка в нем.
+     */
+    public static final class PooledPage {
+        private final Playwright playwright;
+        private final Browser browser;
+        private BrowserContext context;
+        private Page page;
+        private int uses;
+
+        private PooledPage(String cdpEndpoint) {
+            log.debug("Создание вкладки пула через CDP: {}", cdpEndpoint);
+            this.playwright = Playwright.create();
+            try {
+                this.browser = playwright.chromium().connectOverCDP(cdpEndpoint);
+                openContext();
+            } catch (RuntimeException e) {
+                playwright.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Возвращает вкладку слота.
+         *
+         * @return Открытая вкладка браузера.
+         */
+        public Page page() {
+            return page;
+        }
+
+        private void openContext() {
+            context = browser.newContext(new Browser.NewContextOptions().setUserAgent(getRandomUserAgent()));
+            page = context.newPage();
+            uses = 0;
+        }
+
+        private void recycle() {
+            context.close();
+            openContext();
+        }
+
+        private boolean isHealthy() {
+            return browser.isConnected() && !page.isClosed();
+        }
+
+        private void close() {
+            try {
+                context.close();
+            } catch (PlaywrightException e) {
+                log.warn("Ошибка при закрытии контекста вкладки пула: {}", e.getMessage());
+            }
+            try {
+                playwright.close();
+            } catch (PlaywrightException e) {
+                log.warn("Ошибка при закрытии вкладки пула: {}", e.getMessage());
+            }
+        }
+    }
+}
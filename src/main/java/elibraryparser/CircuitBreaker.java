@@ -0,0 +1,228 @@
+package elibraryparser;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Автоматический выключатель запросов к прокси.
+ *  После заданного количества ошибок подряд выключатель размыкается, и все потоки,
+ *  запрашивающие разрешение, ожидают окончания паузы вместо того, чтобы расходовать входные ID на неработающий прокси.
+ *  По окончании паузы выполняется один пробный запрос: при успехе выключатель замыкается,
+ *  при ошибке размыкается снова. Асинхронные запросы получают разрешение через {@link #acquirePermissionAsync()}
+ *  и на время паузы не занимают поток. Экземпляр потокобезопасен.
+ */
+@Log4j2
+public class CircuitBreaker {
+
+    /**
+     *  Состояние выключателя.
+     */
+    public enum State {
+        /** Запросы выполняются. */
+        CLOSED,
+        /** Запросы приостановлены до окончания паузы. */
+        OPEN,
+        /** Выполняется пробный запрос, остальные запросы ожидают его результата. */
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Metrics.Counter opens;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntilNanos;
+    private boolean probeInFlight;
+    private final List<CompletableFuture<Void>> asyncWaiters = new ArrayList<>();
+    private boolean wakeupScheduled;
+
+    /**
+     * Создает выключатель.
+     *
+     * @param failureThreshold Количество ошибок подряд, после которого выключатель размыкается.
+     * @param openDuration     Длительность паузы в миллисекундах.
+     * @throws IllegalArgumentException Если порог или пауза не положительны.
+     */
+    public CircuitBreaker(int failureThreshold, long openDuration) {
+        if (failureThreshold <= 0 || openDuration <= 0) {
+            throw new IllegalArgumentException("Порог и пауза выключателя должны быть положительными: threshold="
+                    + failureThreshold + ", pause=" + openDuration);
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openDuration);
+        this.opens = Metrics.counter("elibrary_circuit_breaker_opens_total", "Количество размыканий выключателя запросов");
+        Metrics.gauge("elibrary_circuit_breaker_state", "Состояние выключателя запросов: 0 - замкнут, 1 - разомкнут, 0.5 - пробный запрос",
+                this::stateValue);
+        log.info("Создан CircuitBreaker: порог {} ошибок подряд, пауза {} мс", failureThreshold, openDuration);
+    }
+
+    /**
+     * Ожидает разрешения на выполнение запроса: возвращается сразу, если выключатель замкнут,
+     * иначе ожидает окончания паузы или результата пробного запроса.
+     *
+     * @throws InterruptedException Если поток был прерван во время ожидания.
+     */
+    public synchronized void acquirePermission() throws InterruptedException {
+        while (!tryAcquirePermission()) {
+            if (state == State.OPEN) {
+                TimeUnit.NANOSECONDS.timedWait(this, Math.max(1, openUntilNanos - System.nanoTime()));
+            } else {
+                wait();
+            }
+        }
+    }
+
+    /**
+     * Запрашивает разрешение на выполнение запроса, не блокируя поток: Future завершается сразу, если выключатель замкнут,
+     * иначе по окончании паузы или после результата пробного запроса. Если Future был отменен после того,
+     * как ему выдано разрешение на пробный запрос, разрешение передается следующему ожидающему.
+     *
+     * @return Future, завершающийся при получении разрешения.
+     */
+    public CompletableFuture<Void> acquirePermissionAsync() {
+        synchronized (this) {
+            if (tryAcquirePermission()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            asyncWaiters.add(waiter);
+            if (state == State.OPEN && !wakeupScheduled) {
+                wakeupScheduled = true;
+                CompletableFuture.delayedExecutor(Math.max(0, openUntilNanos - System.nanoTime()), TimeUnit.NANOSECONDS)
+                        .execute(() -> {
+                            synchronized (this) {
+                                wakeupScheduled = false;
+                            }
+                            wakeAsyncWaiters();
+                        });
+            }
+            return waiter;
+        }
+    }
+
+    /**
+     * Выдает разрешение без ожидания, если это возможно в текущем состоянии.
+     *
+     * @return {@code true}, если разрешение выдано.
+     */
+    private boolean tryAcquirePermission() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (openUntilNanos - System.nanoTime() > 0) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probeInFlight = true;
+            log.info("Пауза выключателя запросов завершена, выполняется пробный запрос");
+            return true;
+        }
+        if (probeInFlight) {
+            return false;
+        }
+        probeInFlight = true;
+        return true;
+    }
+
+    /**
+     * Повторно запрашивает разрешение для ожидающих асинхронных запросов после изменения состояния.
+     * Future завершаются вне монитора выключателя, так как их продолжения сразу выполняют запрос.
+     */
+    private void wakeAsyncWaiters() {
+        List<CompletableFuture<Void>> waiters;
+        synchronized (this) {
+            if (asyncWaiters.isEmpty()) {
+                return;
+            }
+            waiters = new ArrayList<>(asyncWaiters);
+            asyncWaiters.clear();
+        }
+        for (CompletableFuture<Void> waiter : waiters) {
+            if (!waiter.isDone()) {
+                acquirePermissionAsync().thenRun(() -> {
+                    if (!waiter.complete(null)) {
+                        onCancel();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Сообщает, что сервер ответил: выключатель замыкается, счетчик ошибок сбрасывается.
+     */
+    public void onSuccess() {
+        synchronized (this) {
+            consecutiveFailures = 0;
+            if (state != State.CLOSED) {
+                log.info("Выключатель запросов замкнут, запросы возобновлены");
+                state = State.CLOSED;
+                probeInFlight = false;
+                notifyAll();
+            }
+        }
+        wakeAsyncWaiters();
+    }
+
+    /**
+     * Сообщает об ошибке: временной или об отказе прокси в обслуживании. Ошибка пробного запроса или достижение порога ошибок подряд размыкает выключатель.
+     */
+    public void onFailure() {
+        synchronized (this) {
+            registerFailure();
+        }
+        wakeAsyncWaiters();
+    }
+
+    private void registerFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            if (state == State.HALF_OPEN) {
+                log.warn("Пробный запрос завершился ошибкой, запросы приостановлены на {} мс", TimeUnit.NANOSECONDS.toMillis(openNanos));
+            } else {
+                log.warn("Выключатель запросов разомкнут после {} ошибок подряд, запросы приостановлены на {} мс",
+                        consecutiveFailures, TimeUnit.NANOSECONDS.toMillis(openNanos));
+            }
+            state = State.OPEN;
+            probeInFlight = false;
+            openUntilNanos = System.nanoTime() + openNanos;
+            opens.increment();
+            notifyAll();
+        }
+    }
+
+    /**
+     * Сообщает, что запрос был отменен без результата. Если это был пробный запрос, разрешение получает другой поток.
+     */
+    public void onCancel() {
+        synchronized (this) {
+            if (state == State.HALF_OPEN && probeInFlight) {
+                probeInFlight = false;
+                notifyAll();
+            }
+        }
+        wakeAsyncWaiters();
+    }
+
+    /**
+     * Возвращает текущее состояние.
+     *
+     * @return Состояние выключателя.
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    private synchronized double stateValue() {
+        return switch (state) {
+            case CLOSED -> 0;
+            case OPEN -> 1;
+            case HALF_OPEN -> 0.5;
+        };
+    }
+}
@@ -3,9 +3,12 @@ package elibraryparser;
 import lombok.extern.log4j.Log4j2;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Set;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Консольное приложение для обработки данных об авторах из файла.
@@ -16,45 +19,134 @@ import java.util.Set;
 @Log4j2
 public class CommandLineApp {
     private static final String CONFIG_PATH = "analyzer.config";
+    private static final int DEFAULT_REPORT_FLUSH_ROWS = 100;
+    private static final int DEFAULT_REPORT_FLUSH_INTERVAL = 5;
+    private static final int DEFAULT_REPORT_SORT_CHUNK = 100_000;
+    static final String RESUME_FLAG = "--resume";
 
     /**
      * Главный метод консольного приложения.
      * <p>
      * Получает пути к входному и выходному файлам из аргументов командной строки,
      * считывает идентификаторы авторов, получает информацию об авторах и сохраняет результаты.
+     * Ход обработки записывается в журнал запусков в базе данных: для каждого ID сохраняется состояние
+     * и количество попыток. С флагом {@code --resume} последний запуск для входного файла продолжается:
+     * запрашиваются только необработанные ID, а отчет строится из сохраненных в базе данных результатов.
+     * Строки отчета записываются по мере получения авторов, после завершения отчет при необходимости сортируется.
+     * По завершении в лог выводится сводка метрик запуска из {@link Metrics}.
      *
-     * @param args Массив строк, содержащий путь к файлу с ID авторов (args[0])
-     *             и путь к файлу для сохранения результатов (args[1]).
+     * @param args Массив строк, содержащий путь к файлу с ID авторов (args[0]),
+     *             путь к файлу для сохранения результатов (args[1])
+     *             и необязательный флаг {@code --resume} (args[2]).
      */
     public static void main(String[] args) {
         Path authorsFilePath = Paths.get(args[0]);
         Path outputFilePath = Paths.get(args[1]);
+        boolean resume = args.length > 2 && RESUME_FLAG.equals(args[2]);
 
         log.info("Путь к файлу с ID авторов: {}", authorsFilePath);
         log.info("Путь для сохранения результатов: {}", outputFilePath);
 
-        AuthorsManager authorsManager = new AuthorsManager(FileService.readConfigFile(CONFIG_PATH));
         FileService fileService = new FileService();
+        Map<String, String> config = FileService.readConfigFile(CONFIG_PATH);
 
-        try {
-            Set<Integer> authorIds = fileService.getAuthorIdsFromFile(authorsFilePath);
-            log.info("Загружено {} ID авторов.", authorIds.size());
-
-            if (!authorIds.isEmpty()) {
-                log.info("Начало обработки авторов...");
-                Set<Author> authors = authorsManager.getAuthors(authorIds);
-                log.info("Обработано {} авторов.", authors.size());
+        try (AuthorsManager authorsManager = new AuthorsManager(config)) {
+            DatabaseManager database = authorsManager.getDatabase();
+            String inputFile = authorsFilePath.toAbsolutePath().normalize().toString();
 
-                fileService.saveAuthorsToMarkdown(authors, outputFilePath);
-                log.info("Результаты сохранены в: {}", outputFilePath);
+            DatabaseManager.RunInfo run = resume ? database.findLastRun(inputFile) : null;
+            AuthorIdSet authorIds;
+            long runId;
+            if (run != null) {
+                runId = run.id();
+                authorIds = database.getUnfinishedRunItems(runId);
+                log.info("Продолжение запуска {} от {}: осталось обработать {} ID, состояния: {}",
+                        runId, Instant.ofEpochMilli(run.startedAt()), authorIds.size(), database.getRunStatusCounts(runId));
             } else {
-                log.warn("Файл с ID авторов пуст, обработка не требуется.");
+                if (resume) {
+                    log.warn("Запуск для файла {} не найден, начинается новый запуск", inputFile);
+                }
+                authorIds = fileService.readAuthorIds(authorsFilePath);
+                log.info("Загружено {} ID авторов.", authorIds.size());
+                if (authorIds.isEmpty()) {
+                    log.warn("Файл с ID авторов пуст, обработка не требуется.");
+                    return;
+                }
+                runId = database.createRun(inputFile, outputFilePath.toAbsolutePath().normalize().toString(), authorIds);
+            }
+
+            try (MarkdownReportWriter report = new MarkdownReportWriter(outputFilePath,
+                    FileService.getIntParameter(config, "report_flush_rows", DEFAULT_REPORT_FLUSH_ROWS),
+                    FileService.getIntParameter(config, "report_flush_interval", DEFAULT_REPORT_FLUSH_INTERVAL) * 1000L)) {
+                if (run != null) {
+                    for (Author author : database.getRunAuthors(runId)) {
+                        report.write(author);
+                    }
+                    log.info("В отчет записано {} ранее полученных авторов", report.getRowCount());
+                }
+                if (!authorIds.isEmpty()) {
+                    log.info("Начало обработки авторов...");
+                    // Состояние в журнале отмечается после записи строки отчета: при ошибке записи ID останется
+                    // необработанным и будет запрошен при продолжении запуска
+                    int foundCount = authorsManager.processAuthors(authorIds.stream(), (authorId, author, outcome) -> {
+                        if (author != null) {
+                            try {
+                                report.write(author);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+                        if (runId >= 0) {
+                            database.updateRunItem(runId, authorId, toRunItemStatus(outcome));
+                        }
+                    });
+                    log.info("Обработано {} авторов.", foundCount);
+                }
+            }
+            if (runId >= 0) {
+                database.finishRun(runId);
+                log.info("Запуск {} завершен, состояния: {}", runId, database.getRunStatusCounts(runId));
             }
+            MarkdownReportWriter.sort(outputFilePath, getReportOrder(config),
+                    FileService.getIntParameter(config, "report_sort_chunk", DEFAULT_REPORT_SORT_CHUNK));
+            log.info("Результаты сохранены в: {}", outputFilePath);
 
-        } catch (IOException e) {
+        } catch (IOException | UncheckedIOException e) {
             log.error("Ошибка ввода/вывода при обработке файлов: {}", e.getMessage());
         } catch (Exception e) {
             log.error("Непредвиденная ошибка: {}", e.getMessage(), e);
+        } finally {
+            log.info("Метрики запуска:\n{}", Metrics.summary());
+        }
+    }
+
+    /**
+     * Определяет состояние ID в журнале запуска по итогу его обработки.
+     *
+     * @param outcome Итог обработки ID.
+     * @return Состояние для журнала запуска.
+     */
+    private static DatabaseManager.RunItemStatus toRunItemStatus(AuthorsManager.FetchOutcome outcome) {
+        return switch (outcome) {
+            case FOUND -> DatabaseManager.RunItemStatus.DONE;
+            case NOT_FOUND -> DatabaseManager.RunItemStatus.NOT_FOUND;
+            case FAILED -> DatabaseManager.RunItemStatus.FAILED;
+        };
+    }
+
+    /**
+     * Определяет порядок строк отчета по параметру конфигурации "report_sort".
+     *
+     * @param config Карта параметров конфигурации.
+     * @return Порядок строк; {@link MarkdownReportWriter.Order#NONE}, если параметр не задан или некорректен.
+     */
+    private static MarkdownReportWriter.Order getReportOrder(Map<String, String> config) {
+        String value = config.getOrDefault("report_sort", "none").trim();
+        try {
+            return MarkdownReportWriter.Order.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            log.warn("Некорректное значение параметра 'report_sort': '{}', сортировка отчета не выполняется", value);
+            return MarkdownReportWriter.Order.NONE;
         }
     }
 }
\ No newline at end of file
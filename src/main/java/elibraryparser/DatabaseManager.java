@@ -2,18 +2,111 @@ package elibraryparser;
 
 import lombok.extern.log4j.Log4j2;
 
+import java.io.IOException;
 import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.function.ToLongFunction;
 
 /**
  *  Управляет операциями с базой данных для хранения и извлечения информации об авторах.
  *  Этот класс предоставляет методы для создания таблиц, добавления, удаления и получения записей об авторах.
+ *  Публичные методы синхронизированы, что позволяет безопасно использовать один экземпляр из нескольких потоков
+ *  и исключает конкурентную запись в файл SQLite.
+ *  <p>
+ *  Менеджер держит одно соединение на все время жизни, включает журнал WAL и кэширует подготовленные запросы,
+ *  поэтому каждая операция не открывает файл базы данных и не разбирает SQL заново.
  */
 @Log4j2
-public class DatabaseManager {
+public class DatabaseManager implements AutoCloseable {
 
     private static final String DEFAULT_DATABASE_URL = "jdbc:sqlite:authors.db";
+    private static final int BUSY_TIMEOUT_MILLIS = 5000;
+    private static final int BATCH_SIZE = 1000;
+    private static final int LOOKUP_CHUNK_SIZE = 500;
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    private static final Metrics.Histogram ADD_AUTHOR_LATENCY = operationLatency("add_author");
+    private static final Metrics.Histogram ADD_AUTHORS_LATENCY = operationLatency("add_authors");
+    private static final Metrics.Histogram DELETE_RECORDS_LATENCY = operationLatency("delete_records");
+    private static final Metrics.Histogram GET_AUTHORS_LATENCY = operationLatency("get_authors");
+    private static final Metrics.Histogram GET_AUTHOR_LATENCY = operationLatency("get_author");
+    private static final Metrics.Histogram UPDATE_RUN_ITEM_LATENCY = operationLatency("update_run_item");
     private final String databaseUrl;
     private static final String TABLE_NAME = "authors";
+    private static final String RUNS_TABLE_NAME = "runs";
+    private static final String RUN_ITEMS_TABLE_NAME = "run_items";
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statementCache = new HashMap<>();
+
+    /**
+     * Результат пакетного поиска авторов в базе данных.
+     * @param found   Найденные авторы.
+     * @param missing ID, для которых записи в базе данных отсутствуют.
+     * @param stale   ID найденных авторов, данные которых старше допустимого возраста или время загрузки которых неизвестно.
+     * @param failed    ID, которые не удалось проверить из-за ошибки SQL; неизвестно, есть ли они в базе данных.
+     * @param fetchedAt Время загрузки найденных авторов в миллисекундах по ID; авторы с неизвестным временем отсутствуют.
+     */
+    public record AuthorsLookup(Set<Author> found, Set<Integer> missing, Set<Integer> stale, Set<Integer> failed,
+                                Map<Integer, Long> fetchedAt) {
+    }
+
+    /**
+     * Условия выборки авторов для выгрузки.
+     * @param minId         Минимальный ID автора включительно.
+     * @param maxId         Максимальный ID автора включительно.
+     * @param minHirshIndex Минимальный индекс Хирша включительно.
+     */
+    public record AuthorFilter(int minId, int maxId, int minHirshIndex) {
+        /** Условия, которым удовлетворяют все авторы. */
+        public static final AuthorFilter ALL = new AuthorFilter(Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE);
+    }
+
+    /**
+     * Получатель авторов при последовательном чтении таблицы.
+     */
+    @FunctionalInterface
+    public interface AuthorVisitor {
+        /**
+         * Обрабатывает очередного автора.
+         * @param author Автор.
+         * @throws IOException Если автора не удалось записать.
+         */
+        void visit(Author author) throws IOException;
+    }
+
+    /**
+     * Состояние обработки ID в журнале запуска.
+     */
+    public enum RunItemStatus {
+        /** ID еще не обработан. */
+        PENDING,
+        /** Данные автора получены и сохранены в таблице авторов. */
+        DONE,
+        /** Данные автора получить не удалось, при продолжении запуска ID будет запрошен повторно. */
+        FAILED,
+        /** Страница загружена, но автор с таким ID не найден; при продолжении запуска ID не запрашивается. */
+        NOT_FOUND
+    }
+
+    /**
+     * Запись журнала запусков.
+     * @param id         ID запуска.
+     * @param inputFile  Путь к файлу с ID авторов.
+     * @param outputFile Путь к файлу отчета.
+     * @param startedAt  Время начала запуска в миллисекундах.
+     * @param finishedAt Время завершения запуска в миллисекундах или {@code null}, если запуск не был завершен.
+     */
+    public record RunInfo(long id, String inputFile, String outputFile, long startedAt, Long finishedAt) {
+    }
 
     /**
      * Создает экземпляр {@code DatabaseManager} с URL базы данных по умолчанию.
@@ -25,18 +118,58 @@ public class DatabaseManager {
 
     /**
      * Создает экземпляр {@code DatabaseManager} с указанным URL базы данных.
-     * Инициализирует базу данных и создает таблицу, если она не существует.
+     * Открывает соединение, настраивает журнал WAL и создает таблицу, если она не существует.
      * @param databaseUrl URL базы данных для подключения.
+     * @throws IllegalStateException Если не удалось открыть соединение с базой данных.
      */
     public DatabaseManager(String databaseUrl) {
         this.databaseUrl = databaseUrl;
         log.info("Инициализация DatabaseManager с URL: {}", databaseUrl);
+        try {
+            this.connection = DriverManager.getConnection(databaseUrl);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Не удалось подключиться к базе данных: " + databaseUrl, e);
+        }
+        configureConnection();
         createTableIfNotExists();
+        createRunTablesIfNotExist();
         log.info("DatabaseManager инициализирован");
     }
 
+    /**
+     * Настраивает соединение: журнал WAL, режим синхронизации NORMAL и ожидание освобождения блокировки.
+     */
+    private void configureConnection() {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("PRAGMA synchronous=NORMAL");
+            statement.execute("PRAGMA busy_timeout=" + BUSY_TIMEOUT_MILLIS);
+            log.debug("Соединение настроено: journal_mode=WAL, synchronous=NORMAL, busy_timeout={}", BUSY_TIMEOUT_MILLIS);
+        } catch (SQLException e) {
+            log.error("SQL ошибка при настройке соединения: ", e);
+        }
+    }
+
+    /**
+     * Возвращает подготовленный запрос из кэша, подготавливая его при первом обращении.
+     * @param sql SQL-запрос.
+     * @return Подготовленный запрос, привязанный к соединению менеджера.
+     * @throws SQLException Если запрос не удалось подготовить.
+     */
+    private PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = statementCache.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            statementCache.put(sql, statement);
+        }
+        return statement;
+    }
+
     /**
      * Создает таблицу авторов, если она не существует в базе данных.
+     * В таблицу, созданную предыдущими версиями, добавляется столбец {@code fetchedAt}, который для существующих записей
+     * заполняется временем миграции: иначе после обновления все сохраненные авторы оказались бы устаревшими
+     * и были бы разом поставлены в очередь на повторную загрузку.
      */
     private void createTableIfNotExists() {
         String createTableSQL = "CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " (" +
@@ -44,9 +177,71 @@ public class DatabaseManager {
                 "name TEXT," +
                 "publishesCount INTEGER," +
                 "zeroCittPublishesCount INTEGER," +
-                "hirshIndex INTEGER" +
+                "hirshIndex INTEGER," +
+                "fetchedAt INTEGER" +
                 ");";
         executeStatement(createTableSQL);
+        if (!columnExists(TABLE_NAME, "fetchedAt")) {
+            log.info("Добавление столбца fetchedAt в таблицу {}", TABLE_NAME);
+            try (Statement statement = connection.createStatement()) {
+                connection.setAutoCommit(false);
+                try {
+                    statement.executeUpdate("ALTER TABLE " + TABLE_NAME + " ADD COLUMN fetchedAt INTEGER");
+                    int updated = statement.executeUpdate("UPDATE " + TABLE_NAME + " SET fetchedAt = " + System.currentTimeMillis());
+                    connection.commit();
+                    log.info("Для {} сохраненных авторов время загрузки установлено равным времени миграции", updated);
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                log.error("SQL ошибка при добавлении столбца fetchedAt: ", e);
+            }
+        }
+    }
+
+    /**
+     * Создает таблицы журнала запусков, если они не существуют: {@code runs} с одной строкой на запуск
+     * и {@code run_items} с состоянием и количеством попыток для каждого ID запуска.
+     */
+    private void createRunTablesIfNotExist() {
+        executeStatement("CREATE TABLE IF NOT EXISTS " + RUNS_TABLE_NAME + " (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                "inputFile TEXT NOT NULL," +
+                "outputFile TEXT," +
+                "startedAt INTEGER NOT NULL," +
+                "finishedAt INTEGER" +
+                ");");
+        executeStatement("CREATE TABLE IF NOT EXISTS " + RUN_ITEMS_TABLE_NAME + " (" +
+                "runId INTEGER NOT NULL," +
+                "authorId INTEGER NOT NULL," +
+                "status TEXT NOT NULL," +
+                "attempts INTEGER NOT NULL DEFAULT 0," +
+                "updatedAt INTEGER," +
+                "PRIMARY KEY (runId, authorId)" +
+                ");");
+    }
+
+    /**
+     * Проверяет наличие столбца в таблице.
+     * @param table  Имя таблицы.
+     * @param column Имя столбца.
+     * @return {@code true}, если столбец существует.
+     */
+    private boolean columnExists(String table, String column) {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (resultSet.next()) {
+                if (column.equalsIgnoreCase(resultSet.getString("name"))) {
+                    return true;
+                }
+            }
+        } catch (SQLException e) {
+            log.error("SQL ошибка при чтении структуры таблицы: ", e);
+        }
+        return false;
     }
 
     /**
@@ -54,8 +249,7 @@ public class DatabaseManager {
      * @param sql SQL-запрос для выполнения.
      */
     private void executeStatement(String sql) {
-        try (Connection connection = DriverManager.getConnection(databaseUrl);
-             Statement statement = connection.createStatement()) {
+        try (Statement statement = connection.createStatement()) {
             log.debug("Выполнение SQL запроса: {}", sql);
             statement.executeUpdate(sql);
         } catch (SQLException e) {
@@ -70,13 +264,14 @@ public class DatabaseManager {
      * @return {@code true}, если запись существует с указанным ID, {@code false} в противном случае.
      */
     private boolean executeQueryForExists(String sql, int id) {
-        try (Connection connection = DriverManager.getConnection(databaseUrl);
-             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try {
+            PreparedStatement preparedStatement = prepare(sql);
             preparedStatement.setInt(1, id);
             log.debug("Выполнение SQL запроса для проверки существования записи: {} с id: {}", sql, id);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            if (resultSet.next()) {
-                return resultSet.getInt(1) > 0;
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getInt(1) > 0;
+                }
             }
         } catch (SQLException e) {
             log.error("SQL ошибка при запросе: ", e);
@@ -89,7 +284,7 @@ public class DatabaseManager {
      * @param id ID записи для проверки.
      * @return {@code true}, если запись существует с указанным ID, {@code false} в противном случае.
      */
-    public boolean recordExists(int id) {
+    public synchronized boolean recordExists(int id) {
         String checkRecordSQL = "SELECT COUNT(*) FROM " + TABLE_NAME + " WHERE id = ?";
         return executeQueryForExists(checkRecordSQL, id);
     }
@@ -99,24 +294,31 @@ public class DatabaseManager {
      * @param author Объект автора для добавления в базу данных.
      * @return {@code true}, если автор успешно добавлен в базу данных, {@code false} в противном случае.
      */
-    public boolean addAuthor(Author author) {
-        int id = author.authorId();
-        String name = author.name();
-        int publishes = author.publishesCount();
-        int zeroCittPublishesCount = author.zeroCittPublishesCount();
-        int hIndex = author.hirshIndex();
+    public synchronized boolean addAuthor(Author author) {
+        long startNanos = System.nanoTime();
+        try {
+            int id = author.authorId();
+            String name = author.name();
+            int publishes = author.publishesCount();
+            int zeroCittPublishesCount = author.zeroCittPublishesCount();
+            int hIndex = author.hirshIndex();
 
-        if (addRecord(id, name, publishes, zeroCittPublishesCount, hIndex)) {
-            log.info("Автор {} добавлен в базу данных", id);
-            return true;
-        } else {
-            log.info("Автор {} не был добавлен в базу данных", id);
-            return false;
+            if (addRecord(id, name, publishes, zeroCittPublishesCount, hIndex)) {
+                log.info("Автор {} добавлен в базу данных", id);
+                return true;
+            } else {
+                log.info("Автор {} не был добавлен в базу данных", id);
+                return false;
+            }
+        } finally {
+            ADD_AUTHOR_LATENCY.recordSince(startNanos);
         }
     }
 
     /**
      * Добавляет запись в базу данных с указанными данными об авторе.
+     * Проверка существования и вставка выполняются одним запросом ({@code INSERT ... ON CONFLICT DO NOTHING}),
+     * поэтому существующая запись не перезаписывается и не вызывает ошибку при одновременной вставке.
      * @param id ID автора.
      * @param name Имя автора.
      * @param publishes Количество публикаций автора.
@@ -125,22 +327,23 @@ public class DatabaseManager {
      * @return {@code true}, если запись успешно добавлена в базу данных, {@code false} в противном случае.
      */
     private boolean addRecord(int id, String name, int publishes, int zeroCittPublishesCount, int hIndex) {
-        if (recordExists(id)) {
-            log.info("Запись с authorId:{} уже существует", id);
-            return false;
-        }
-        String insertRecordSQL = "INSERT INTO " + TABLE_NAME + " (id, name, publishesCount, zeroCittPublishesCount, hirshIndex) VALUES (?, ?, ?, ?, ?)";
+        String insertRecordSQL = "INSERT INTO " + TABLE_NAME + " (id, name, publishesCount, zeroCittPublishesCount, hirshIndex, fetchedAt) VALUES (?, ?, ?, ?, ?, ?) " +
+                "ON CONFLICT(id) DO NOTHING";
 
-        try (Connection connection = DriverManager.getConnection(databaseUrl);
-             PreparedStatement preparedStatement = connection.prepareStatement(insertRecordSQL)) {
+        try {
+            PreparedStatement preparedStatement = prepare(insertRecordSQL);
             preparedStatement.setInt(1, id);
             preparedStatement.setString(2, name);
             preparedStatement.setInt(3, publishes);
             preparedStatement.setInt(4, zeroCittPublishesCount);
             preparedStatement.setInt(5, hIndex);
+            preparedStatement.setLong(6, System.currentTimeMillis());
             log.debug("Выполнение SQL запроса на добавление записи: {} с параметрами: id={}, name={}, publishes={}, zeroCitt={}, hIndex={}",
                     insertRecordSQL, id, name, publishes, zeroCittPublishesCount, hIndex);
-            preparedStatement.executeUpdate();
+            if (preparedStatement.executeUpdate() == 0) {
+                log.info("Запись с authorId:{} уже существует", id);
+                return false;
+            }
             log.info("Запись {} добавлена", id);
             return true;
         } catch (SQLException e) {
@@ -154,15 +357,15 @@ public class DatabaseManager {
      * @param id ID записи для удаления.
      * @return {@code true}, если запись успешно удалена из базы данных, {@code false} в противном случае.
      */
-    public boolean deleteRecord(int id) {
+    public synchronized boolean deleteRecord(int id) {
         if (!recordExists(id)) {
             log.info("Запись {} не удалена, запись не существует", id);
             return false;
         }
 
         String deleteRecordSQL = "DELETE FROM " + TABLE_NAME + " WHERE id = ?";
-        try (Connection connection = DriverManager.getConnection(databaseUrl);
-             PreparedStatement preparedStatement = connection.prepareStatement(deleteRecordSQL)) {
+        try {
+            PreparedStatement preparedStatement = prepare(deleteRecordSQL);
             preparedStatement.setInt(1, id);
             log.debug("Выполнение SQL запроса на удаление записи: {} с id: {}", deleteRecordSQL, id);
             int affectedRows = preparedStatement.executeUpdate();
@@ -175,32 +378,563 @@ public class DatabaseManager {
         }
     }
 
+    /**
+     * Добавляет или обновляет записи об авторах в одной транзакции, отмечая их текущим временем загрузки.
+     * Записи передаются пакетами, существующие записи с тем же ID перезаписываются ({@code INSERT ... ON CONFLICT DO UPDATE}).
+     * При ошибке транзакция откатывается целиком и все записи считаются не сохраненными.
+     * @param authors Авторы для сохранения.
+     * @return Результат для каждого ID в порядке следования: {@code true}, если запись сохранена.
+     */
+    public Map<Integer, Boolean> addAuthors(Collection<Author> authors) {
+        long now = System.currentTimeMillis();
+        return upsertAuthors(authors, author -> now, "");
+    }
+
+    /**
+     * Добавляет или обновляет записи об авторах в одной транзакции с заданным временем загрузки каждого автора,
+     * например при восстановлении данных из архива страниц. Существующая запись перезаписывается, только если
+     * она загружена не позже переданной, поэтому старая страница из архива не затирает более свежие данные.
+     * @param authors   Авторы для сохранения.
+     * @param fetchedAt Время загрузки данных автора в миллисекундах от начала эпохи.
+     * @return Результат для каждого ID в порядке следования: {@code true}, если запись сохранена,
+     *         {@code false}, если запись не сохранена или в базе данных уже есть более свежая.
+     * @see #addAuthors(Collection)
+     */
+    public Map<Integer, Boolean> addAuthors(Collection<Author> authors, ToLongFunction<Author> fetchedAt) {
+        return upsertAuthors(authors, fetchedAt, " WHERE excluded.fetchedAt >= " + TABLE_NAME + ".fetchedAt");
+    }
+
+    /**
+     * Выполняет пакетное сохранение авторов ({@code INSERT ... ON CONFLICT DO UPDATE}).
+     * @param authors   Авторы для сохранения.
+     * @param fetchedAt Время загрузки данных автора в миллисекундах от начала эпохи.
+     * @param condition Условие обновления существующей записи ({@code WHERE ...}) или пустая строка.
+     * @return Результат для каждого ID в порядке следования: {@code true}, если запись сохранена.
+     */
+    private synchronized Map<Integer, Boolean> upsertAuthors(Collection<Author> authors, ToLongFunction<Author> fetchedAt,
+                                                             String condition) {
+        long startNanos = System.nanoTime();
+        try {
+            String upsertSQL = "INSERT INTO " + TABLE_NAME + " (id, name, publishesCount, zeroCittPublishesCount, hirshIndex, fetchedAt) VALUES (?, ?, ?, ?, ?, ?) " +
+                    "ON CONFLICT(id) DO UPDATE SET name = excluded.name, publishesCount = excluded.publishesCount, " +
+                    "zeroCittPublishesCount = excluded.zeroCittPublishesCount, hirshIndex = excluded.hirshIndex, fetchedAt = excluded.fetchedAt" +
+                    condition;
+            List<Author> authorList = new ArrayList<>(authors);
+            log.debug("Пакетное сохранение {} авторов", authorList.size());
+            int[] results = executeBatchInTransaction(upsertSQL, authorList, (statement, author) -> {
+                statement.setInt(1, author.authorId());
+                statement.setString(2, author.name());
+                statement.setInt(3, author.publishesCount());
+                statement.setInt(4, author.zeroCittPublishesCount());
+                statement.setInt(5, author.hirshIndex());
+                statement.setLong(6, fetchedAt.applyAsLong(author));
+            });
+            Map<Integer, Boolean> outcomes = new LinkedHashMap<>();
+            for (int i = 0; i < authorList.size(); i++) {
+                outcomes.put(authorList.get(i).authorId(), results != null && results[i] > 0);
+            }
+            log.info("Сохранено {} из {} авторов", outcomes.values().stream().filter(Boolean::booleanValue).count(), authorList.size());
+            return outcomes;
+        } finally {
+            ADD_AUTHORS_LATENCY.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Удаляет записи с указанными ID в одной транзакции.
+     * При ошибке транзакция откатывается целиком и ни одна запись не удаляется.
+     * @param ids ID записей для удаления.
+     * @return Результат для каждого ID в порядке следования: {@code true}, если запись существовала и удалена.
+     */
+    public synchronized Map<Integer, Boolean> deleteRecords(Collection<Integer> ids) {
+        long startNanos = System.nanoTime();
+        try {
+            String deleteRecordSQL = "DELETE FROM " + TABLE_NAME + " WHERE id = ?";
+            List<Integer> idList = new ArrayList<>(ids);
+            log.debug("Пакетное удаление {} записей", idList.size());
+            int[] results = executeBatchInTransaction(deleteRecordSQL, idList, (statement, id) -> statement.setInt(1, id));
+            Map<Integer, Boolean> outcomes = new LinkedHashMap<>();
+            for (int i = 0; i < idList.size(); i++) {
+                outcomes.put(idList.get(i), results != null && results[i] > 0);
+            }
+            log.info("Удалено {} из {} записей", outcomes.values().stream().filter(Boolean::booleanValue).count(), idList.size());
+            return outcomes;
+        } finally {
+            DELETE_RECORDS_LATENCY.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Выполняет запрос для каждого элемента пакетами по {@value #BATCH_SIZE} в одной транзакции.
+     * @param sql    SQL-запрос.
+     * @param items  Элементы, для которых выполняется запрос.
+     * @param binder Функция установки параметров запроса для элемента.
+     * @return Количество измененных строк для каждого элемента или {@code null}, если транзакция откатена.
+     */
+    private <T> int[] executeBatchInTransaction(String sql, List<T> items, StatementBinder<T> binder) {
+        if (items.isEmpty()) {
+            return new int[0];
+        }
+        int[] results = new int[items.size()];
+        try {
+            PreparedStatement preparedStatement = prepare(sql);
+            connection.setAutoCommit(false);
+            try {
+                for (int start = 0; start < items.size(); start += BATCH_SIZE) {
+                    int end = Math.min(start + BATCH_SIZE, items.size());
+                    for (T item : items.subList(start, end)) {
+                        binder.bind(preparedStatement, item);
+                        preparedStatement.addBatch();
+                    }
+                    int[] batchResults = preparedStatement.executeBatch();
+                    System.arraycopy(batchResults, 0, results, start, batchResults.length);
+                }
+                connection.commit();
+                return results;
+            } catch (SQLException e) {
+                log.error("SQL ошибка при пакетном запросе, транзакция откатывается: ", e);
+                preparedStatement.clearBatch();
+                connection.rollback();
+                return null;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            log.error("SQL ошибка при управлении транзакцией: ", e);
+            return null;
+        }
+    }
+
+    /**
+     * Получает из базы данных всех авторов из набора за один проход, не проверяя возраст данных.
+     * @param ids ID авторов для поиска.
+     * @return Найденные авторы и ID, отсутствующие в базе данных. Набор устаревших ID пуст.
+     * @see #getAuthors(Set, Duration)
+     */
+    public AuthorsLookup getAuthors(Set<Integer> ids) {
+        return getAuthors(ids, Duration.ZERO);
+    }
+
+    /**
+     * Получает из базы данных всех авторов из набора за один проход.
+     * ID передаются в запрос {@code IN} порциями по {@value #LOOKUP_CHUNK_SIZE}; последняя порция дополняется
+     * повторами последнего ID, поэтому для любого набора используется один и тот же подготовленный запрос.
+     * @param ids    ID авторов для поиска.
+     * @param maxAge Допустимый возраст данных; {@link Duration#ZERO} означает, что данные не устаревают.
+     * @return Найденные авторы, ID, отсутствующие в базе данных, ID устаревших записей и ID порций,
+     *         запрос которых завершился ошибкой SQL. Такие ID не считаются отсутствующими, чтобы временная ошибка
+     *         (например, занятая база данных) не приводила к повторной загрузке уже сохраненных авторов.
+     */
+    public synchronized AuthorsLookup getAuthors(Set<Integer> ids, Duration maxAge) {
+        long startNanos = System.nanoTime();
+        try {
+            if (ids.isEmpty()) {
+                return new AuthorsLookup(Collections.emptySet(), Collections.emptySet(), Collections.emptySet(),
+                        Collections.emptySet(), Collections.emptyMap());
+            }
+            String placeholders = String.join(",", Collections.nCopies(LOOKUP_CHUNK_SIZE, "?"));
+            String selectAuthorsSQL = "SELECT id, name, publishesCount, zeroCittPublishesCount, hirshIndex, fetchedAt FROM " + TABLE_NAME +
+                    " WHERE id IN (" + placeholders + ")";
+            long staleBefore = maxAge.isZero() ? Long.MIN_VALUE : System.currentTimeMillis() - maxAge.toMillis();
+            List<Integer> idList = new ArrayList<>(ids);
+            Set<Author> found = new HashSet<>();
+            Set<Integer> stale = new HashSet<>();
+            Set<Integer> failed = new HashSet<>();
+            Map<Integer, Long> fetchedAtById = new HashMap<>();
+            PreparedStatement preparedStatement;
+            try {
+                preparedStatement = prepare(selectAuthorsSQL);
+            } catch (SQLException e) {
+                log.error("Ошибка SQL при подготовке пакетного запроса авторов: ", e);
+                return new AuthorsLookup(Collections.emptySet(), Collections.emptySet(), Collections.emptySet(),
+                        new HashSet<>(ids), Collections.emptyMap());
+            }
+            for (int start = 0; start < idList.size(); start += LOOKUP_CHUNK_SIZE) {
+                int end = Math.min(start + LOOKUP_CHUNK_SIZE, idList.size());
+                List<Author> chunkFound = new ArrayList<>();
+                List<Integer> chunkStale = new ArrayList<>();
+                Map<Integer, Long> chunkFetchedAt = new HashMap<>();
+                try {
+                    for (int i = 0; i < LOOKUP_CHUNK_SIZE; i++) {
+                        preparedStatement.setInt(i + 1, idList.get(Math.min(start + i, end - 1)));
+                    }
+                    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                        while (resultSet.next()) {
+                            Author author = readAuthor(resultSet);
+                            chunkFound.add(author);
+                            long fetchedAt = resultSet.getLong("fetchedAt");
+                            boolean unknown = resultSet.wasNull();
+                            if (!unknown) {
+                                chunkFetchedAt.put(author.authorId(), fetchedAt);
+                            }
+                            if (!maxAge.isZero() && (unknown || fetchedAt < staleBefore)) {
+                                chunkStale.add(author.authorId());
+                            }
+                        }
+                    }
+                    found.addAll(chunkFound);
+                    stale.addAll(chunkStale);
+                    fetchedAtById.putAll(chunkFetchedAt);
+                } catch (SQLException e) {
+                    log.error("Ошибка SQL при пакетном запросе авторов, {} ID не проверены: ", end - start, e);
+                    failed.addAll(idList.subList(start, end));
+                }
+            }
+            Set<Integer> missing = new HashSet<>(ids);
+            found.forEach(author -> missing.remove(author.authorId()));
+            missing.removeAll(failed);
+            log.info("В базе данных найдено {} из {} авторов, из них устаревших: {}, не проверено из-за ошибки: {}",
+                    found.size(), ids.size(), stale.size(), failed.size());
+            return new AuthorsLookup(found, missing, stale, failed, fetchedAtById);
+        } finally {
+            GET_AUTHORS_LATENCY.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Возвращает гистограмму времени выполнения операции с базой данных.
+     * @param operation Название операции, значение метки {@code operation}.
+     * @return Гистограмма из реестра {@link Metrics}.
+     */
+    private static Metrics.Histogram operationLatency(String operation) {
+        return Metrics.histogram("elibrary_db_operation_seconds", "Время выполнения операций с базой данных", "operation", operation);
+    }
+
+    /**
+     * Создает автора из текущей строки результата запроса.
+     * @param resultSet Результат запроса, установленный на строку с автором.
+     * @return Объект {@link Author}.
+     * @throws SQLException Если значения не удалось прочитать.
+     */
+    private static Author readAuthor(ResultSet resultSet) throws SQLException {
+        return new Author(
+                resultSet.getInt("id"),
+                resultSet.getString("name"),
+                resultSet.getInt("publishesCount"),
+                resultSet.getInt("zeroCittPublishesCount"),
+                resultSet.getInt("hirshIndex"));
+    }
+
+    /**
+     * Последовательно передает получателю всех авторов, удовлетворяющих условиям, в порядке возрастания ID.
+     * Авторы читаются однонаправленным курсором порциями по {@value #EXPORT_FETCH_SIZE} строк и не накапливаются в памяти.
+     * На время чтения остальные операции с базой данных ожидают завершения.
+     * @param filter  Условия выборки.
+     * @param visitor Получатель авторов.
+     * @return Количество переданных авторов или {@code -1} при ошибке SQL.
+     * @throws IOException Если получатель не смог обработать автора.
+     */
+    public synchronized long forEachAuthor(AuthorFilter filter, AuthorVisitor visitor) throws IOException {
+        String selectAuthorsSQL = "SELECT id, name, publishesCount, zeroCittPublishesCount, hirshIndex FROM " + TABLE_NAME +
+                " WHERE id BETWEEN ? AND ? AND hirshIndex >= ? ORDER BY id";
+        long count = 0;
+        try (PreparedStatement preparedStatement = connection.prepareStatement(selectAuthorsSQL,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            preparedStatement.setInt(1, filter.minId());
+            preparedStatement.setInt(2, filter.maxId());
+            preparedStatement.setInt(3, filter.minHirshIndex());
+            preparedStatement.setFetchSize(EXPORT_FETCH_SIZE);
+            log.debug("Выполнение SQL запроса на выгрузку авторов: {} с условиями: {}", selectAuthorsSQL, filter);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    visitor.visit(readAuthor(resultSet));
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            log.error("Ошибка SQL при выгрузке авторов: ", e);
+            return -1;
+        }
+        log.info("Выгружено {} авторов с условиями: {}", count, filter);
+        return count;
+    }
+
     /**
      * Получает автора из базы данных с указанным ID.
      * @param id ID автора для получения.
      * @return Объект {@link Author}, представляющий автора, или {@code null}, если автор не найден.
      */
-    public Author getAuthor(int id) {
-        String selectAuthorSQL = "SELECT * FROM " + TABLE_NAME + " WHERE id = ?";
-        try (Connection connection = DriverManager.getConnection(databaseUrl);
-             PreparedStatement preparedStatement = connection.prepareStatement(selectAuthorSQL)) {
-            preparedStatement.setInt(1, id);
-            log.debug("Выполнение SQL запроса на получение автора: {} с id: {}", selectAuthorSQL, id);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            if (resultSet.next()) {
-                String name = resultSet.getString("name");
-                int publishes = resultSet.getInt("publishesCount");
-                int zeroCitiPublishes = resultSet.getInt("zeroCittPublishesCount");
-                int hIndex = resultSet.getInt("hirshIndex");
-                Author author = new Author(id, name, publishes, zeroCitiPublishes, hIndex);
-                log.info("Из базы получен автор {}", author);
-                return author;
-            } else {
-                log.debug("Автор с id {} не найден в базе данных", id);
+    public synchronized Author getAuthor(int id) {
+        long startNanos = System.nanoTime();
+        try {
+            String selectAuthorSQL = "SELECT * FROM " + TABLE_NAME + " WHERE id = ?";
+            try {
+                PreparedStatement preparedStatement = prepare(selectAuthorSQL);
+                preparedStatement.setInt(1, id);
+                log.debug("Выполнение SQL запроса на получение автора: {} с id: {}", selectAuthorSQL, id);
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    if (resultSet.next()) {
+                        Author author = readAuthor(resultSet);
+                        log.info("Из базы получен автор {}", author);
+                        return author;
+                    } else {
+                        log.debug("Автор с id {} не найден в базе данных", id);
+                    }
+                }
+            } catch (SQLException e) {
+                log.error("Ошибка SQL при запросе автора: ", e);
+            }
+            return null;
+        } finally {
+            GET_AUTHOR_LATENCY.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Регистрирует новый запуск в журнале и записывает все его ID в состоянии {@link RunItemStatus#PENDING}.
+     * ID записываются в одной транзакции; если это не удалось, запись о запуске удаляется.
+     * @param inputFile  Путь к файлу с ID авторов.
+     * @param outputFile Путь к файлу отчета.
+     * @param authorIds  ID авторов запуска.
+     * @return ID запуска или {@code -1}, если запуск не удалось зарегистрировать.
+     */
+    public synchronized long createRun(String inputFile, String outputFile, AuthorIdSet authorIds) {
+        String insertRunSQL = "INSERT INTO " + RUNS_TABLE_NAME + " (inputFile, outputFile, startedAt) VALUES (?, ?, ?)";
+        long runId;
+        try {
+            PreparedStatement preparedStatement = prepare(insertRunSQL);
+            preparedStatement.setString(1, inputFile);
+            preparedStatement.setString(2, outputFile);
+            preparedStatement.setLong(3, System.currentTimeMillis());
+            preparedStatement.executeUpdate();
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT last_insert_rowid()")) {
+                resultSet.next();
+                runId = resultSet.getLong(1);
+            }
+        } catch (SQLException e) {
+            log.error("SQL ошибка при регистрации запуска: ", e);
+            return -1;
+        }
+        if (!insertRunItems(runId, authorIds)) {
+            deleteRun(runId);
+            return -1;
+        }
+        log.info("Зарегистрирован запуск {} для файла {}: {} ID", runId, inputFile, authorIds.size());
+        return runId;
+    }
+
+    /**
+     * Записывает ID запуска в журнал пакетами по {@value #BATCH_SIZE} в одной транзакции, не упаковывая их в коллекцию.
+     * @param runId     ID запуска.
+     * @param authorIds ID авторов запуска.
+     * @return {@code true}, если все ID записаны; при ошибке транзакция откатывается.
+     */
+    private boolean insertRunItems(long runId, AuthorIdSet authorIds) {
+        String insertItemSQL = "INSERT OR IGNORE INTO " + RUN_ITEMS_TABLE_NAME + " (runId, authorId, status) VALUES (?, ?, ?)";
+        try {
+            PreparedStatement preparedStatement = prepare(insertItemSQL);
+            connection.setAutoCommit(false);
+            try {
+                int pending = 0;
+                PrimitiveIterator.OfInt iterator = authorIds.iterator();
+                while (iterator.hasNext()) {
+                    preparedStatement.setLong(1, runId);
+                    preparedStatement.setInt(2, iterator.nextInt());
+                    preparedStatement.setString(3, RunItemStatus.PENDING.name());
+                    preparedStatement.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        preparedStatement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                preparedStatement.executeBatch();
+                connection.commit();
+                return true;
+            } catch (SQLException e) {
+                log.error("SQL ошибка при записи ID запуска, транзакция откатывается: ", e);
+                preparedStatement.clearBatch();
+                connection.rollback();
+                return false;
+            } finally {
+                connection.setAutoCommit(true);
             }
         } catch (SQLException e) {
-            log.error("Ошибка SQL при запросе автора: ", e);
+            log.error("SQL ошибка при управлении транзакцией: ", e);
+            return false;
+        }
+    }
+
+    /**
+     * Удаляет запуск и его записи из журнала.
+     * @param runId ID запуска.
+     */
+    private void deleteRun(long runId) {
+        try {
+            PreparedStatement deleteItems = prepare("DELETE FROM " + RUN_ITEMS_TABLE_NAME + " WHERE runId = ?");
+            deleteItems.setLong(1, runId);
+            deleteItems.executeUpdate();
+            PreparedStatement deleteRun = prepare("DELETE FROM " + RUNS_TABLE_NAME + " WHERE id = ?");
+            deleteRun.setLong(1, runId);
+            deleteRun.executeUpdate();
+        } catch (SQLException e) {
+            log.error("SQL ошибка при удалении запуска: ", e);
+        }
+    }
+
+    /**
+     * Находит последний запуск для файла с ID авторов.
+     * @param inputFile Путь к файлу с ID авторов, с которым был зарегистрирован запуск.
+     * @return Последний запуск или {@code null}, если запусков для файла не было.
+     */
+    public synchronized RunInfo findLastRun(String inputFile) {
+        String selectRunSQL = "SELECT id, inputFile, outputFile, startedAt, finishedAt FROM " + RUNS_TABLE_NAME +
+                " WHERE inputFile = ? ORDER BY id DESC LIMIT 1";
+        try {
+            PreparedStatement preparedStatement = prepare(selectRunSQL);
+            preparedStatement.setString(1, inputFile);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    long finishedAt = resultSet.getLong("finishedAt");
+                    boolean unfinished = resultSet.wasNull();
+                    return new RunInfo(resultSet.getLong("id"), resultSet.getString("inputFile"),
+                            resultSet.getString("outputFile"), resultSet.getLong("startedAt"),
+                            unfinished ? null : finishedAt);
+                }
+            }
+        } catch (SQLException e) {
+            log.error("SQL ошибка при поиске запуска: ", e);
         }
         return null;
     }
+
+    /**
+     * Записывает результат обработки ID в журнал запуска и увеличивает счетчик попыток.
+     * @param runId    ID запуска.
+     * @param authorId ID автора.
+     * @param status   Новое состояние.
+     * @return {@code true}, если запись журнала обновлена.
+     */
+    public synchronized boolean updateRunItem(long runId, int authorId, RunItemStatus status) {
+        long startNanos = System.nanoTime();
+        try {
+            String updateItemSQL = "UPDATE " + RUN_ITEMS_TABLE_NAME + " SET status = ?, attempts = attempts + 1, updatedAt = ? " +
+                    "WHERE runId = ? AND authorId = ?";
+            try {
+                PreparedStatement preparedStatement = prepare(updateItemSQL);
+                preparedStatement.setString(1, status.name());
+                preparedStatement.setLong(2, System.currentTimeMillis());
+                preparedStatement.setLong(3, runId);
+                preparedStatement.setInt(4, authorId);
+                return preparedStatement.executeUpdate() > 0;
+            } catch (SQLException e) {
+                log.error("SQL ошибка при обновлении журнала запуска: ", e);
+                return false;
+            }
+        } finally {
+            UPDATE_RUN_ITEM_LATENCY.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Возвращает количество ID запуска в каждом состоянии.
+     * @param runId ID запуска.
+     * @return Количество ID по состояниям; состояния без ID отсутствуют.
+     */
+    public synchronized Map<RunItemStatus, Integer> getRunStatusCounts(long runId) {
+        String countSQL = "SELECT status, COUNT(*) FROM " + RUN_ITEMS_TABLE_NAME + " WHERE runId = ? GROUP BY status";
+        Map<RunItemStatus, Integer> counts = new LinkedHashMap<>();
+        try {
+            PreparedStatement preparedStatement = prepare(countSQL);
+            preparedStatement.setLong(1, runId);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    counts.put(RunItemStatus.valueOf(resultSet.getString(1)), resultSet.getInt(2));
+                }
+            }
+        } catch (SQLException e) {
+            log.error("SQL ошибка при подсчете состояний запуска: ", e);
+        }
+        return counts;
+    }
+
+    /**
+     * Возвращает ID запуска, обработка которых не завершена успешно.
+     * @param runId ID запуска.
+     * @return ID в состояниях {@link RunItemStatus#PENDING} и {@link RunItemStatus#FAILED}.
+     */
+    public synchronized AuthorIdSet getUnfinishedRunItems(long runId) {
+        String selectItemsSQL = "SELECT authorId FROM " + RUN_ITEMS_TABLE_NAME + " WHERE runId = ? AND status NOT IN (?, ?)";
+        AuthorIdSet ids = new AuthorIdSet();
+        try {
+            PreparedStatement preparedStatement = prepare(selectItemsSQL);
+            preparedStatement.setLong(1, runId);
+            preparedStatement.setString(2, RunItemStatus.DONE.name());
+            preparedStatement.setString(3, RunItemStatus.NOT_FOUND.name());
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    ids.add(resultSet.getInt(1));
+                }
+            }
+        } catch (SQLException e) {
+            log.error("SQL ошибка при чтении журнала запуска: ", e);
+        }
+        return ids;
+    }
+
+    /**
+     * Возвращает сохраненных авторов, успешно обработанных в запуске, без обращения к сети.
+     * @param runId ID запуска.
+     * @return Авторы в состоянии {@link RunItemStatus#DONE}, найденные в таблице авторов.
+     */
+    public synchronized Set<Author> getRunAuthors(long runId) {
+        String selectAuthorsSQL = "SELECT a.id, a.name, a.publishesCount, a.zeroCittPublishesCount, a.hirshIndex FROM " + TABLE_NAME + " a " +
+                "JOIN " + RUN_ITEMS_TABLE_NAME + " r ON r.authorId = a.id WHERE r.runId = ? AND r.status = ?";
+        Set<Author> authors = new HashSet<>();
+        try {
+            PreparedStatement preparedStatement = prepare(selectAuthorsSQL);
+            preparedStatement.setLong(1, runId);
+            preparedStatement.setString(2, RunItemStatus.DONE.name());
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    authors.add(readAuthor(resultSet));
+                }
+            }
+        } catch (SQLException e) {
+            log.error("SQL ошибка при чтении авторов запуска: ", e);
+        }
+        return authors;
+    }
+
+    /**
+     * Отмечает запуск завершенным.
+     * @param runId ID запуска.
+     */
+    public synchronized void finishRun(long runId) {
+        String finishRunSQL = "UPDATE " + RUNS_TABLE_NAME + " SET finishedAt = ? WHERE id = ?";
+        try {
+            PreparedStatement preparedStatement = prepare(finishRunSQL);
+            preparedStatement.setLong(1, System.currentTimeMillis());
+            preparedStatement.setLong(2, runId);
+            preparedStatement.executeUpdate();
+        } catch (SQLException e) {
+            log.error("SQL ошибка при завершении запуска: ", e);
+        }
+    }
+
+    /**
+     * Закрывает кэшированные запросы и соединение с базой данных.
+     */
+    @Override
+    public synchronized void close() {
+        log.info("Закрытие соединения с базой данных {}", databaseUrl);
+        try {
+            for (PreparedStatement statement : statementCache.values()) {
+                statement.close();
+            }
+            statementCache.clear();
+            connection.close();
+        } catch (SQLException e) {
+            log.error("SQL ошибка при закрытии соединения: ", e);
+        }
+    }
+
+    /**
+     * Устанавливает параметры подготовленного запроса для элемента пакета.
+     * @param <T> Тип элемента.
+     */
+    @FunctionalInterface
+    private interface StatementBinder<T> {
+        void bind(PreparedStatement statement, T item) throws SQLException;
+    }
 }
\ No newline at end of file
@@ -1,17 +1,96 @@
 package elibraryparser;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.stream.IntStream;
+
 /**
  *  Определяет интерфейс для парсеров, которые получают данные об авторах с сайта eLibrary.ru.
  *  Все реализации данного интерфейса должны предоставлять методы для получения данных об авторе.
+ *  Помимо блокирующего {@link #getAuthor(int)} парсер предоставляет асинхронный {@link #getAuthorAsync(int)}
+ *  и пакетное получение авторов через {@link Flow.Publisher} с учетом запрошенного подписчиком количества.
  */
-public interface ElibraryParser {
+public interface ElibraryParser extends AutoCloseable {
+
+    /**
+     *  Фрагменты страницы, по которым определяется, что сайт заблокировал доступ или запросил капчу.
+     */
+    List<String> BLOCK_PAGE_MARKERS = List.of("ip_restricted", "g-recaptcha", "Доступ к сайту ограничен");
 
     /**
      *  Получает данные об авторе по его идентификатору.
      *
      *  @param authorId Идентификатор автора.
-     *  @return Объект {@link Author} с данными об авторе, или {@code null}, если данные не найдены или произошла ошибка.
+     *  @return Объект {@link Author} с данными об авторе, или {@code null}, если автор не найден
+     *          или со страницы не удалось извлечь данные.
+     *  @throws FetchException Если страницу не удалось загрузить и неизвестно, существует ли автор.
      */
     Author getAuthor(int authorId);
-}
 
+    /**
+     *  Асинхронно получает данные об авторе. Отмена Future прерывает выполняющийся запрос, если это возможно.
+     *  Реализация по умолчанию выполняет {@link #getAuthor(int)} в общем пуле {@link java.util.concurrent.ForkJoinPool}
+     *  и подходит только для парсеров, не выполняющих сетевых запросов; остальные парсеры переопределяют метод.
+     *
+     *  @param authorId Идентификатор автора.
+     *  @return Future с объектом {@link Author} или {@code null}, если автор не найден.
+     *          Завершается {@link FetchException}, если страницу не удалось загрузить.
+     */
+    default CompletableFuture<Author> getAuthorAsync(int authorId) {
+        return CompletableFuture.supplyAsync(() -> getAuthor(authorId));
+    }
+
+    /**
+     *  Возвращает издателя авторов по потоку идентификаторов. Запросы выполняются через {@link #getAuthorAsync(int)},
+     *  одновременно не более {@code maxConcurrency} и не больше, чем запросил подписчик, поэтому медленный подписчик
+     *  замедляет загрузку, а не накапливает результаты в памяти. Авторы публикуются в порядке получения;
+     *  ненайденные авторы и ID, страницы которых не удалось загрузить, пропускаются.
+     *  Издатель допускает одного подписчика, так как поток идентификаторов читается один раз.
+     *
+     *  @param authorIds      Поток идентификаторов авторов.
+     *  @param maxConcurrency Максимальное количество одновременно выполняемых запросов.
+     *  @return Издатель найденных авторов.
+     */
+    default Flow.Publisher<Author> getAuthors(IntStream authorIds, int maxConcurrency) {
+        return new AuthorPublisher(this, authorIds, maxConcurrency);
+    }
+
+    /**
+     *  Проверяет, означает ли код ответа, что автор не существует: для несуществующих авторов elibrary.ru возвращает 500.
+     *
+     *  @param statusCode HTTP код ответа.
+     *  @return {@code true}, если автор не найден.
+     */
+    static boolean isNotFoundStatus(int statusCode) {
+        return statusCode == 500;
+    }
+
+    /**
+     *  Проверяет, является ли код ответа признаком ограничения частоты запросов или перегрузки прокси.
+     *  Код 500 сюда не входит: elibrary.ru возвращает его для несуществующих авторов.
+     *
+     *  @param statusCode HTTP код ответа.
+     *  @return {@code true}, если запросы следует замедлить.
+     */
+    static boolean isThrottlingStatus(int statusCode) {
+        return statusCode == 429 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+
+    /**
+     *  Проверяет, является ли загруженная страница страницей блокировки.
+     *
+     *  @param pageContent HTML контент страницы.
+     *  @return {@code true}, если страница содержит признаки блокировки.
+     */
+    static boolean isBlockPage(String pageContent) {
+        return BLOCK_PAGE_MARKERS.stream().anyMatch(pageContent::contains);
+    }
+
+    /**
+     *  Освобождает ресурсы парсера (браузер, соединения). По умолчанию ничего не делает.
+     */
+    @Override
+    default void close() {
+    }
+}
\ No newline at end of file
@@ -1,23 +1,30 @@
 package elibraryparser;
 
-import io.restassured.RestAssured;
-import io.restassured.response.Response;
 import lombok.extern.log4j.Log4j2;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Реализация интерфейса {@link ElibraryParser} для получения данных об авторах с сайта elibrary.ru через HTTP запросы.
- * Использует библиотеку RestAssured для выполнения HTTP запросов и регулярные выражения для парсинга HTML контента.
+ * Использует {@link HttpFetcher} для выполнения HTTP запросов и {@link AuthorPageExtractor} для парсинга HTML контента.
+ * Экземпляр не имеет изменяемого состояния и может использоваться из нескольких потоков одновременно.
+ * {@link #getAuthorAsync(int)} не занимает поток ни на время ожидания прокси и ограничителя частоты, ни на время запроса.
  */
 @Log4j2
 public class ElibraryParserHttp implements ElibraryParser {
 
     private static final String BASE_URL = "https://www.elibrary.ru/author_profile.asp?authorid=";
-    private static String webProxyUrl;
+    private final ProxyPool proxyPool;
+    private final HttpFetcher fetcher;
+    private final boolean streaming;
+    private final PageArchive archive;
+    private final AuthorPageExtractor extractor = new AuthorPageExtractor();
+    private final ParserMetrics metrics = new ParserMetrics("http");
 
     /**
      * Конструктор по умолчанию для {@code ElibraryParserHttp}.
@@ -25,6 +32,10 @@ public class ElibraryParserHttp implements ElibraryParser {
      */
     public ElibraryParserHttp() {
         log.info("Инициализация ElibraryParserHttp без параметров");
+        this.proxyPool = ProxyPool.single(null, new RateLimiter());
+        this.fetcher = new HttpFetcher();
+        this.streaming = false;
+        this.archive = null;
     }
 
     /**
@@ -33,120 +44,403 @@ public class ElibraryParserHttp implements ElibraryParser {
      * @param webProxyUrl URL веб-прокси сервера. Если {@code null} или пустой, прокси не используется.
      */
     public ElibraryParserHttp(String webProxyUrl) {
-        log.info("Инициализация ElibraryParserHttp с webProxyUrl: {}", webProxyUrl);
-        this.webProxyUrl = webProxyUrl;
+        this(webProxyUrl, new RateLimiter());
+    }
+
+    /**
+     * Конструктор для {@code ElibraryParserHttp} с веб-прокси и общим ограничителем частоты запросов.
+     *
+     * @param webProxyUrl URL веб-прокси сервера. Если {@code null} или пустой, прокси не используется.
+     * @param rateLimiter Ограничитель частоты запросов, через который проходит каждая загрузка страницы.
+     */
+    public ElibraryParserHttp(String webProxyUrl, RateLimiter rateLimiter) {
+        this(webProxyUrl, rateLimiter, new HttpFetcher());
+    }
+
+    /**
+     * Конструктор для {@code ElibraryParserHttp} с веб-прокси, ограничителем частоты запросов и загрузчиком страниц.
+     *
+     * @param webProxyUrl URL веб-прокси сервера. Если {@code null} или пустой, прокси не используется.
+     * @param rateLimiter Ограничитель частоты запросов, через который проходит каждая загрузка страницы.
+     * @param fetcher     Загрузчик страниц с общим пулом соединений.
+     */
+    public ElibraryParserHttp(String webProxyUrl, RateLimiter rateLimiter, HttpFetcher fetcher) {
+        this(webProxyUrl, rateLimiter, fetcher, false);
+    }
+
+    /**
+     * Конструктор для {@code ElibraryParserHttp} с возможностью потоковой загрузки страниц.
+     *
+     * @param webProxyUrl URL веб-прокси сервера. Если {@code null} или пустой, прокси не используется.
+     * @param rateLimiter Ограничитель частоты запросов, через который проходит каждая загрузка страницы.
+     * @param fetcher     Загрузчик страниц с общим пулом соединений.
+     * @param streaming   Если {@code true}, страница разбирается по мере загрузки и загрузка прекращается,
+     *                    как только найдены все поля.
+     */
+    public ElibraryParserHttp(String webProxyUrl, RateLimiter rateLimiter, HttpFetcher fetcher, boolean streaming) {
+        this(webProxyUrl, rateLimiter, fetcher, streaming, null);
+    }
+
+    /**
+     * Конструктор для {@code ElibraryParserHttp} с архивом загруженных страниц.
+     *
+     * @param webProxyUrl URL веб-прокси сервера. Если {@code null} или пустой, прокси не используется.
+     * @param rateLimiter Ограничитель частоты запросов, через который проходит каждая загрузка страницы.
+     * @param fetcher     Загрузчик страниц с общим пулом соединений.
+     * @param streaming   Если {@code true}, страница разбирается по мере загрузки. При заданном архиве не используется,
+     *                    так как в архив сохраняется страница целиком.
+     * @param archive     Архив, в который сохраняется каждая загруженная страница, или {@code null}.
+     *                    Архив закрывается вместе с парсером.
+     */
+    public ElibraryParserHttp(String webProxyUrl, RateLimiter rateLimiter, HttpFetcher fetcher, boolean streaming, PageArchive archive) {
+        this(ProxyPool.single(webProxyUrl, rateLimiter), fetcher, streaming, archive);
+    }
+
+    /**
+     * Конструктор для {@code ElibraryParserHttp} с пулом веб-прокси.
+     *
+     * @param proxyPool Пул прокси, через один из которых выполняется каждая загрузка страницы.
+     * @param fetcher   Загрузчик страниц с общим пулом соединений.
+     * @param streaming Если {@code true}, страница разбирается по мере загрузки. При заданном архиве не используется,
+     *                  так как в архив сохраняется страница целиком.
+     * @param archive   Архив, в который сохраняется каждая загруженная страница, или {@code null}.
+     *                  Архив закрывается вместе с парсером.
+     */
+    public ElibraryParserHttp(ProxyPool proxyPool, HttpFetcher fetcher, boolean streaming, PageArchive archive) {
+        log.info("Инициализация ElibraryParserHttp с пулом из {} прокси, потоковая загрузка: {}, архив страниц: {}",
+                proxyPool.size(), streaming, archive != null);
+        if (streaming && archive != null) {
+            log.warn("Потоковая загрузка отключена: в архив страниц сохраняются только полностью загруженные страницы");
+        }
+        this.proxyPool = proxyPool;
+        this.fetcher = fetcher;
+        this.streaming = streaming && archive == null;
+        this.archive = archive;
     }
 
     /**
      * Получает информацию об авторе по его ID.
      *
      * @param authorId ID автора на elibrary.ru.
-     * @return Объект {@link Author} с информацией об авторе или {@code null}, если не удалось получить данные.
+     * @return Объект {@link Author} с информацией об авторе или {@code null}, если автор не найден
+     *         или со страницы не удалось извлечь все поля.
+     * @throws FetchException Если страницу не удалось загрузить.
      */
     @Override
     public Author getAuthor(int authorId) {
         log.info("Получение информации об авторе с ID: {}", authorId);
-        Map<String, String> authorData = scrapeAuthorData(String.valueOf(authorId));
-        if (authorData == null || authorData.containsValue(null)) {
-            log.warn("Не удалось получить данные об авторе с ID: {}", authorId);
-            return null;
+        return toAuthor(authorId, scrapeAuthorData(String.valueOf(authorId)));
+    }
+
+    /**
+     * Асинхронно получает информацию об авторе. Прокси и разрешение ограничителя частоты запросов ожидаются без блокировки,
+     * страница загружается через {@link HttpFetcher#fetchAsync(String)} целиком (потоковый разбор не используется).
+     * Отмена Future прерывает загрузку страницы.
+     *
+     * @param authorId ID автора на elibrary.ru.
+     * @return Future с объектом {@link Author} или {@code null}, если автор не найден или со страницы
+     *         не удалось извлечь все поля. Завершается {@link FetchException}, если страницу не удалось загрузить.
+     */
+    @Override
+    public CompletableFuture<Author> getAuthorAsync(int authorId) {
+        String url = BASE_URL + authorId;
+        log.info("Асинхронная загрузка страницы автора с ID: {} по URL: {}", authorId, url);
+        CompletableFuture<Author> result = new CompletableFuture<>();
+        CompletableFuture<ProxyPool.Lease> leaseFuture = proxyPool.acquireAsync();
+        result.whenComplete((author, error) -> {
+            if (result.isCancelled()) {
+                leaseFuture.cancel(false);
+            }
+        });
+        leaseFuture.whenComplete((lease, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (!(cause instanceof CancellationException)) {
+                    log.error("Не удалось получить прокси для загрузки страницы " + url, cause);
+                    result.completeExceptionally(cause);
+                }
+                return;
+            }
+            if (result.isDone()) {
+                lease.close();
+                return;
+            }
+            try {
+                long waitNanos = lease.reserveRate();
+                metrics.recordRateLimitWait(TimeUnit.NANOSECONDS.toMillis(waitNanos));
+                if (waitNanos > 0) {
+                    CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS)
+                            .execute(() -> startFetch(lease, authorId, url, result));
+                } else {
+                    startFetch(lease, authorId, url, result);
+                }
+            } catch (RuntimeException e) {
+                lease.close();
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Запускает загрузку через {@link #fetchAsync}. Исключение, выброшенное до начала загрузки, закрывает аренду
+     * прокси и завершает {@code result}, а не теряется в потоке таймера или пула.
+     */
+    private void startFetch(ProxyPool.Lease lease, int authorId, String url, CompletableFuture<Author> result) {
+        try {
+            fetchAsync(lease, authorId, url, result);
+        } catch (RuntimeException e) {
+            lease.close();
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Загружает страницу через арендованный прокси и завершает {@code result} извлеченным автором.
+     * Аренда прокси закрывается по завершении загрузки.
+     */
+    private void fetchAsync(ProxyPool.Lease lease, int authorId, String url, CompletableFuture<Author> result) {
+        if (result.isDone()) {
+            lease.close();
+            return;
         }
+        long startNanos = System.nanoTime();
+        CompletableFuture<HttpFetcher.HttpPage> fetch;
         try {
-            String name = authorData.get("ФИО");
-            int publishesCount = Integer.parseInt(authorData.get("Число публикаций").replaceAll("[^0-9]", ""));
-            int citedPublishesCount = Integer.parseInt(authorData.get("Число цитирований").replaceAll("[^0-9]", ""));
-            int hirshIndex = Integer.parseInt(authorData.get("Индекс Хирша"));
-            int zeroCittPublishesCount = publishesCount - citedPublishesCount;
-            Author author = new Author(authorId, name, publishesCount, zeroCittPublishesCount, hirshIndex);
-            log.info("Информация об авторе {} успешно получена: {}", authorId, author);
-            return author;
-        } catch (NumberFormatException e) {
-            log.error("Ошибка при парсинге числовых значений для автора " + authorId + ": " + e.getMessage());
+            fetch = fetcher.fetchAsync(lease.url(url));
+        } catch (IllegalArgumentException e) {
+            lease.close();
+            metrics.recordError("invalid_url");
+            result.completeExceptionally(new FetchException("Некорректный URL " + url, e, false));
+            return;
+        }
+        result.whenComplete((author, error) -> {
+            if (result.isCancelled()) {
+                fetch.cancel(true);
+            }
+        });
+        fetch.whenComplete((response, error) -> {
+            try (lease) {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof CancellationException) {
+                        return;
+                    }
+                    if (cause instanceof UncheckedIOException unchecked) {
+                        cause = unchecked.getCause();
+                    }
+                    lease.onFailure();
+                    metrics.recordError("io");
+                    log.warn("Ошибка при загрузке страницы {} через прокси {}: {}", url, lease.proxyName(), cause.toString());
+                    result.completeExceptionally(new FetchException("Ошибка при загрузке страницы " + url, cause, true));
+                    return;
+                }
+                metrics.recordFetch(startNanos);
+                String content = response.body();
+                if (!isSuccessful(lease, url, response.statusCode(), response.statusCode() == 200 && ElibraryParser.isBlockPage(content))) {
+                    result.complete(null);
+                    return;
+                }
+                result.complete(toAuthor(authorId, extractPage(String.valueOf(authorId), content)));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * Преобразует извлеченные со страницы данные в автора.
+     *
+     * @param authorId   ID автора.
+     * @param authorData Извлеченные данные или {@code null}, если страница не получена.
+     * @return Объект {@link Author} или {@code null}, если данных нет или извлечены не все поля.
+     */
+    private Author toAuthor(int authorId, AuthorPageData authorData) {
+        if (authorData == null || !authorData.isComplete()) {
+            log.warn("Не удалось получить данные об авторе с ID: {}", authorId);
             return null;
         }
+        Author author = authorData.toAuthor(authorId);
+        log.info("Информация об авторе {} успешно получена: {}", authorId, author);
+        return author;
     }
 
     /**
      * Извлекает основные данные об авторе со страницы профиля на elibrary.ru.
      *
      * @param authorId ID автора.
-     * @return {@code Map<String, String>} с извлеченными данными об авторе или {@code null} в случае ошибки.
+     * @return {@link AuthorPageData} с извлеченными данными об авторе или {@code null}, если автор не найден.
+     * @throws FetchException Если страницу не удалось загрузить или загрузка была прервана.
      */
-    public Map<String, String> scrapeAuthorData(String authorId) {
-        String url = (webProxyUrl != null ? webProxyUrl : "") + BASE_URL + authorId;
+    public AuthorPageData scrapeAuthorData(String authorId) {
+        String url = BASE_URL + authorId;
         log.info("Загрузка страницы автора с ID: {} по URL: {}", authorId, url);
+        if (streaming) {
+            AuthorPageData data = downloadAndExtract(url);
+            if (data != null) {
+                metrics.recordExtraction(data);
+            }
+            return data;
+        }
         String pageContent = downloadPage(url);
         if (pageContent != null) {
-            Map<String, String> data = extractData(pageContent);
-            log.debug("Данные автора {} успешно извлечены: {}", authorId, data);
-            return data;
+            return extractPage(authorId, pageContent);
         } else {
-            log.warn("Не удалось загрузить страницу для автора с ID: {}", authorId);
+            log.info("Страница автора с ID: {} не получена", authorId);
             return null;
         }
     }
 
     /**
-     * Загружает HTML контент страницы по указанному URL.
+     * Сохраняет загруженную страницу в архив и извлекает из нее данные об авторе.
+     *
+     * @param authorId    ID автора.
+     * @param pageContent HTML контент страницы.
+     * @return {@link AuthorPageData} с извлеченными данными.
+     */
+    private AuthorPageData extractPage(String authorId, String pageContent) {
+        archivePage(authorId, pageContent);
+        AuthorPageData data = extractor.extract(pageContent);
+        metrics.recordExtraction(data);
+        log.debug("Данные автора {} успешно извлечены: {}", authorId, data);
+        return data;
+    }
+
+    /**
+     * Загружает HTML контент страницы по указанному URL через один из прокси пула.
      *
      * @param url URL страницы для загрузки.
-     * @return HTML контент страницы в виде строки или {@code null} в случае ошибки.
+     * @return HTML контент страницы в виде строки или {@code null}, если автор не найден.
+     * @throws FetchException Если страницу не удалось загрузить или загрузка была прервана.
      */
     private String downloadPage(String url) {
-        try {
-            Response response = RestAssured.get(url);
-
-            if (response.getStatusCode() != 200) {
-                log.warn("Сервер вернул код ответа: {} для URL: {}", response.getStatusCode(), url);
-                return null;
+        try (ProxyPool.Lease lease = proxyPool.acquire()) {
+            metrics.recordRateLimitWait(lease.acquireRate());
+            long startNanos = System.nanoTime();
+            try {
+                HttpFetcher.HttpPage response = fetcher.fetch(lease.url(url));
+                metrics.recordFetch(startNanos);
+                String content = response.body();
+                if (!isSuccessful(lease, url, response.statusCode(), response.statusCode() == 200 && ElibraryParser.isBlockPage(content))) {
+                    return null;
+                }
+                log.debug("Страница успешно загружена");
+                return content;
+            } catch (IOException e) {
+                lease.onFailure();
+                metrics.recordError("io");
+                log.warn("Ошибка при загрузке страницы {} через прокси {}: {}", url, lease.proxyName(), e.toString());
+                throw new FetchException("Ошибка при загрузке страницы " + url, e, true);
             }
+        } catch (IllegalArgumentException e) {
+            metrics.recordError("invalid_url");
+            throw new FetchException("Некорректный URL " + url, e, false);
+        } catch (InterruptedException e) {
+            log.warn("Загрузка страницы была прервана: {}", url);
+            Thread.currentThread().interrupt();
+            throw new FetchException("Загрузка страницы была прервана: " + url, e, true);
+        }
+    }
 
-            String content = response.getBody().asString();
-            log.debug("Страница успешно загружена");
-            return content;
-
-        } catch (Exception e) {
-            log.error("Ошибка при загрузке страницы: " + e.getMessage());
-            return null;
+    /**
+     * Загружает страницу потоково через один из прокси пула, передавая ее в сессию разбора,
+     * и прекращает загрузку, как только найдены все поля.
+     *
+     * @param url URL страницы для загрузки.
+     * @return {@link AuthorPageData} с извлеченными данными или {@code null}, если автор не найден.
+     * @throws FetchException Если страницу не удалось загрузить или загрузка была прервана.
+     */
+    private AuthorPageData downloadAndExtract(String url) {
+        try (ProxyPool.Lease lease = proxyPool.acquire()) {
+            metrics.recordRateLimitWait(lease.acquireRate());
+            long startNanos = System.nanoTime();
+            try {
+                AuthorPageExtractor.Session session = extractor.newSession();
+                int statusCode = fetcher.fetchStreaming(lease.url(url), session);
+                metrics.recordFetch(startNanos);
+                if (!isSuccessful(lease, url, statusCode, session.isBlockPage())) {
+                    return null;
+                }
+                AuthorPageData data = session.finish();
+                log.debug("Страница успешно загружена и разобрана");
+                return data;
+            } catch (IOException e) {
+                lease.onFailure();
+                metrics.recordError("io");
+                log.warn("Ошибка при загрузке страницы {} через прокси {}: {}", url, lease.proxyName(), e.toString());
+                throw new FetchException("Ошибка при загрузке страницы " + url, e, true);
+            }
+        } catch (IllegalArgumentException e) {
+            metrics.recordError("invalid_url");
+            throw new FetchException("Некорректный URL " + url, e, false);
+        } catch (InterruptedException e) {
+            log.warn("Загрузка страницы была прервана: {}", url);
+            Thread.currentThread().interrupt();
+            throw new FetchException("Загрузка страницы была прервана: " + url, e, true);
         }
     }
 
     /**
-     * Извлекает данные об авторе из HTML контента страницы с использованием регулярных выражений.
+     * Проверяет результат загрузки и сообщает его пулу прокси и ограничителю частоты запросов прокси.
      *
-     * @param pageContent HTML контент страницы профиля автора.
-     * @return {@code Map<String, String>} с извлеченными данными об авторе.
-     */
-    private Map<String, String> extractData(String pageContent) {
-        Map<String, String> data = new HashMap<>();
-
-        // Регулярные выражения и их описания
-        Map<String, String> regexMap = new HashMap<>();
-        regexMap.put("<title>(.+?) - Анализ публикационной активности</title>",
-                "ФИО");
-        regexMap.put(">Число публикаций на elibrary\\.ru<\\/font><\\/td><td align=\"center\" class=\"midtext\"><font color=\"#000000\"><a[^>]*>(\\d+)<\\/a>",
-                "Число публикаций");
-        regexMap.put(">Индекс Хирша по всем публикациям на elibrary\\.ru<\\/font><\\/td><td align=\"center\" class=\"midtext\"><font color=\"#000000\">(\\d+)<\\/font>",
-                "Индекс Хирша");
-        regexMap.put(">Число публикаций автора, процитированных хотя бы один раз<\\/font><\\/td><td align=\"center\" class=\"midtext\"><font color=\"#000000\">(\\d+)[^<]+<\\/font>",
-                "Число цитирований");
-
-        for (Map.Entry<String, String> entry : regexMap.entrySet()) {
-            String regex = entry.getKey();
-            String fieldName = entry.getValue();
-
-            Pattern pattern = Pattern.compile(regex);
-            Matcher matcher = pattern.matcher(pageContent);
-
-            if (matcher.find()) {
-                data.put(fieldName, matcher.group(1).trim());
-                log.debug("Извлечено значение '{}': '{}'", fieldName, matcher.group(1).trim());
+     * @param lease      Аренда прокси, через который загружена страница.
+     * @param url        URL загруженной страницы.
+     * @param statusCode HTTP код ответа.
+     * @param blockPage  Является ли полученная страница страницей блокировки.
+     * @return {@code true}, если страница успешно загружена, {@code false}, если автор не найден.
+     * @throws FetchException Если сервер ограничивает запросы или вернул неожиданный код ответа.
+     */
+    private boolean isSuccessful(ProxyPool.Lease lease, String url, int statusCode, boolean blockPage) {
+        metrics.recordStatus(statusCode);
+        if (ElibraryParser.isNotFoundStatus(statusCode)) {
+            lease.onSuccess();
+            log.info("Сервер вернул код ответа: {}, автор по URL: {} не найден", statusCode, url);
+            return false;
+        }
+        if (statusCode != 200) {
+            log.warn("Сервер вернул код ответа: {} для URL: {} через прокси {}", statusCode, url, lease.proxyName());
+            boolean throttling = ElibraryParser.isThrottlingStatus(statusCode);
+            if (throttling) {
+                lease.onThrottle();
             } else {
-                log.warn("Не удалось найти '{}' по regex: '{}'", fieldName, regex);
-                data.put(fieldName, null);
+                lease.onFailure();
             }
+            throw new FetchException("Сервер вернул код ответа " + statusCode + " для URL " + url, statusCode, throttling);
         }
+        if (blockPage) {
+            log.warn("Получена страница блокировки для URL: {} через прокси {}", url, lease.proxyName());
+            metrics.recordBlockPage();
+            lease.onThrottle();
+            throw new FetchException("Получена страница блокировки для URL " + url, statusCode, true);
+        }
+        lease.onSuccess();
+        return true;
+    }
 
-        return data;
+    /**
+     * Сохраняет загруженную страницу в архив, если он задан. Ошибка записи в архив не прерывает получение автора.
+     *
+     * @param authorId    ID автора.
+     * @param pageContent HTML контент страницы.
+     */
+    private void archivePage(String authorId, String pageContent) {
+        if (archive == null) {
+            return;
+        }
+        try {
+            archive.put(Integer.parseInt(authorId), pageContent);
+        } catch (IOException | NumberFormatException e) {
+            log.error("Не удалось сохранить страницу автора {} в архив: {}", authorId, e.getMessage());
+        }
+    }
+
+    /**
+     * Закрывает архив страниц, если он задан.
+     */
+    @Override
+    public void close() {
+        if (archive != null) {
+            archive.close();
+        }
     }
-}
\ No newline at end of file
+}
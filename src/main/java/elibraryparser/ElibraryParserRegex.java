@@ -3,161 +3,203 @@ package elibraryparser;
 import com.microsoft.playwright.*;
 import lombok.extern.log4j.Log4j2;
 
-import java.util.*;
-import java.util.Random;
-import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Log4j2
 public class ElibraryParserRegex implements ElibraryParser {
 
-    private Playwright playwright;
-    private Browser browser;
-    private Page page;
-    private static final Integer MIN_DELAY = 2000;
-    private static final Integer MAX_DELAY = 3000;
     private static final String BASE_URL = "https://www.elibrary.ru/author_profile.asp?authorid=";
-    private static String webProxyUrl;
+    private static final int DEFAULT_POOL_SIZE = 1;
+    private static final int DEFAULT_PAGE_MAX_USES = 50;
+    private static final int DEFAULT_DEBUG_PORT = 0;
+    private final ProxyPool proxyPool;
+    private final BrowserPagePool pagePool;
+    private final ExecutorService tabExecutor;
+    private final PageArchive archive;
+    private final AuthorPageExtractor extractor = new AuthorPageExtractor();
+    private final ParserMetrics metrics = new ParserMetrics("browser");
 
     public ElibraryParserRegex() {
-        log.info("Инициализация ElibraryParserRegex без параметров");
-        try {
-            playwright = Playwright.create();
-            browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(true));
-            log.info("Playwright и Browser инициализированы");
-        } catch (Exception e) {
-            log.error("Ошибка при инициализации Playwright или Browser", e);
-        }
+        this(true, "");
     }
 
     public ElibraryParserRegex(boolean headless, String webProxyUrl) {
-        log.info("Инициализация ElibraryParserRegex с headless: {} и webProxyUrl: {}", headless, webProxyUrl);
-        ElibraryParserRegex.webProxyUrl = webProxyUrl;
-        playwright = Playwright.create();
-        browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(headless));
-        log.info("Playwright и Browser инициализированы");
+        this(headless, webProxyUrl, new RateLimiter());
+    }
+
+    public ElibraryParserRegex(boolean headless, String webProxyUrl, RateLimiter rateLimiter) {
+        this(webProxyUrl, rateLimiter, new BrowserPagePool(headless, DEFAULT_POOL_SIZE, DEFAULT_PAGE_MAX_USES, DEFAULT_DEBUG_PORT));
+    }
+
+    public ElibraryParserRegex(String webProxyUrl, RateLimiter rateLimiter, BrowserPagePool pagePool) {
+        this(webProxyUrl, rateLimiter, pagePool, null);
+    }
+
+    public ElibraryParserRegex(String webProxyUrl, RateLimiter rateLimiter, BrowserPagePool pagePool, PageArchive archive) {
+        this(ProxyPool.single(webProxyUrl, rateLimiter), pagePool, archive);
+    }
+
+    public ElibraryParserRegex(ProxyPool proxyPool, BrowserPagePool pagePool, PageArchive archive) {
+        log.info("Инициализация ElibraryParserRegex с пулом из {} прокси и пулом из {} вкладок, архив страниц: {}",
+                proxyPool.size(), pagePool.getSize(), archive != null);
+        this.proxyPool = proxyPool;
+        this.pagePool = pagePool;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.tabExecutor = Executors.newFixedThreadPool(pagePool.getSize(), runnable -> {
+            Thread thread = new Thread(runnable, "browser-tab-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.archive = archive;
     }
 
     @Override
     public Author getAuthor(int authorId) {
         log.info("Получение информации об авторе с ID: {}", authorId);
-        Map<String, String> authorData = scrapeAuthorData(String.valueOf(authorId));
-        if (authorData == null || authorData.containsValue(null)) {
+        AuthorPageData authorData = scrapeAuthorData(String.valueOf(authorId));
+        if (authorData == null || !authorData.isComplete()) {
             log.warn("Не удалось получить данные об авторе с ID: {}", authorId);
             return null;
         }
-        try {
-            String name = authorData.get("ФИО");
-            int publishesCount = Integer.parseInt(authorData.get("Число публикаций").replaceAll("[^0-9]", ""));
-            int citedPublishesCount = Integer.parseInt(authorData.get("Число цитирований").replaceAll("[^0-9]", ""));
-            int hirshIndex = Integer.parseInt(authorData.get("Индекс Хирша"));
-            int zeroCittPublishesCount = publishesCount - citedPublishesCount;
-            Author author = new Author(authorId, name, publishesCount, zeroCittPublishesCount, hirshIndex);
-            log.info("Информация об авторе {} успешно получена: {}", authorId, author);
-            return author;
-        } catch (NumberFormatException e) {
-            log.error("Ошибка при парсинге числовых значений для автора " + authorId + ": " + e.getMessage());
-            return null;
-        }
+        Author author = authorData.toAuthor(authorId);
+        log.info("Информация об авторе {} успешно получена: {}", authorId, author);
+        return author;
+    }
+
+    /**
+     * Асинхронно получает информацию об авторе. API Playwright синхронное, поэтому загрузка выполняется
+     * в пуле из стольких потоков, сколько вкладок в {@link BrowserPagePool}: ожидающие запросы стоят в очереди пула,
+     * а не занимают каждый по потоку. Отмена Future снимает запрос с очереди или прерывает загрузку.
+     *
+     * @param authorId ID автора на elibrary.ru.
+     * @return Future с объектом {@link Author} или {@code null}, если автор не найден.
+     */
+    @Override
+    public CompletableFuture<Author> getAuthorAsync(int authorId) {
+        CompletableFuture<Author> result = new CompletableFuture<>();
+        Future<?> task = tabExecutor.submit(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                result.complete(getAuthor(authorId));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((author, error) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
     }
 
-    public Map<String, String> scrapeAuthorData(String authorId) {
-        String url = webProxyUrl + BASE_URL + authorId;
+    public AuthorPageData scrapeAuthorData(String authorId) {
+        String url = BASE_URL + authorId;
         log.info("Загрузка страницы автора с ID: {} по URL: {}", authorId, url);
         String pageContent = downloadPage(url);
         if (pageContent != null) {
-            Map<String, String> data = extractData(pageContent);
+            archivePage(authorId, pageContent);
+            AuthorPageData data = extractor.extract(pageContent);
+            metrics.recordExtraction(data);
             log.debug("Данные автора {} успешно извлечены: {}", authorId, data);
             return data;
         } else {
-            log.warn("Не удалось загрузить страницу для автора с ID: {}", authorId);
+            log.info("Страница автора с ID: {} не получена", authorId);
             return null;
         }
     }
 
     protected String downloadPage(String url) {
+        BrowserPagePool.PooledPage pooledPage = null;
         try {
-            log.debug("Открытие новой страницы браузера");
-            page = browser.newPage(new Browser.NewPageOptions().setUserAgent(getRandomUserAgent()));
-
-            page.onResponse(response -> {
-                if (response.status() == 500) {
-                    log.error("Сервер вернул ошибку 500 для URL: {}", response.url());
-                    throw new PlaywrightException(String.format("Автор по URL: %s не найден", url));
+            pooledPage = pagePool.checkout();
+            Page page = pooledPage.page();
+
+            try (ProxyPool.Lease lease = proxyPool.acquire()) {
+                metrics.recordRateLimitWait(lease.acquireRate());
+                log.debug("Навигация к URL: {} через прокси {}", url, lease.proxyName());
+                long startNanos = System.nanoTime();
+                Response response;
+                try {
+                    response = page.navigate(lease.url(url));
+                } catch (PlaywrightException e) {
+                    lease.onFailure();
+                    throw e;
                 }
-            });
-
-            log.debug("Навигация к URL: {}", url);
-            page.navigate(url);
-            randomDelay(MIN_DELAY, MAX_DELAY);
-            String content = page.content();
-            log.debug("Страница успешно загружена");
-            return content;
-
+                metrics.recordFetch(startNanos);
+                if (response == null) {
+                    lease.onFailure();
+                    metrics.recordError("no_response");
+                    log.warn("Сервер не вернул ответ для URL: {} через прокси {}", url, lease.proxyName());
+                    throw new FetchException("Сервер не вернул ответ для URL " + url, 0, true);
+                }
+                int statusCode = response.status();
+                metrics.recordStatus(statusCode);
+                if (ElibraryParser.isNotFoundStatus(statusCode)) {
+                    lease.onSuccess();
+                    log.info("Сервер вернул ошибку 500, автор по URL: {} не найден", url);
+                    return null;
+                }
+                if (statusCode != 200) {
+                    log.warn("Сервер вернул код ответа: {} для URL: {} через прокси {}", statusCode, url, lease.proxyName());
+                    boolean throttling = ElibraryParser.isThrottlingStatus(statusCode);
+                    if (throttling) {
+                        lease.onThrottle();
+                    } else {
+                        lease.onFailure();
+                    }
+                    throw new FetchException("Сервер вернул код ответа " + statusCode + " для URL " + url, statusCode, throttling);
+                }
+                String content = page.content();
+                if (ElibraryParser.isBlockPage(content)) {
+                    log.warn("Получена страница блокировки для URL: {} через прокси {}", url, lease.proxyName());
+                    metrics.recordBlockPage();
+                    lease.onThrottle();
+                    throw new FetchException("Получена страница блокировки для URL " + url, 200, true);
+                }
+                lease.onSuccess();
+                log.debug("Страница успешно загружена");
+                return content;
+            }
         } catch (PlaywrightException e) {
-            log.error("Ошибка Playwright при загрузке страницы: " + e.getMessage());
-            return null;
+            metrics.recordError("playwright");
+            log.warn("Ошибка Playwright при загрузке страницы {}: {}", url, e.getMessage());
+            throw new FetchException("Ошибка Playwright при загрузке страницы " + url, e, true);
+        } catch (InterruptedException e) {
+            log.warn("Ожидание свободной вкладки браузера или прокси было прервано");
+            Thread.currentThread().interrupt();
+            throw new FetchException("Загрузка страницы была прервана: " + url, e, true);
         } finally {
-            if (page != null) {
-                log.debug("Закрытие страницы");
-                page.close();
+            if (pooledPage != null) {
+                pagePool.release(pooledPage);
             }
         }
     }
 
-    private Map<String, String> extractData(String pageContent) {
-        Map<String, String> data = new HashMap<>();
-
-        // Регулярные выражения и их описания
-        Map<String, String> regexMap = new HashMap<>();
-        regexMap.put("title>(.+?) - Анализ публикационной активности</title>", "ФИО");
-        regexMap.put(">Число публикаций на elibrary.ru<\\/font><\\/td><td align=\"center\" class=\"midtext\"><font color=\"#000000\"><a[^>]*>(\\d+)<\\/a>", "Число публикаций");
-        regexMap.put(">Индекс Хирша по всем публикациям на elibrary.ru<\\/font><\\/td><td align=\"center\" class=\"midtext\"><font color=\"#000000\">(\\d+)<\\/font>", "Индекс Хирша");
-        regexMap.put(">Число публикаций автора, процитированных хотя бы один раз<\\/font><\\/td><td align=\"center\" class=\"midtext\"><font color=\"#000000\">(\\d+)[^<]+<\\/font>", "Число цитирований");
-
-        for (Map.Entry<String, String> entry : regexMap.entrySet()) {
-            String regex = entry.getKey();
-            String fieldName = entry.getValue();
-
-            Pattern pattern = Pattern.compile(regex);
-            Matcher matcher = pattern.matcher(pageContent);
-
-            if (matcher.find()) {
-                data.put(fieldName, matcher.group(1).trim());
-                log.debug("Извлечено значение '{}': '{}' по regex: '{}'", fieldName, matcher.group(1).trim(), regex);
-            } else {
-                log.warn("Не удалось найти '{}' по regex: '{}'", fieldName, regex);
-                data.put(fieldName, null);
-            }
+    private void archivePage(String authorId, String pageContent) {
+        if (archive == null) {
+            return;
         }
-
-        return data;
-    }
-
-    private static void randomDelay(int min, int max) {
-        Random random = new Random();
-        int delay = random.nextInt(min, max);
-        log.debug("Применение случайной задержки: {} мс", delay);
         try {
-            TimeUnit.MILLISECONDS.sleep(delay);
-        } catch (InterruptedException e) {
-            log.warn("Задержка была прервана", e);
-            Thread.currentThread().interrupt();
+            archive.put(Integer.parseInt(authorId), pageContent);
+        } catch (IOException | NumberFormatException e) {
+            log.error("Не удалось сохранить страницу автора {} в архив: {}", authorId, e.getMessage());
         }
     }
 
-    private static String getRandomUserAgent() {
-        List<String> userAgents = Arrays.asList(
-                "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/123.0.0.0 Safari/537.36",
-                "Mozilla/5.0 (Windows NT 10.0; Win64; x64; rv:123.0) Gecko/20100101 Firefox/123.0",
-                "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.2 Safari/605.1.15",
-                "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/123.0.0.0 Safari/537.36",
-                "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Edge/123.0.2420.53 Safari/537.36"
-        );
-        Random random = new Random();
-        String userAgent = userAgents.get(random.nextInt(userAgents.size()));
-        log.debug("Выбран случайный User-Agent: {}", userAgent);
-        return userAgent;
+    @Override
+    public void close() {
+        tabExecutor.shutdownNow();
+        pagePool.close();
+        if (archive != null) {
+            archive.close();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,208 @@
+package elibraryparser;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ *  Локальная замена elibrary.ru и веб-прокси для нагрузочного тестирования.
+ *  Сервер отвечает на любой путь, содержащий {@code authorid=<ID>}, поэтому его адрес с префиксом вида
+ *  {@code http://127.0.0.1:8089/?url=} подставляется в параметр "web_proxy" без изменения парсеров.
+ *  <p>
+ *  Для ID, у которого в каталоге записанных страниц есть файл {@code <ID>.html}, отдается этот файл,
+ *  иначе формируется страница профиля с разметкой elibrary.ru заданного размера.
+ *  Задержка ответа имеет логнормальное распределение с заданными медианой и 99-м перцентилем,
+ *  с заданными вероятностями сервер отвечает кодом 500 (автор не найден), страницей блокировки или кодом 429.
+ */
+@Log4j2
+public class ElibraryStubServer implements AutoCloseable {
+    private static final Pattern AUTHOR_ID_PATTERN = Pattern.compile("authorid=(\\d+)");
+    private static final double Z_99 = 2.326;
+    private static final String TABLE_CELL = "</font></td><td align=\"center\" class=\"midtext\"><font color=\"#000000\">";
+    private static final String FILLER_ROW = "<tr valign=\"middle\" bgcolor=\"#f5f5f5\"><td align=\"center\"><font color=\"#00008f\">1.</font></td>"
+            + "<td><a href=\"/item.asp?id=12345678\"><b>Публикация о методах анализа данных</b></a><br>"
+            + "<i>Иванов И.И., Петров П.П.</i><br>Вестник университета. 2020. № 1. С. 1-10.</td><td align=\"center\">0</td></tr>\n";
+    private static final int FILLER_ROW_BYTES = FILLER_ROW.getBytes(StandardCharsets.UTF_8).length;
+    private static final String BLOCK_PAGE = "<html><head><title>Доступ к сайту ограничен</title></head>"
+            + "<body><div id=\"ip_restricted\">Доступ к сайту ограничен</div></body></html>";
+
+    private final Settings settings;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final double latencyMu;
+    private final double latencySigma;
+    private final LongAdder pages = new LongAdder();
+    private final LongAdder notFound = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+
+    /**
+     *  Параметры заглушки.
+     *
+     *  @param latencyMedianMillis Медиана задержки ответа в миллисекундах; 0 отключает задержку.
+     *  @param latencyP99Millis    99-й перцентиль задержки ответа в миллисекундах, не меньше медианы.
+     *  @param notFoundRate        Доля ответов с кодом 500, которым elibrary.ru отвечает для несуществующего автора.
+     *  @param blockRate           Доля ответов со страницей блокировки.
+     *  @param throttleRate        Доля ответов с кодом 429.
+     *  @param pageSizeKb          Примерный размер формируемой страницы в килобайтах.
+     *  @param pagesDir            Каталог записанных страниц {@code <ID>.html} или {@code null}.
+     */
+    public record Settings(int latencyMedianMillis, int latencyP99Millis, double notFoundRate, double blockRate,
+                           double throttleRate, int pageSizeKb, Path pagesDir) {
+    }
+
+    /**
+     * Создает сервер на локальном адресе. Сервер начинает принимать запросы после вызова {@link #start()}.
+     *
+     * @param port     Порт; 0 выбирает свободный порт.
+     * @param settings Параметры заглушки.
+     * @throws IOException Если порт не удалось открыть.
+     */
+    public ElibraryStubServer(int port, Settings settings) throws IOException {
+        this.settings = settings;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-server-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.latencyMu = settings.latencyMedianMillis() > 0 ? Math.log(settings.latencyMedianMillis()) : 0;
+        this.latencySigma = settings.latencyMedianMillis() > 0
+                ? Math.max(0, Math.log(Math.max(settings.latencyP99Millis(), settings.latencyMedianMillis())) - latencyMu) / Z_99
+                : 0;
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Запускает прием запросов.
+     */
+    public void start() {
+        server.start();
+        log.info("Заглушка elibrary.ru запущена: {}, параметры: {}", getProxyUrl(), settings);
+    }
+
+    /**
+     * Возвращает префикс, который подставляется в параметр "web_proxy".
+     *
+     * @return Адрес сервера вида {@code http://127.0.0.1:<port>/?url=}.
+     */
+    public String getProxyUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/?url=";
+    }
+
+    /**
+     * Возвращает строку со счетчиками ответов для логов.
+     *
+     * @return Количество страниц, ответов 500, страниц блокировки и ответов 429.
+     */
+    public String getStats() {
+        return String.format("страниц: %d, не найдено (500): %d, блокировок: %d, 429: %d",
+                pages.sum(), notFound.sum(), blocked.sum(), throttled.sum());
+    }
+
+    /**
+     * Останавливает сервер.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        log.info("Заглушка elibrary.ru остановлена, {}", getStats());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Matcher matcher = AUTHOR_ID_PATTERN.matcher(exchange.getRequestURI().toString());
+            if (!matcher.find()) {
+                send(exchange, 400, "authorid не указан");
+                return;
+            }
+            int authorId = Integer.parseInt(matcher.group(1));
+            sleepLatency();
+            double outcome = ThreadLocalRandom.current().nextDouble();
+            double notFoundBound = settings.notFoundRate();
+            double blockBound = notFoundBound + settings.blockRate();
+            double throttleBound = blockBound + settings.throttleRate();
+            if (outcome < notFoundBound) {
+                notFound.increment();
+                send(exchange, 500, "<html><body>Internal Server Error</body></html>");
+            } else if (outcome < blockBound) {
+                blocked.increment();
+                send(exchange, 200, BLOCK_PAGE);
+            } else if (outcome < throttleBound) {
+                throttled.increment();
+                send(exchange, 429, "Too Many Requests");
+            } else {
+                pages.increment();
+                send(exchange, 200, authorPage(authorId));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Ошибка заглушки при обработке запроса {}", exchange.getRequestURI(), e);
+        }
+    }
+
+    private void sleepLatency() throws InterruptedException {
+        if (settings.latencyMedianMillis() <= 0) {
+            return;
+        }
+        double millis = Math.exp(latencyMu + latencySigma * ThreadLocalRandom.current().nextGaussian());
+        TimeUnit.MICROSECONDS.sleep((long) (millis * 1000));
+    }
+
+    private String authorPage(int authorId) throws IOException {
+        if (settings.pagesDir() != null) {
+            Path recorded = settings.pagesDir().resolve(authorId + ".html");
+            if (Files.isRegularFile(recorded)) {
+                return Files.readString(recorded);
+            }
+        }
+        int publishes = authorId % 500 + 1;
+        int cited = publishes * 3 / 5;
+        int hirshIndex = (int) Math.sqrt(cited);
+        int fillerRows = Math.max(0, settings.pageSizeKb() * 1024 / FILLER_ROW_BYTES);
+        StringBuilder page = new StringBuilder(settings.pageSizeKb() * 1024 + 2048);
+        page.append("<html><head><meta http-equiv=\"Content-Type\" content=\"text/html; charset=utf-8\">")
+                .append("<title>Автор ").append(authorId).append(" - Анализ публикационной активности</title></head><body><table>\n");
+        page.append(FILLER_ROW.repeat(fillerRows / 4));
+        page.append("<tr><td class=\"midtext\"><font color=\"#000000\">Число публикаций на elibrary.ru").append(TABLE_CELL)
+                .append("<a href=\"author_items.asp?authorid=").append(authorId).append("\">").append(publishes).append("</a></font></td></tr>\n");
+        page.append("<tr><td class=\"midtext\"><font color=\"#000000\">Число публикаций автора, процитированных хотя бы один раз").append(TABLE_CELL)
+                .append(cited).append(" (60%)</font></td></tr>\n");
+        page.append("<tr><td class=\"midtext\"><font color=\"#000000\">Индекс Хирша по всем публикациям на elibrary.ru").append(TABLE_CELL)
+                .append(hirshIndex).append("</font></td></tr>\n");
+        page.append(FILLER_ROW.repeat(fillerRows - fillerRows / 4));
+        page.append("</table></body></html>\n");
+        return page.toString();
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        } catch (IOException e) {
+            log.debug("Клиент закрыл соединение до конца ответа: {}", e.getMessage());
+        }
+    }
+}
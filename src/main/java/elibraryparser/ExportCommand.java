@@ -0,0 +1,58 @@
+package elibraryparser;
+
+import lombok.extern.log4j.Log4j2;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+
+/**
+ *  Подкоманда {@code export}: выгружает уже сохраненных в базе данных авторов в файл без обращения к сети.
+ */
+@Log4j2
+@Command(name = "export", mixinStandardHelpOptions = true, description = "Выгружает сохраненных авторов из базы данных в CSV, JSONL или Markdown")
+public class ExportCommand implements Callable<Integer> {
+
+    @Option(names = {"-o", "--output"}, required = true, description = "Файл выгрузки")
+    private Path output;
+
+    @Option(names = {"-f", "--format"}, description = "Формат выгрузки: ${COMPLETION-CANDIDATES} (по умолчанию определяется по расширению файла, иначе CSV)")
+    private AuthorsExporter.Format format;
+
+    @Option(names = "--min-id", description = "Минимальный ID автора")
+    private int minId = Integer.MIN_VALUE;
+
+    @Option(names = "--max-id", description = "Максимальный ID автора")
+    private int maxId = Integer.MAX_VALUE;
+
+    @Option(names = "--min-hirsh", description = "Минимальный индекс Хирша")
+    private int minHirshIndex = Integer.MIN_VALUE;
+
+    /**
+     *  Выполняет выгрузку.
+     *  @return 0 при успешной выгрузке, 1, если авторов не удалось прочитать из базы данных.
+     *  @throws Exception если файл не удалось записать.
+     */
+    @Override
+    public Integer call() throws Exception {
+        AuthorsExporter.Format outputFormat = format != null ? format : formatOf(output);
+        DatabaseManager.AuthorFilter filter = new DatabaseManager.AuthorFilter(minId, maxId, minHirshIndex);
+        try (DatabaseManager database = new DatabaseManager()) {
+            long count = new AuthorsExporter(database).export(filter, outputFormat, output);
+            return count < 0 ? 1 : 0;
+        }
+    }
+
+    private static AuthorsExporter.Format formatOf(Path path) {
+        String fileName = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (fileName.endsWith(".jsonl") || fileName.endsWith(".ndjson")) {
+            return AuthorsExporter.Format.JSONL;
+        }
+        if (fileName.endsWith(".md")) {
+            return AuthorsExporter.Format.MD;
+        }
+        return AuthorsExporter.Format.CSV;
+    }
+}
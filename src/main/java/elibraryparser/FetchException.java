@@ -0,0 +1,58 @@
+package elibraryparser;
+
+/**
+ *  Ошибка загрузки страницы автора, после которой неизвестно, существует ли автор.
+ *  Отсутствие автора ошибкой не считается: в этом случае парсер возвращает {@code null}.
+ *  Временные ошибки (таймаут, разрыв соединения, ответы 429, 502, 503, 504, страница блокировки)
+ *  помечаются как повторяемые, и запрос имеет смысл выполнить еще раз позже.
+ */
+public class FetchException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final boolean retryable;
+    private final int statusCode;
+
+    /**
+     * Создает исключение для ответа сервера с неожиданным кодом или страницей блокировки.
+     *
+     * @param message    Описание ошибки.
+     * @param statusCode HTTP код ответа.
+     * @param retryable  Является ли ошибка временной.
+     */
+    public FetchException(String message, int statusCode, boolean retryable) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryable = retryable;
+    }
+
+    /**
+     * Создает исключение для ошибки, после которой ответ сервера не был получен.
+     *
+     * @param message   Описание ошибки.
+     * @param cause     Исходное исключение.
+     * @param retryable Является ли ошибка временной.
+     */
+    public FetchException(String message, Throwable cause, boolean retryable) {
+        super(message, cause);
+        this.statusCode = 0;
+        this.retryable = retryable;
+    }
+
+    /**
+     * Проверяет, имеет ли смысл повторить запрос.
+     *
+     * @return {@code true} для временных ошибок.
+     */
+    public boolean isRetryable() {
+        return retryable;
+    }
+
+    /**
+     * Возвращает HTTP код ответа.
+     *
+     * @return Код ответа или 0, если ответ не был получен.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -3,9 +3,12 @@ package elibraryparser;
 import lombok.extern.log4j.Log4j2;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -16,44 +19,117 @@ import java.util.stream.Collectors;
 @Log4j2
 public class FileService {
 
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_LOGGED_TOKEN_LENGTH = 32;
+
     /**
      * Считывает идентификаторы авторов из файла.
      *
-     * @param filePath Путь к файлу, содержащему идентификаторы авторов (каждый идентификатор на новой строке или через запятую).
+     * @param filePath Путь к файлу, содержащему идентификаторы авторов (через запятую, пробелы или с новой строки).
      * @return Набор уникальных идентификаторов авторов.
      * @throws IOException Если произошла ошибка при чтении файла.
+     * @see #readAuthorIds(Path)
      */
     public Set<Integer> getAuthorIdsFromFile(Path filePath) throws IOException {
+        return readAuthorIds(filePath).toSet();
+    }
+
+    /**
+     * Потоково считывает идентификаторы авторов из файла в компактный набор.
+     * Файл читается через канал блоками по {@value #READ_BUFFER_SIZE} байт и целиком в память не загружается,
+     * а идентификаторы сразу добавляются в набор {@link AuthorIdSet} из битовых карт, поэтому объем занятой памяти
+     * не зависит от количества строк и повторов в файле.
+     *
+     * @param filePath Путь к файлу, содержащему идентификаторы авторов (через запятую, пробелы или с новой строки).
+     * @return Набор уникальных идентификаторов авторов. Некорректные идентификаторы пропускаются.
+     * @throws IOException Если произошла ошибка при чтении файла.
+     */
+    public AuthorIdSet readAuthorIds(Path filePath) throws IOException {
         log.info("Чтение ID авторов из файла: {}", filePath);
-        String fileContent = Files.readString(filePath);
-        Set<Integer> authorIds = parseAuthorIds(fileContent);
-        log.info("Прочитано {} ID авторов из файла: {}", authorIds.size(), filePath);
+        IdTokenizer tokenizer = new IdTokenizer();
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    tokenizer.accept(buffer.get() & 0xFF);
+                }
+                buffer.clear();
+            }
+        }
+        AuthorIdSet authorIds = tokenizer.finish();
+        log.info("Прочитано {} ID авторов из файла: {}, пропущено некорректных: {}", authorIds.size(), filePath, tokenizer.invalidCount);
         return authorIds;
     }
 
     /**
-     * Парсит строку с идентификаторами авторов, разделенными запятыми.
+     * Парсит строку с идентификаторами авторов, разделенными запятыми, пробелами или переводами строк.
      *
      * @param text Строка с идентификаторами авторов.
-     * @return Набор уникальных идентификаторов авторов. Идентификаторы, которые не являются числами, игнорируются.
+     * @return Набор уникальных идентификаторов авторов. Идентификаторы, которые не являются положительными числами, игнорируются.
      */
     public Set<Integer> parseAuthorIds(String text) {
-        log.debug("Поиск authorId в тексте: {}", text);
-        return Arrays.stream(text.split(","))
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .map(s -> {
-                    try {
-                        int id = Integer.parseInt(s);
-                        log.debug("Успешно спарсен ID автора: {}", id);
-                        return id;
-                    } catch (NumberFormatException e) {
-                        log.error("Некорректный ID автора: {}", s);
-                        return null;
-                    }
-                })
-                .filter(java.util.Objects::nonNull)
-                .collect(Collectors.toSet());
+        log.debug("Поиск authorId в тексте длиной {} символов", text.length());
+        IdTokenizer tokenizer = new IdTokenizer();
+        for (int i = 0; i < text.length(); i++) {
+            tokenizer.accept(text.charAt(i));
+        }
+        return tokenizer.finish().toSet();
+    }
+
+    /**
+     *  Разбирает поток символов на идентификаторы авторов без создания промежуточных строк.
+     *  Разделителями считаются запятая и пробельные символы; метка порядка байтов UTF-8 в начале пропускается.
+     *  Токен, содержащий что-либо кроме цифр, выходящий за пределы {@code int} или равный нулю, считается некорректным.
+     */
+    private static final class IdTokenizer {
+        private final AuthorIdSet authorIds = new AuthorIdSet();
+        private final StringBuilder invalidToken = new StringBuilder();
+        private long value;
+        private boolean inToken;
+        private boolean invalid;
+        private int position;
+        private int invalidCount;
+
+        private void accept(int ch) {
+            if (position++ < 3 && (ch == 0xEF || ch == 0xBB || ch == 0xBF || ch == 0xFEFF) && !inToken) {
+                return;
+            }
+            if (ch == ',' || Character.isWhitespace(ch)) {
+                endToken();
+                return;
+            }
+            inToken = true;
+            if (invalidToken.length() < MAX_LOGGED_TOKEN_LENGTH) {
+                invalidToken.append(ch < 0x80 || ch > 0xFF ? (char) ch : '?');
+            }
+            if (ch >= '0' && ch <= '9' && !invalid) {
+                value = value * 10 + (ch - '0');
+                invalid = value > Integer.MAX_VALUE;
+            } else {
+                invalid = true;
+            }
+        }
+
+        private void endToken() {
+            if (inToken) {
+                if (invalid || value == 0) {
+                    invalidCount++;
+                    log.error("Некорректный ID автора: {}", invalidToken);
+                } else {
+                    authorIds.add((int) value);
+                }
+            }
+            value = 0;
+            inToken = false;
+            invalid = false;
+            invalidToken.setLength(0);
+        }
+
+        private AuthorIdSet finish() {
+            endToken();
+            return authorIds;
+        }
     }
 
     /**
@@ -62,32 +138,16 @@ public class FileService {
      * @param authors  Набор объектов {@link Author}, содержащих информацию об авторах.
      * @param filePath Путь к файлу для сохранения данных.
      * @throws IOException Если произошла ошибка при записи в файл.
+     * @see MarkdownReportWriter
      */
     public void saveAuthorsToMarkdown(Set<Author> authors, Path filePath) throws IOException {
         log.info("Сохранение информации об авторах в Markdown файл: {}", filePath);
-        List<String> markdownLines = generateMarkdownTable(authors);
-        Files.write(filePath, markdownLines);
-        log.info("Информация о {} авторах сохранена в файл: {}", authors.size(), filePath);
-    }
-
-    /**
-     * Генерирует Markdown таблицу для набора авторов.
-     *
-     * @param authors Набор объектов {@link Author}, для которых необходимо сгенерировать таблицу.
-     * @return Список строк, представляющих Markdown таблицу.
-     */
-    private List<String> generateMarkdownTable(Set<Author> authors) {
-        log.debug("Генерация Markdown таблицы для {} авторов", authors.size());
-        StringBuilder tableBuilder = new StringBuilder();
-        tableBuilder.append("|ID|ФИО|Статей|Статей без цитирования|Индекс Хирша|\n");
-        tableBuilder.append("|---|---|---|---|---|\n");
-
-        for (Author author : authors) {
-            tableBuilder.append(String.format("|%d|%s|%d|%d|%d|\n",
-                    author.authorId(), author.name(), author.publishesCount(), author.zeroCittPublishesCount(), author.hirshIndex()));
+        try (MarkdownReportWriter writer = new MarkdownReportWriter(filePath)) {
+            for (Author author : authors) {
+                writer.write(author);
+            }
         }
-        log.debug("Markdown таблица сгенерирована:\n{}", tableBuilder);
-        return List.of(tableBuilder.toString());
+        log.info("Информация о {} авторах сохранена в файл: {}", authors.size(), filePath);
     }
 
     /**
@@ -123,4 +183,46 @@ public class FileService {
             return Collections.emptyMap();
         }
     }
+
+    /**
+     * Возвращает целочисленный параметр конфигурации.
+     *
+     * @param config       Карта параметров конфигурации.
+     * @param key          Имя параметра.
+     * @param defaultValue Значение по умолчанию, если параметр отсутствует или не является числом.
+     * @return Значение параметра или {@code defaultValue}.
+     */
+    public static int getIntParameter(Map<String, String> config, String key, int defaultValue) {
+        String value = config.get(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Некорректное значение параметра '{}': '{}', используется значение по умолчанию {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Возвращает дробный параметр конфигурации.
+     *
+     * @param config       Карта параметров конфигурации.
+     * @param key          Имя параметра.
+     * @param defaultValue Значение по умолчанию, если параметр отсутствует или не является числом.
+     * @return Значение параметра или {@code defaultValue}.
+     */
+    public static double getDoubleParameter(Map<String, String> config, String key, double defaultValue) {
+        String value = config.get(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Некорректное значение параметра '{}': '{}', используется значение по умолчанию {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
 }
\ No newline at end of file
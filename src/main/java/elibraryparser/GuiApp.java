@@ -1,12 +1,21 @@
 package elibraryparser;
 
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
@@ -14,11 +23,24 @@ import lombok.extern.log4j.Log4j2;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  *  Основной класс JavaFX приложения для парсинга данных об авторах с eLibrary.ru.
  *  Этот класс управляет пользовательским интерфейсом, загрузкой данных об авторах, их обработкой и сохранением результатов.
+ *  Полученные авторы появляются в таблице по мере обработки: фоновый поток складывает результаты в очередь,
+ *  а поток JavaFX забирает их пачкой, причем в очереди событий JavaFX находится не более одного такого обновления.
+ *  Обработку можно отменить, выполняющиеся запросы при этом прерываются, а полученные авторы можно сохранить.
+ *  Новую обработку можно начать только после того, как фоновый поток отмененной обработки завершился;
+ *  результаты помечаются номером запуска, и опоздавшие результаты предыдущего запуска в таблицу не попадают.
  */
 @Log4j2
 public class GuiApp extends Application {
@@ -28,8 +50,29 @@ public class GuiApp extends Application {
     private Set<Integer> authorIds;
     private Set<Author> authors;
     private Button processAuthorsButton;
+    private Button cancelButton;
     private Button chooseSaveFileButton;
     private Label statusLabel;
+    private Label progressLabel;
+    private ProgressBar progressBar;
+    private final ObservableList<Author> rows = FXCollections.observableArrayList();
+    private final Queue<PendingRow> pendingRows = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger runGeneration = new AtomicInteger();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final AtomicInteger processedCount = new AtomicInteger();
+    private Task<Set<Author>> fetchAuthorsTask;
+    private boolean workerRunning;
+    private int totalCount;
+    private long startNanos;
+
+    /**
+     *  Результат обработки, ожидающий переноса в таблицу.
+     *
+     *  @param generation Номер запуска обработки, к которому относится результат.
+     *  @param author     Полученный автор.
+     */
+    private record PendingRow(int generation, Author author) {
+    }
 
     /**
      *  Главный метод приложения.
@@ -55,10 +98,15 @@ public class GuiApp extends Application {
 
         Button loadAuthorsButton = new Button("Загрузить ID авторов из файла");
         processAuthorsButton = new Button("Начать обработку авторов");
+        cancelButton = new Button("Отменить");
         chooseSaveFileButton = new Button("Выбрать файл для сохранения результатов");
         statusLabel = new Label("");
+        progressLabel = new Label("");
+        progressBar = new ProgressBar(0);
+        progressBar.setMaxWidth(Double.MAX_VALUE);
 
         processAuthorsButton.setDisable(true);
+        cancelButton.setDisable(true);
         chooseSaveFileButton.setDisable(true);
 
         loadAuthorsButton.setOnAction(event -> {
@@ -70,7 +118,7 @@ public class GuiApp extends Application {
                 try {
                     authorIds = fileService.getAuthorIdsFromFile(selectedFile.toPath());
                     statusLabel.setText("ID авторов загружены. Нажмите 'Начать обработку авторов'.");
-                    processAuthorsButton.setDisable(false);
+                    processAuthorsButton.setDisable(isProcessing());
                     log.info("Файл с ID авторов выбран: {}", selectedFile.getAbsolutePath());
                 } catch (IOException e) {
                     statusLabel.setText("Ошибка чтения файла: " + e.getMessage());
@@ -90,29 +138,8 @@ public class GuiApp extends Application {
             if (authorIds != null && !authorIds.isEmpty()) {
                 statusLabel.setText("Идет обработка авторов...");
                 processAuthorsButton.setDisable(true);
-
-                Task<Set<Author>> fetchAuthorsTask = new Task<>() {
-                    @Override
-                    protected Set<Author> call() throws Exception {
-                        return authorsManager.getAuthors(authorIds);
-                    }
-                };
-
-                fetchAuthorsTask.setOnSucceeded(e -> {
-                    authors = fetchAuthorsTask.getValue();
-                    statusLabel.setText("Обработка авторов завершена. Готов к сохранению.");
-                    chooseSaveFileButton.setDisable(false);
-                    log.info("Обработка авторов завершена, получено {} авторов", authors.size());
-                });
-
-                fetchAuthorsTask.setOnFailed(e -> {
-                    statusLabel.setText("Ошибка при обработке авторов: " + fetchAuthorsTask.getException().getMessage());
-                    chooseSaveFileButton.setDisable(true);
-                    processAuthorsButton.setDisable(false);
-                    log.error("Ошибка при обработке авторов", fetchAuthorsTask.getException());
-                });
-
-                new Thread(fetchAuthorsTask).start();
+                cancelButton.setDisable(false);
+                startProcessing();
             } else {
                 statusLabel.setText("Сначала загрузите ID авторов.");
                 log.warn("Попытка обработки авторов без загруженных ID");
@@ -147,24 +174,211 @@ public class GuiApp extends Application {
             }
         });
 
+        cancelButton.setOnAction(event -> {
+            log.info("Нажата кнопка 'Отменить'");
+            if (isProcessing()) {
+                cancelButton.setDisable(true);
+                statusLabel.setText("Отмена обработки...");
+                fetchAuthorsTask.cancel();
+            }
+        });
+
+        TableView<Author> table = createAuthorsTable();
+        HBox processButtons = new HBox(10, processAuthorsButton, cancelButton);
+        processButtons.setAlignment(Pos.CENTER);
+
         VBox layout = new VBox(10);
         layout.setAlignment(Pos.CENTER);
         layout.setPadding(new Insets(20));
-        layout.getChildren().addAll(loadAuthorsButton, processAuthorsButton, chooseSaveFileButton, statusLabel);
+        layout.getChildren().addAll(loadAuthorsButton, processButtons, progressBar, progressLabel, table,
+                chooseSaveFileButton, statusLabel);
+        VBox.setVgrow(table, Priority.ALWAYS);
 
-        Scene scene = new Scene(layout, 450, 250);
+        Scene scene = new Scene(layout, 800, 600);
         primaryStage.setScene(scene);
         primaryStage.show();
         log.info("Отображение главного окна приложения");
     }
 
     /**
-     *  Выполняет действия при остановке приложения.
+     *  Создает таблицу полученных авторов. Таблица отображает только видимые строки,
+     *  поэтому добавление тысяч авторов не замедляет интерфейс.
+     *
+     *  @return Таблица, связанная со списком полученных авторов.
+     */
+    private TableView<Author> createAuthorsTable() {
+        TableView<Author> table = new TableView<>(rows);
+        table.setPlaceholder(new Label("Полученные авторы появятся здесь по мере обработки"));
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        table.getColumns().add(column("ID", Author::authorId));
+        table.getColumns().add(column("ФИО", Author::name));
+        table.getColumns().add(column("Публикации", Author::publishesCount));
+        table.getColumns().add(column("Без цитирований", Author::zeroCittPublishesCount));
+        table.getColumns().add(column("Индекс Хирша", Author::hirshIndex));
+        return table;
+    }
+
+    private static <T> TableColumn<Author, T> column(String title, Function<Author, T> value) {
+        TableColumn<Author, T> column = new TableColumn<>(title);
+        column.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(value.apply(cell.getValue())));
+        return column;
+    }
+
+    /**
+     *  Запускает обработку загруженных ID авторов в фоновом потоке.
+     *  Каждый полученный автор передается в таблицу через {@link #publish(int, Author)},
+     *  по завершении, ошибке или отмене таблица и счетчики обновляются в последний раз.
+     *  {@link Task#cancel()} сообщает об отмене сразу, пока фоновый поток еще отменяет запросы,
+     *  поэтому при отмене интерфейс разблокируется только после возврата из фонового потока.
+     */
+    private void startProcessing() {
+        int generation = runGeneration.incrementAndGet();
+        rows.clear();
+        pendingRows.clear();
+        processedCount.set(0);
+        totalCount = authorIds.size();
+        startNanos = System.nanoTime();
+        progressBar.setProgress(0);
+        progressLabel.setText("");
+
+        Set<Integer> ids = authorIds;
+        workerRunning = true;
+        Task<Set<Author>> task = new Task<>() {
+            @Override
+            protected Set<Author> call() {
+                try {
+                    return authorsManager.getAuthors(ids, (authorId, author, outcome) -> publish(generation, author));
+                } finally {
+                    // Отмену завершает то из двух событий потока JavaFX, которое придет вторым
+                    Platform.runLater(() -> {
+                        workerRunning = false;
+                        if (isCancelled()) {
+                            finishCancelled();
+                        }
+                    });
+                }
+            }
+        };
+        fetchAuthorsTask = task;
+
+        task.setOnSucceeded(e -> {
+            drainPendingRows();
+            authors = task.getValue();
+            finishProcessing("Обработка авторов завершена. Готов к сохранению.");
+            log.info("Обработка авторов завершена, получено {} авторов", authors.size());
+        });
+
+        task.setOnCancelled(e -> {
+            if (!workerRunning) {
+                finishCancelled();
+            } else {
+                statusLabel.setText("Отмена обработки, ожидание завершения запросов...");
+            }
+        });
+
+        task.setOnFailed(e -> {
+            drainPendingRows();
+            authors = null;
+            statusLabel.setText("Ошибка при обработке авторов: " + task.getException().getMessage());
+            cancelButton.setDisable(true);
+            chooseSaveFileButton.setDisable(true);
+            processAuthorsButton.setDisable(false);
+            log.error("Ошибка при обработке авторов", task.getException());
+        });
+
+        Thread thread = new Thread(task, "authors-fetch");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     *  Проверяет, выполняется ли обработка. После отмены обработка считается выполняющейся,
+     *  пока фоновый поток не вернулся из {@link AuthorsManager#getAuthors(Set, AuthorsManager.FetchListener)}.
+     *
+     *  @return {@code true}, если фоновый поток обработки еще работает.
+     */
+    private boolean isProcessing() {
+        return workerRunning;
+    }
+
+    private void finishCancelled() {
+        drainPendingRows();
+        authors = new HashSet<>(rows);
+        finishProcessing("Обработка отменена, получено " + authors.size() + " авторов. Их можно сохранить.");
+        log.info("Обработка авторов отменена, получено {} авторов из {}", authors.size(), totalCount);
+    }
+
+    private void finishProcessing(String status) {
+        statusLabel.setText(status);
+        cancelButton.setDisable(true);
+        processAuthorsButton.setDisable(false);
+        chooseSaveFileButton.setDisable(authors == null || authors.isEmpty());
+    }
+
+    /**
+     *  Принимает результат обработки одного ID из фонового потока. Результаты копятся в очереди,
+     *  а обновление таблицы ставится в очередь событий JavaFX, только если оно еще не запланировано.
+     *  Результаты завершенного или отмененного запуска, пришедшие после начала следующего, отбрасываются.
+     *
+     *  @param generation Номер запуска обработки.
+     *  @param author     Полученный автор или {@code null}, если данные получить не удалось.
+     */
+    private void publish(int generation, Author author) {
+        if (generation != runGeneration.get()) {
+            return;
+        }
+        processedCount.incrementAndGet();
+        if (author != null) {
+            pendingRows.add(new PendingRow(generation, author));
+        }
+        if (drainScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::drainPendingRows);
+        }
+    }
+
+    /**
+     *  Переносит накопленных авторов в таблицу одним изменением списка и обновляет прогресс,
+     *  пропускную способность и оценку оставшегося времени. Выполняется в потоке JavaFX.
+     */
+    private void drainPendingRows() {
+        drainScheduled.set(false);
+        int generation = runGeneration.get();
+        List<Author> batch = new ArrayList<>();
+        PendingRow row;
+        while ((row = pendingRows.poll()) != null) {
+            if (row.generation() == generation) {
+                batch.add(row.author());
+            }
+        }
+        if (!batch.isEmpty()) {
+            rows.addAll(batch);
+        }
+        int processed = processedCount.get();
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        double rate = seconds > 0 ? processed / seconds : 0;
+        progressBar.setProgress(totalCount > 0 ? (double) processed / totalCount : 0);
+        String eta = rate > 0 && processed < totalCount ? formatDuration((totalCount - processed) / rate) : "-";
+        progressLabel.setText(String.format("Обработано %d из %d, найдено %d, %.1f авторов/с, осталось %s",
+                processed, totalCount, rows.size(), rate, eta));
+    }
+
+    private static String formatDuration(double seconds) {
+        long total = Math.round(seconds);
+        return String.format("%d:%02d:%02d", total / 3600, total / 60 % 60, total % 60);
+    }
+
+    /**
+     *  Выполняет действия при остановке приложения: отменяет обработку, если она выполняется,
+     *  и освобождает ресурсы {@link AuthorsManager}.
      *
      *  @throws Exception Если во время остановки приложения произошла ошибка.
      */
     @Override
     public void stop() throws Exception {
+        if (isProcessing()) {
+            fetchAuthorsTask.cancel();
+        }
+        authorsManager.close();
         super.stop();
         log.info("Приложение остановлено");
     }
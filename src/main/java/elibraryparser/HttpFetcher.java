@@ -0,0 +1,191 @@
+package elibraryparser;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ *  Загрузчик страниц на основе долгоживущего {@link HttpClient}.
+ *  Клиент переиспользует соединения (keep-alive), использует HTTP/2, если его поддерживает прокси,
+ *  запрашивает сжатые ответы gzip/deflate и ограничивает время подключения и ожидания ответа.
+ *  Экземпляр потокобезопасен; асинхронный метод {@link #fetchAsync(String)} позволяет держать
+ *  много запросов в полете поверх небольшого числа соединений, а {@link #fetchStreaming(String, AuthorPageExtractor.Session)}
+ *  разбирает ответ по мере получения и прекращает загрузку, как только найдены все поля.
+ */
+@Log4j2
+public class HttpFetcher {
+    private static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(60);
+    private static final String ACCEPT_ENCODING = "gzip, deflate";
+    private static final int STREAM_BUFFER_SIZE = 8192;
+    private static final Pattern CHARSET_PATTERN = Pattern.compile("charset=\"?([\\w.:-]+)", Pattern.CASE_INSENSITIVE);
+
+    private final HttpClient client;
+    private final Duration readTimeout;
+
+    /**
+     *  Ответ сервера: код ответа и декодированное тело.
+     *
+     *  @param statusCode HTTP код ответа.
+     *  @param body       Тело ответа, распакованное и декодированное в строку.
+     */
+    public record HttpPage(int statusCode, String body) {
+    }
+
+    /**
+     * Создает загрузчик с таймаутами по умолчанию.
+     */
+    public HttpFetcher() {
+        this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
+    }
+
+    /**
+     * Создает загрузчик с заданными таймаутами.
+     *
+     * @param connectTimeout Максимальное время установки соединения.
+     * @param readTimeout    Максимальное время ожидания ответа сервера.
+     */
+    public HttpFetcher(Duration connectTimeout, Duration readTimeout) {
+        log.info("Инициализация HttpFetcher: connectTimeout={}, readTimeout={}", connectTimeout, readTimeout);
+        this.readTimeout = readTimeout;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * Синхронно загружает страницу.
+     *
+     * @param url URL страницы.
+     * @return Код ответа и тело страницы.
+     * @throws IOException          Если произошла ошибка сети, истек таймаут или тело не удалось распаковать.
+     * @throws InterruptedException Если поток был прерван во время ожидания ответа.
+     */
+    public HttpPage fetch(String url) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(buildRequest(url), HttpResponse.BodyHandlers.ofByteArray());
+        return toPage(response);
+    }
+
+    /**
+     * Асинхронно загружает страницу, не занимая поток на время ожидания ответа.
+     *
+     * @param url URL страницы.
+     * @return Future с кодом ответа и телом страницы. Завершается исключением при ошибке сети или таймауте.
+     */
+    public CompletableFuture<HttpPage> fetchAsync(String url) {
+        return client.sendAsync(buildRequest(url), HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    try {
+                        return toPage(response);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Загружает страницу, передавая тело ответа в сессию разбора по мере получения.
+     * Как только сессия сообщает, что все поля найдены, поток ответа закрывается и соединение разрывается,
+     * поэтому оставшаяся часть страницы не загружается. Тело ответа с кодом, отличным от 200, не читается.
+     *
+     * @param url     URL страницы.
+     * @param session Сессия разбора страницы.
+     * @return HTTP код ответа.
+     * @throws IOException          Если произошла ошибка сети, истек таймаут или тело не удалось распаковать.
+     * @throws InterruptedException Если поток был прерван во время ожидания ответа.
+     */
+    public int fetchStreaming(String url, AuthorPageExtractor.Session session) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = client.send(buildRequest(url), HttpResponse.BodyHandlers.ofInputStream());
+        log.debug("Получен ответ {} по протоколу {} для URL: {}", response.statusCode(), response.version(), response.uri());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            return response.statusCode();
+        }
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("identity");
+        try (Reader reader = new InputStreamReader(decompress(response.body(), encoding), getCharset(response))) {
+            char[] chunk = new char[STREAM_BUFFER_SIZE];
+            int read;
+            while ((read = reader.read(chunk)) != -1) {
+                if (session.feed(chunk, 0, read)) {
+                    log.debug("Разбор завершен до конца страницы, загрузка прекращена: {}", url);
+                    break;
+                }
+            }
+        }
+        return response.statusCode();
+    }
+
+    private HttpRequest buildRequest(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(readTimeout)
+                .header("Accept-Encoding", ACCEPT_ENCODING)
+                .GET()
+                .build();
+    }
+
+    private HttpPage toPage(HttpResponse<byte[]> response) throws IOException {
+        log.debug("Получен ответ {} по протоколу {} для URL: {}", response.statusCode(), response.version(), response.uri());
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("identity");
+        Charset charset = getCharset(response);
+        try (InputStream body = decompress(new ByteArrayInputStream(response.body()), encoding)) {
+            return new HttpPage(response.statusCode(), new String(body.readAllBytes(), charset));
+        }
+    }
+
+    /**
+     * Оборачивает поток тела ответа в распаковщик, соответствующий заголовку Content-Encoding.
+     *
+     * @param body     Поток тела ответа.
+     * @param encoding Значение заголовка Content-Encoding.
+     * @return Поток распакованных данных.
+     * @throws IOException Если поток не удалось распаковать.
+     */
+    static InputStream decompress(InputStream body, String encoding) throws IOException {
+        return switch (encoding.trim().toLowerCase(Locale.ROOT)) {
+            case "gzip", "x-gzip" -> new GZIPInputStream(body);
+            case "deflate" -> new InflaterInputStream(body);
+            default -> body;
+        };
+    }
+
+    /**
+     * Определяет кодировку тела ответа по заголовку Content-Type.
+     *
+     * @param response Ответ сервера.
+     * @return Кодировка из заголовка или UTF-8, если она не указана или не поддерживается.
+     */
+    static Charset getCharset(HttpResponse<?> response) {
+        String contentType = response.headers().firstValue("Content-Type").orElse("");
+        Matcher matcher = CHARSET_PATTERN.matcher(contentType);
+        if (matcher.find()) {
+            try {
+                return Charset.forName(matcher.group(1));
+            } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+                log.warn("Неизвестная кодировка в заголовке Content-Type: {}", contentType);
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+}
@@ -0,0 +1,191 @@
+package elibraryparser;
+
+import lombok.extern.log4j.Log4j2;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ *  Подкоманда {@code loadtest}: сквозной нагрузочный тест {@link AuthorsManager} против {@link ElibraryStubServer}.
+ *  Парсер создается из конфигурации так же, как в рабочем режиме, но параметр "web_proxy" указывает на заглушку
+ *  (пул прокси "web_proxy.N" не используется),
+ *  а авторы сохраняются во временную базу данных. По завершении выводятся пропускная способность,
+ *  перцентили времени получения автора и время записи в базу данных.
+ */
+@Log4j2
+@Command(name = "loadtest", mixinStandardHelpOptions = true, description = "Нагрузочный тест получения авторов против локальной заглушки elibrary.ru")
+public class LoadTestCommand implements Callable<Integer> {
+
+    @Option(names = {"-n", "--authors"}, description = "Количество авторов (по умолчанию ${DEFAULT-VALUE})")
+    private int authorCount = 1000;
+
+    @Option(names = "--start-id", description = "Первый ID автора (по умолчанию ${DEFAULT-VALUE})")
+    private int startId = 1;
+
+    @Option(names = "--config", description = "Файл конфигурации (по умолчанию ${DEFAULT-VALUE})")
+    private String configPath = "analyzer.config";
+
+    @Option(names = "--concurrency", description = "Переопределяет параметр max_concurrency")
+    private Integer concurrency;
+
+    @Option(names = "--rate", description = "Переопределяет параметр rate_limit (по умолчанию ${DEFAULT-VALUE}, чтобы ограничитель не влиял на результат)")
+    private double rate = 1000;
+
+    @Option(names = "--burst", description = "Переопределяет параметр rate_burst (по умолчанию ${DEFAULT-VALUE})")
+    private int burst = 100;
+
+    @Mixin
+    private StubOptions stubOptions;
+
+    /**
+     *  Выполняет нагрузочный тест.
+     *  @return 0 после вывода результатов.
+     *  @throws Exception если заглушку или временную базу данных не удалось создать.
+     */
+    @Override
+    public Integer call() throws Exception {
+        Map<String, String> config = new HashMap<>(FileService.readConfigFile(configPath));
+        config.put("rate_limit", Double.toString(rate));
+        config.put("rate_burst", Integer.toString(burst));
+        config.remove("page_archive");
+        config.keySet().removeIf(key -> key.startsWith("web_proxy."));
+        if (concurrency != null) {
+            config.put("max_concurrency", Integer.toString(concurrency));
+        }
+        int maxConcurrency = FileService.getIntParameter(config, "max_concurrency", 8);
+
+        Path databaseFile = Files.createTempFile("loadtest-authors", ".db");
+        LatencyRecorder fetchLatency = new LatencyRecorder(authorCount);
+        LatencyRecorder writeLatency = new LatencyRecorder(authorCount);
+        LongAdder found = new LongAdder();
+        LongAdder failed = new LongAdder();
+        long elapsedNanos;
+        try (ElibraryStubServer stub = new ElibraryStubServer(0, stubOptions.toSettings())) {
+            stub.start();
+            config.put("web_proxy", stub.getProxyUrl());
+            ElibraryParser parser = timed(
+                    AuthorsManager.createParser(config, AuthorsManager.createProxyPool(config)), fetchLatency);
+            DatabaseManager database = new DatabaseManager("jdbc:sqlite:" + databaseFile) {
+                @Override
+                public Map<Integer, Boolean> addAuthors(Collection<Author> authors) {
+                    long startNanos = System.nanoTime();
+                    try {
+                        return super.addAuthors(authors);
+                    } finally {
+                        writeLatency.record(System.nanoTime() - startNanos);
+                    }
+                }
+            };
+            log.info("Нагрузочный тест: {} авторов, {} одновременных запросов, заглушка {}", authorCount, maxConcurrency, stub.getProxyUrl());
+            try (AuthorsManager authorsManager = new AuthorsManager(parser, database, maxConcurrency, null)) {
+                long startNanos = System.nanoTime();
+                authorsManager.processAuthors(IntStream.range(startId, startId + authorCount), (authorId, author, outcome) -> {
+                    if (author != null) {
+                        found.increment();
+                    } else {
+                        failed.increment();
+                    }
+                });
+                elapsedNanos = System.nanoTime() - startNanos;
+            }
+            log.info("Ответы заглушки: {}", stub.getStats());
+        } finally {
+            Files.deleteIfExists(databaseFile);
+            Files.deleteIfExists(Path.of(databaseFile + "-wal"));
+            Files.deleteIfExists(Path.of(databaseFile + "-shm"));
+        }
+
+        double seconds = elapsedNanos / 1e9;
+        log.info("Результаты нагрузочного теста:");
+        log.info("  время: {} с, получено авторов: {}, не получено: {}", String.format("%.2f", seconds), found.sum(), failed.sum());
+        log.info("  пропускная способность: {} авторов/с, {} запросов/с",
+                String.format("%.1f", found.sum() / seconds), String.format("%.1f", fetchLatency.count() / seconds));
+        log.info("  время получения автора: {}", fetchLatency);
+        log.info("  запись в базу данных: {} записей, {} записей/с суммарного времени записи, {}", writeLatency.count(),
+                String.format("%.0f", writeLatency.count() / Math.max(1e-9, writeLatency.totalNanos() / 1e9)), writeLatency);
+        return 0;
+    }
+
+    private static ElibraryParser timed(ElibraryParser parser, LatencyRecorder recorder) {
+        return new ElibraryParser() {
+            @Override
+            public Author getAuthor(int authorId) {
+                long startNanos = System.nanoTime();
+                try {
+                    return parser.getAuthor(authorId);
+                } finally {
+                    recorder.record(System.nanoTime() - startNanos);
+                }
+            }
+
+            @Override
+            public CompletableFuture<Author> getAuthorAsync(int authorId) {
+                long startNanos = System.nanoTime();
+                return parser.getAuthorAsync(authorId)
+                        .whenComplete((author, error) -> recorder.record(System.nanoTime() - startNanos));
+            }
+
+            @Override
+            public void close() {
+                parser.close();
+            }
+        };
+    }
+
+    /**
+     *  Накопитель длительностей для вычисления перцентилей.
+     */
+    private static final class LatencyRecorder {
+        private long[] samples;
+        private int count;
+        private long totalNanos;
+
+        private LatencyRecorder(int expectedCount) {
+            this.samples = new long[Math.max(16, expectedCount)];
+        }
+
+        private synchronized void record(long nanos) {
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = nanos;
+            totalNanos += nanos;
+        }
+
+        private synchronized int count() {
+            return count;
+        }
+
+        private synchronized long totalNanos() {
+            return totalNanos;
+        }
+
+        @Override
+        public synchronized String toString() {
+            if (count == 0) {
+                return "нет измерений";
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return String.format("p50 %.1f мс, p90 %.1f мс, p99 %.1f мс, max %.1f мс",
+                    millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99), sorted[count - 1] / 1e6);
+        }
+
+        private static double millis(long[] sorted, double quantile) {
+            int index = Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1);
+            return sorted[Math.max(0, index)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
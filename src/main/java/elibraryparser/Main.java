@@ -12,13 +12,10 @@ import java.util.concurrent.Callable;
  *  Этот класс использует picocli для обработки аргументов командной строки. Он может запустить либо графическое
  *  приложение, либо приложение командной строки в зависимости от предоставленных аргументов.
  */
-@Command(name = "elibrary_analyzer", mixinStandardHelpOptions = true, version = "v1.0", description = "Приложение анализа публикационной деятельности авторов на elibrary.ru")
+@Command(name = "elibrary_analyzer", mixinStandardHelpOptions = true, version = "v1.0", description = "Приложение анализа публикационной деятельности авторов на elibrary.ru",
+        subcommands = {ExportCommand.class, ReparseCommand.class, StubServerCommand.class, LoadTestCommand.class})
 public class Main implements Callable<Integer> {
 
-    GuiApp gui = new GuiApp();
-    CommandLineApp cli = new CommandLineApp();
-
-
     @Option(names = "--no-graphics", description = "Запускает программу в режиме без графики.")
     private boolean noGraphics;
 
@@ -28,23 +25,34 @@ public class Main implements Callable<Integer> {
     @Option(names = {"-o", "--output"}, description = "Выходной файл для режима без графики (расширение .md)")
     private String output;
 
+    @Option(names = "--resume", description = "Продолжает последний запуск для входного файла в режиме без графики: обрабатываются только необработанные ID, отчет строится из сохраненных результатов.")
+    private boolean resume;
+
+    @Option(names = "--serve", description = "Запускает режим сервиса: локальный HTTP API (GET /authors/{id}, POST /authors:batch) с постоянно открытыми парсером, кэшем и базой данных.")
+    private boolean serve;
+
+    @Option(names = "--port", description = "Порт HTTP API для режима сервиса (по умолчанию параметр serve_port из конфигурации)")
+    private Integer port;
+
     /**
      *  Основная логика приложения. Вызывается при запуске приложения.
-     *  Проверяет наличие опции "--no-graphics" и запускает либо графическое приложение, либо приложение командной строки
-     *  соответственно.
+     *  С опцией "--serve" запускает режим сервиса {@link AuthorsApiServer}, иначе проверяет наличие опции "--no-graphics"
+     *  и запускает либо графическое приложение, либо приложение командной строки соответственно.
      *  @return Целочисленный код выхода (0 для успеха).
      *  @throws Exception если во время выполнения возникает ошибка.
      */
     @Override
     public Integer call() throws Exception {
-        if (noGraphics) {
+        if (serve) {
+            AuthorsApiServer.serve(port);
+        } else if (noGraphics) {
             if (input == null || output == null) {
                 throw new ParameterException(new CommandLine(this),
                         "Опции -i и -o обязательны при использовании --no-graphics.");
             }
-            cli.main(new String[]{input, output});
+            CommandLineApp.main(resume ? new String[]{input, output, CommandLineApp.RESUME_FLAG} : new String[]{input, output});
         } else {
-            gui.main(new String[0]);
+            GuiApp.main(new String[0]);
         }
         return 0;
     }
@@ -55,7 +63,7 @@ public class Main implements Callable<Integer> {
      *  @param args Аргументы командной строки, переданные приложению.
      */
     public static void main(String[] args) {
-        int exitCode = new CommandLine(new Main()).execute(args);
+        int exitCode = new CommandLine(new Main()).setCaseInsensitiveEnumValuesAllowed(true).execute(args);
         System.exit(exitCode);
     }
 }
\ No newline at end of file
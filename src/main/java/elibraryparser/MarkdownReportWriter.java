@@ -0,0 +1,247 @@
+package elibraryparser;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Записывает отчет об авторах в Markdown файл по мере получения авторов.
+ *  Строки таблицы добавляются через буферизованный поток и периодически сбрасываются на диск
+ *  (по количеству строк и по времени), поэтому частичный отчет доступен во время долгой обработки,
+ *  а в памяти не накапливается вся таблица.
+ *  <p>
+ *  После записи отчет можно отсортировать методом {@link #sort(Path, Order, int)}: сортировка выполняется
+ *  внешним слиянием через временные файлы, и в памяти одновременно находится не больше заданного числа строк.
+ *  Метод {@link #write(Author)} синхронизирован и может вызываться из нескольких потоков.
+ */
+@Log4j2
+public class MarkdownReportWriter implements AutoCloseable {
+    private static final String HEADER = "|ID|ФИО|Статей|Статей без цитирования|Индекс Хирша|";
+    private static final String SEPARATOR = "|---|---|---|---|---|";
+
+    private final Path filePath;
+    private final BufferedWriter writer;
+    private final int flushRows;
+    private final long flushIntervalNanos;
+    private final StringBuilder row = new StringBuilder();
+    private int rowsSinceFlush;
+    private long lastFlushNanos = System.nanoTime();
+    private long rowCount;
+
+    /**
+     *  Порядок строк отчета после сортировки.
+     */
+    public enum Order {
+        /** Порядок получения авторов, сортировка не выполняется. */
+        NONE,
+        /** По возрастанию ID автора. */
+        ID,
+        /** По убыванию индекса Хирша, при равенстве - по возрастанию ID. */
+        HIRSH
+    }
+
+    /**
+     * Создает файл отчета без периодического сброса: буфер сбрасывается на диск по мере заполнения и при закрытии.
+     *
+     * @param filePath Путь к файлу отчета.
+     * @throws IOException Если файл не удалось создать.
+     */
+    public MarkdownReportWriter(Path filePath) throws IOException {
+        this(filePath, Integer.MAX_VALUE, 0);
+    }
+
+    /**
+     * Создает файл отчета, перезаписывая существующий, и записывает заголовок таблицы.
+     *
+     * @param filePath      Путь к файлу отчета.
+     * @param flushRows     Количество строк, после которого буфер сбрасывается на диск.
+     * @param flushInterval Максимальное время в миллисекундах между сбросами буфера при поступлении новых строк;
+     *                      0 отключает сброс по времени.
+     * @throws IOException Если файл не удалось создать.
+     */
+    public MarkdownReportWriter(Path filePath, int flushRows, long flushInterval) throws IOException {
+        log.info("Создание отчета {}: сброс каждые {} строк или {} мс", filePath, flushRows, flushInterval);
+        this.filePath = filePath;
+        this.flushRows = Math.max(1, flushRows);
+        this.flushIntervalNanos = flushInterval > 0 ? TimeUnit.MILLISECONDS.toNanos(flushInterval) : Long.MAX_VALUE;
+        this.writer = Files.newBufferedWriter(filePath, StandardCharsets.UTF_8);
+        writer.write(HEADER);
+        writer.newLine();
+        writer.write(SEPARATOR);
+        writer.newLine();
+        writer.flush();
+    }
+
+    /**
+     * Добавляет строку с автором в отчет.
+     *
+     * @param author Автор.
+     * @throws IOException Если строку не удалось записать.
+     */
+    public synchronized void write(Author author) throws IOException {
+        row.setLength(0);
+        row.append('|').append(author.authorId())
+                .append('|').append(author.name())
+                .append('|').append(author.publishesCount())
+                .append('|').append(author.zeroCittPublishesCount())
+                .append('|').append(author.hirshIndex())
+                .append('|');
+        writer.append(row);
+        writer.newLine();
+        rowCount++;
+        if (++rowsSinceFlush >= flushRows || System.nanoTime() - lastFlushNanos >= flushIntervalNanos) {
+            flush();
+        }
+    }
+
+    /**
+     * Сбрасывает буфер на диск.
+     *
+     * @throws IOException Если данные не удалось записать.
+     */
+    public synchronized void flush() throws IOException {
+        writer.flush();
+        log.debug("Отчет {}: на диск сброшено {} строк, всего {}", filePath, rowsSinceFlush, rowCount);
+        rowsSinceFlush = 0;
+        lastFlushNanos = System.nanoTime();
+    }
+
+    /**
+     * Возвращает количество записанных строк.
+     *
+     * @return Количество авторов в отчете.
+     */
+    public synchronized long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Сбрасывает буфер и закрывает файл отчета.
+     *
+     * @throws IOException Если данные не удалось записать.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+        log.info("Отчет {} записан: {} авторов", filePath, rowCount);
+    }
+
+    /**
+     * Сортирует строки готового отчета внешним слиянием.
+     * Строки читаются порциями по {@code maxRowsInMemory}, каждая порция сортируется и записывается во временный файл,
+     * затем временные файлы сливаются в новый отчет, который заменяет исходный.
+     *
+     * @param filePath        Путь к файлу отчета, записанного {@link MarkdownReportWriter}.
+     * @param order           Порядок строк; для {@link Order#NONE} отчет не изменяется.
+     * @param maxRowsInMemory Максимальное количество строк, одновременно находящихся в памяти.
+     * @throws IOException Если отчет не удалось прочитать или записать.
+     */
+    public static void sort(Path filePath, Order order, int maxRowsInMemory) throws IOException {
+        if (order == Order.NONE) {
+            return;
+        }
+        log.info("Сортировка отчета {} по {} порциями по {} строк", filePath, order, maxRowsInMemory);
+        Comparator<String> comparator = comparator(order);
+        List<Path> runs = new ArrayList<>();
+        try {
+            try (BufferedReader reader = Files.newBufferedReader(filePath, StandardCharsets.UTF_8)) {
+                reader.readLine();
+                reader.readLine();
+                List<String> chunk = new ArrayList<>();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    chunk.add(line);
+                    if (chunk.size() >= Math.max(1, maxRowsInMemory)) {
+                        runs.add(writeSortedRun(chunk, comparator, filePath));
+                        chunk.clear();
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    runs.add(writeSortedRun(chunk, comparator, filePath));
+                }
+            }
+            Path sorted = Files.createTempFile(filePath.toAbsolutePath().getParent(), "report", ".md.tmp");
+            mergeRuns(runs, comparator, sorted);
+            Files.move(sorted, filePath, StandardCopyOption.REPLACE_EXISTING);
+            log.info("Отчет {} отсортирован, временных файлов: {}", filePath, runs.size());
+        } finally {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    private static Path writeSortedRun(List<String> chunk, Comparator<String> comparator, Path filePath) throws IOException {
+        chunk.sort(comparator);
+        Path run = Files.createTempFile(filePath.toAbsolutePath().getParent(), "report", ".run");
+        Files.write(run, chunk, StandardCharsets.UTF_8);
+        log.debug("Записана отсортированная порция из {} строк: {}", chunk.size(), run);
+        return run;
+    }
+
+    private static void mergeRuns(List<Path> runs, Comparator<String> comparator, Path target) throws IOException {
+        List<BufferedReader> readers = new ArrayList<>(runs.size());
+        PriorityQueue<RunHead> heads = new PriorityQueue<>((a, b) -> comparator.compare(a.line, b.line));
+        try (BufferedWriter writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            writer.write(SEPARATOR);
+            writer.newLine();
+            for (Path run : runs) {
+                BufferedReader reader = Files.newBufferedReader(run, StandardCharsets.UTF_8);
+                readers.add(reader);
+                String line = reader.readLine();
+                if (line != null) {
+                    heads.add(new RunHead(line, reader));
+                }
+            }
+            RunHead head;
+            while ((head = heads.poll()) != null) {
+                writer.write(head.line);
+                writer.newLine();
+                String next = head.reader.readLine();
+                if (next != null) {
+                    heads.add(new RunHead(next, head.reader));
+                }
+            }
+        } finally {
+            for (BufferedReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    private static Comparator<String> comparator(Order order) {
+        Comparator<String> byId = Comparator.comparingLong(MarkdownReportWriter::idOf);
+        if (order == Order.HIRSH) {
+            return Comparator.comparingLong(MarkdownReportWriter::hirshIndexOf).reversed().thenComparing(byId);
+        }
+        return byId;
+    }
+
+    private static long idOf(String line) {
+        return Long.parseLong(line.substring(1, line.indexOf('|', 1)));
+    }
+
+    private static long hirshIndexOf(String line) {
+        int end = line.lastIndexOf('|');
+        return Long.parseLong(line.substring(line.lastIndexOf('|', end - 1) + 1, end));
+    }
+
+    private record RunHead(String line, BufferedReader reader) {
+    }
+}
@@ -0,0 +1,353 @@
+package elibraryparser;
+
+import lombok.extern.log4j.Log4j2;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ *  Общий для процесса реестр метрик: счетчики, гистограммы длительностей и показатели, вычисляемые при чтении.
+ *  Метрика определяется именем и набором меток; повторный запрос метрики с теми же именем и метками
+ *  возвращает уже зарегистрированный экземпляр, поэтому классы могут хранить метрики в статических полях.
+ *  <p>
+ *  Реестр выводится в текстовом формате Prometheus ({@link #writePrometheus(StringBuilder)}),
+ *  через JMX ({@link MetricsMXBean}) и в виде краткой сводки для логов ({@link #summary()}).
+ *  Обновление метрик не блокирует потоки и может выполняться из любого потока.
+ */
+@Log4j2
+public final class Metrics {
+    /** Границы корзин гистограмм длительностей в секундах. */
+    private static final double[] BUCKETS = {0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60};
+    private static final String MBEAN_NAME = "elibraryparser:type=Metrics";
+
+    private static final ConcurrentMap<String, Family> FAMILIES = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Возвращает счетчик, регистрируя его при первом обращении.
+     *
+     * @param name   Имя метрики в формате Prometheus.
+     * @param help   Описание метрики.
+     * @param labels Пары имя-значение меток.
+     * @return Счетчик.
+     */
+    public static Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, "counter").metrics.computeIfAbsent(labelString(labels), key -> new Counter());
+    }
+
+    /**
+     * Возвращает гистограмму длительностей, регистрируя ее при первом обращении.
+     *
+     * @param name   Имя метрики в формате Prometheus, по соглашению с суффиксом {@code _seconds}.
+     * @param help   Описание метрики.
+     * @param labels Пары имя-значение меток.
+     * @return Гистограмма.
+     */
+    public static Histogram histogram(String name, String help, String... labels) {
+        return (Histogram) family(name, help, "histogram").metrics.computeIfAbsent(labelString(labels), key -> new Histogram());
+    }
+
+    /**
+     * Регистрирует показатель, значение которого вычисляется при каждом чтении.
+     * Показатель с теми же именем и метками заменяется.
+     *
+     * @param name     Имя метрики в формате Prometheus.
+     * @param help     Описание метрики.
+     * @param supplier Источник значения.
+     * @param labels   Пары имя-значение меток.
+     */
+    public static void gauge(String name, String help, DoubleSupplier supplier, String... labels) {
+        family(name, help, "gauge").metrics.put(labelString(labels), new Gauge(supplier));
+    }
+
+    /**
+     * Регистрирует {@link MetricsMXBean} в платформенном MBean-сервере, если он еще не зарегистрирован.
+     */
+    public static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMXBeanImpl(), new ObjectName(MBEAN_NAME));
+            log.info("Метрики доступны через JMX: {}", MBEAN_NAME);
+        } catch (InstanceAlreadyExistsException e) {
+            log.debug("MBean {} уже зарегистрирован", MBEAN_NAME);
+        } catch (JMException e) {
+            log.error("Не удалось зарегистрировать MBean метрик", e);
+        }
+    }
+
+    /**
+     * Записывает все метрики в текстовом формате Prometheus.
+     *
+     * @param output Буфер для вывода.
+     */
+    public static void writePrometheus(StringBuilder output) {
+        for (Map.Entry<String, Family> entry : new TreeMap<>(FAMILIES).entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+            output.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            output.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Object> metric : new TreeMap<>(family.metrics).entrySet()) {
+                String labels = metric.getKey();
+                Object value = metric.getValue();
+                if (value instanceof Histogram histogram) {
+                    histogram.writePrometheus(output, name, labels);
+                } else {
+                    output.append(name).append(braces(labels)).append(' ').append(formatValue(valueOf(value))).append('\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * Возвращает краткую сводку для логов: значения счетчиков и показателей,
+     * количество, среднее и максимальное значение гистограмм.
+     *
+     * @return Многострочная сводка, по одной метрике в строке.
+     */
+    public static String summary() {
+        StringBuilder summary = new StringBuilder();
+        for (Map.Entry<String, Family> entry : new TreeMap<>(FAMILIES).entrySet()) {
+            for (Map.Entry<String, Object> metric : new TreeMap<>(entry.getValue().metrics).entrySet()) {
+                summary.append(entry.getKey()).append(braces(metric.getKey())).append(": ");
+                if (metric.getValue() instanceof Histogram histogram) {
+                    summary.append(histogram);
+                } else {
+                    summary.append(formatValue(valueOf(metric.getValue())));
+                }
+                summary.append('\n');
+            }
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Возвращает значения счетчиков и показателей, а также количество измерений гистограмм.
+     *
+     * @return Значения по ключам вида {@code имя{метки}}.
+     */
+    static Map<String, Double> snapshot() {
+        Map<String, Double> snapshot = new TreeMap<>();
+        FAMILIES.forEach((name, family) -> family.metrics.forEach((labels, metric) -> {
+            if (metric instanceof Histogram histogram) {
+                snapshot.put(name + "_count" + braces(labels), (double) histogram.getCount());
+                snapshot.put(name + "_sum" + braces(labels), histogram.getSumSeconds());
+            } else {
+                snapshot.put(name + braces(labels), valueOf(metric));
+            }
+        }));
+        return snapshot;
+    }
+
+    private static Family family(String name, String help, String type) {
+        Family family = FAMILIES.computeIfAbsent(name, key -> new Family(help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Метрика " + name + " уже зарегистрирована с типом " + family.type);
+        }
+        return family;
+    }
+
+    private static String labelString(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Метки должны задаваться парами имя-значение: " + Arrays.toString(labels));
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(labels[i]).append("=\"")
+                    .append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                    .append('"');
+        }
+        return builder.toString();
+    }
+
+    private static String braces(String labels) {
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+
+    private static double valueOf(Object metric) {
+        if (metric instanceof Counter counter) {
+            return counter.get();
+        }
+        return ((Gauge) metric).supplier.getAsDouble();
+    }
+
+    private static String formatValue(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            return Long.toString((long) value);
+        }
+        return String.format(Locale.ROOT, "%.6g", value);
+    }
+
+    /**
+     *  Метрики с одним именем и разными метками.
+     */
+    private static final class Family {
+        private final String help;
+        private final String type;
+        private final ConcurrentMap<String, Object> metrics = new ConcurrentHashMap<>();
+
+        private Family(String help, String type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    /**
+     *  Монотонно возрастающий счетчик.
+     */
+    public static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        private Counter() {
+        }
+
+        /**
+         * Увеличивает счетчик на 1.
+         */
+        public void increment() {
+            value.increment();
+        }
+
+        /**
+         * Увеличивает счетчик на заданное значение.
+         *
+         * @param amount Неотрицательное приращение.
+         */
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        /**
+         * Возвращает текущее значение.
+         *
+         * @return Значение счетчика.
+         */
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    /**
+     *  Гистограмма длительностей с фиксированными корзинами от 1 мс до 60 с.
+     */
+    public static final class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS.length + 1);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private Histogram() {
+        }
+
+        /**
+         * Добавляет измерение.
+         *
+         * @param nanos Длительность в наносекундах.
+         */
+        public void record(long nanos) {
+            double seconds = nanos / 1e9;
+            int bucket = 0;
+            while (bucket < BUCKETS.length && seconds > BUCKETS[bucket]) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+            count.increment();
+            sumNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        /**
+         * Добавляет измерение от заданного момента до текущего времени.
+         *
+         * @param startNanos Момент начала по {@link System#nanoTime()}.
+         */
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        /**
+         * Возвращает количество измерений.
+         *
+         * @return Количество измерений.
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Возвращает сумму измерений.
+         *
+         * @return Сумма длительностей в секундах.
+         */
+        public double getSumSeconds() {
+            return sumNanos.sum() / 1e9;
+        }
+
+        private void writePrometheus(StringBuilder output, String name, String labels) {
+            String prefix = labels.isEmpty() ? "" : labels + ",";
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                cumulative += buckets.get(i);
+                output.append(name).append("_bucket{").append(prefix).append("le=\"").append(BUCKETS[i]).append("\"} ")
+                        .append(cumulative).append('\n');
+            }
+            cumulative += buckets.get(BUCKETS.length);
+            output.append(name).append("_bucket{").append(prefix).append("le=\"+Inf\"} ").append(cumulative).append('\n');
+            output.append(name).append("_sum").append(braces(labels)).append(' ').append(formatValue(getSumSeconds())).append('\n');
+            output.append(name).append("_count").append(braces(labels)).append(' ').append(getCount()).append('\n');
+        }
+
+        @Override
+        public String toString() {
+            long measurements = getCount();
+            if (measurements == 0) {
+                return "нет измерений";
+            }
+            return String.format(Locale.ROOT, "измерений: %d, среднее %.1f мс, максимум %.1f мс",
+                    measurements, sumNanos.sum() / 1e6 / measurements, maxNanos.get() / 1e6);
+        }
+    }
+
+    /**
+     *  Показатель, значение которого вычисляется при чтении.
+     */
+    private record Gauge(DoubleSupplier supplier) {
+    }
+
+    /**
+     *  Реализация {@link MetricsMXBean} поверх реестра.
+     */
+    private static final class MetricsMXBeanImpl implements MetricsMXBean {
+        @Override
+        public Map<String, Double> getValues() {
+            return snapshot();
+        }
+
+        @Override
+        public String getPrometheusText() {
+            StringBuilder output = new StringBuilder();
+            writePrometheus(output);
+            return output.toString();
+        }
+
+        @Override
+        public String getSummary() {
+            return summary();
+        }
+    }
+}
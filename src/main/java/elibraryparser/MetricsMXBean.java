@@ -0,0 +1,30 @@
+package elibraryparser;
+
+import java.util.Map;
+
+/**
+ *  JMX интерфейс реестра {@link Metrics}.
+ */
+public interface MetricsMXBean {
+
+    /**
+     * Возвращает значения счетчиков и показателей, количество и сумму измерений гистограмм.
+     *
+     * @return Значения по ключам вида {@code имя{метки}}.
+     */
+    Map<String, Double> getValues();
+
+    /**
+     * Возвращает все метрики в текстовом формате Prometheus.
+     *
+     * @return Текст в формате Prometheus.
+     */
+    String getPrometheusText();
+
+    /**
+     * Возвращает краткую сводку метрик.
+     *
+     * @return Многострочная сводка.
+     */
+    String getSummary();
+}
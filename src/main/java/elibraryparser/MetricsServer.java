@@ -0,0 +1,65 @@
+package elibraryparser;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ *  Локальный HTTP сервер, отдающий реестр {@link Metrics} по пути {@code /metrics} в текстовом формате Prometheus.
+ *  Сервер слушает только адрес обратной петли и обрабатывает запросы в одном потоке.
+ */
+@Log4j2
+public class MetricsServer implements AutoCloseable {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+
+    /**
+     * Запускает сервер метрик.
+     *
+     * @param port Порт.
+     * @throws IOException Если порт не удалось открыть.
+     */
+    public MetricsServer(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", MetricsServer::handle);
+        server.start();
+        log.info("Метрики доступны по адресу http://127.0.0.1:{}/metrics", server.getAddress().getPort());
+    }
+
+    /**
+     * Возвращает порт, на котором слушает сервер.
+     *
+     * @return Номер порта.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Останавливает сервер.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            StringBuilder output = new StringBuilder();
+            Metrics.writePrometheus(output);
+            byte[] body = output.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream stream = exchange.getResponseBody()) {
+                stream.write(body);
+            }
+        }
+    }
+}
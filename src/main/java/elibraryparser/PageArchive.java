@@ -0,0 +1,351 @@
+package elibraryparser;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ *  Локальный архив загруженных страниц авторов для повторного разбора без обращения к сети.
+ *  <p>
+ *  Страницы сжимаются gzip и дописываются в файлы сегментов {@code segment-NNNNN.dat} размером до {@code segmentSize} байт.
+ *  Архив адресуется содержимым: для каждой страницы вычисляется SHA-256, и страница с уже сохраненным содержимым
+ *  не записывается повторно, а в индекс добавляется ссылка на существующую запись.
+ *  Индекс {@code index.dat} - журнал записей фиксированного размера (ID автора, время загрузки, сегмент, смещение,
+ *  длина, хеш); при открытии он читается целиком, последняя запись для ID считается актуальной.
+ *  Оборванная при сбое последняя запись индекса отбрасывается.
+ *  <p>
+ *  Сегменты читаются через отображение файлов в память. Запись в файлы синхронизирована, а сжатие и вычисление хеша
+ *  выполняются вне блокировки, поэтому страницы из нескольких потоков сохраняются параллельно; чтение может
+ *  выполняться из нескольких потоков одновременно.
+ *  <p>
+ *  Открытый архив удерживает блокировку файла индекса, поэтому второй процесс (например, {@code reparse} во время
+ *  загрузки) не может открыть тот же каталог и повредить индекс одновременной записью.
+ */
+@Log4j2
+public class PageArchive implements AutoCloseable {
+    /** Размер сегмента по умолчанию: 64 МБ. */
+    public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+    private static final String INDEX_FILE = "index.dat";
+    private static final int INDEX_MAGIC = 0x45504131;
+    private static final int HASH_SIZE = 32;
+    private static final int INDEX_RECORD_SIZE = Integer.BYTES + Long.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES + HASH_SIZE;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final FileChannel indexChannel;
+    private final FileLock indexLock;
+    private final Map<Integer, Entry> latest = new HashMap<>();
+    private final Map<ByteBuffer, Entry> byHash = new HashMap<>();
+    private final Map<Integer, MappedByteBuffer> mappedSegments = new ConcurrentHashMap<>();
+    private FileChannel segmentChannel;
+    private int segment;
+    private long indexRecords;
+
+    /**
+     *  Запись индекса архива.
+     *
+     *  @param authorId  ID автора.
+     *  @param fetchedAt Время загрузки страницы в миллисекундах от начала эпохи.
+     *  @param segment   Номер сегмента со сжатой страницей.
+     *  @param offset    Смещение сжатой страницы в сегменте.
+     *  @param length    Длина сжатой страницы в байтах.
+     */
+    public record Entry(int authorId, long fetchedAt, int segment, long offset, int length) {
+    }
+
+    /**
+     * Открывает архив с размером сегмента по умолчанию, создавая каталог при необходимости.
+     *
+     * @param directory Каталог архива.
+     * @throws IOException Если каталог или индекс не удалось открыть.
+     */
+    public PageArchive(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Открывает архив, создавая каталог при необходимости.
+     *
+     * @param directory   Каталог архива.
+     * @param segmentSize Размер сегмента в байтах, после которого запись продолжается в новый сегмент.
+     * @throws IOException              Если каталог или индекс не удалось открыть, в том числе если архив
+     *                                  уже открыт другим процессом или экземпляром.
+     * @throws IllegalArgumentException Если размер сегмента не положителен или превышает 2 ГБ.
+     */
+    public PageArchive(Path directory, long segmentSize) throws IOException {
+        if (segmentSize <= 0 || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Размер сегмента должен быть от 1 байта до 2 ГБ: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        this.indexChannel = FileChannel.open(directory.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            this.indexLock = lockIndex();
+            loadIndex();
+            this.segmentChannel = openSegment(segment);
+        } catch (IOException | RuntimeException e) {
+            indexChannel.close();
+            throw e;
+        }
+        log.info("Открыт архив страниц {}: {} авторов, {} уникальных страниц, сегментов: {}",
+                directory, latest.size(), byHash.size(), segment + 1);
+    }
+
+    /**
+     * Сохраняет страницу автора. Если страница с таким же содержимым уже есть в архиве, она не записывается повторно.
+     * Хеш и сжатие вычисляются до захвата блокировки записи.
+     *
+     * @param authorId ID автора.
+     * @param page     HTML контент страницы.
+     * @throws IOException Если страницу не удалось записать.
+     */
+    public void put(int authorId, String page) throws IOException {
+        byte[] content = page.getBytes(StandardCharsets.UTF_8);
+        byte[] hash = sha256(content);
+        long fetchedAt = System.currentTimeMillis();
+        // Записи по хешу не удаляются, поэтому сохраненное содержимое не нужно сжимать и после захвата блокировки
+        byte[] compressed = isStored(hash) ? null : compress(content);
+        append(authorId, fetchedAt, hash, compressed);
+    }
+
+    private synchronized boolean isStored(byte[] hash) {
+        return byHash.containsKey(ByteBuffer.wrap(hash));
+    }
+
+    /**
+     * Записывает сжатую страницу в сегмент, если ее содержимого еще нет в архиве, и добавляет запись в индекс.
+     *
+     * @param authorId   ID автора.
+     * @param fetchedAt  Время загрузки страницы.
+     * @param hash       SHA-256 содержимого страницы.
+     * @param compressed Сжатая страница или {@code null}, если содержимое уже было в архиве.
+     * @throws IOException Если страницу не удалось записать.
+     */
+    private synchronized void append(int authorId, long fetchedAt, byte[] hash, byte[] compressed) throws IOException {
+        Entry stored = byHash.get(ByteBuffer.wrap(hash));
+        Entry entry;
+        if (stored != null) {
+            entry = new Entry(authorId, fetchedAt, stored.segment(), stored.offset(), stored.length());
+        } else {
+            if (segmentChannel.size() > 0 && segmentChannel.size() + compressed.length > segmentSize) {
+                segmentChannel.close();
+                segmentChannel = openSegment(++segment);
+            }
+            long offset = segmentChannel.size();
+            writeFully(segmentChannel, ByteBuffer.wrap(compressed), offset);
+            entry = new Entry(authorId, fetchedAt, segment, offset, compressed.length);
+            byHash.put(ByteBuffer.wrap(hash), entry);
+        }
+        ByteBuffer record = ByteBuffer.allocate(INDEX_RECORD_SIZE)
+                .putInt(entry.authorId())
+                .putLong(entry.fetchedAt())
+                .putInt(entry.segment())
+                .putLong(entry.offset())
+                .putInt(entry.length())
+                .put(hash)
+                .flip();
+        writeFully(indexChannel, record, Integer.BYTES + indexRecords * INDEX_RECORD_SIZE);
+        indexRecords++;
+        latest.put(authorId, entry);
+        log.debug("Страница автора {} сохранена в архив: {}", authorId, entry);
+    }
+
+    /**
+     * Возвращает последнюю сохраненную страницу автора.
+     *
+     * @param authorId ID автора.
+     * @return HTML контент страницы или {@code null}, если страницы автора нет в архиве.
+     * @throws IOException Если страницу не удалось прочитать.
+     */
+    public String get(int authorId) throws IOException {
+        Entry entry;
+        synchronized (this) {
+            entry = latest.get(authorId);
+        }
+        return entry != null ? read(entry) : null;
+    }
+
+    /**
+     * Читает и распаковывает страницу по записи индекса.
+     *
+     * @param entry Запись индекса.
+     * @return HTML контент страницы.
+     * @throws IOException Если страницу не удалось прочитать или распаковать.
+     */
+    public String read(Entry entry) throws IOException {
+        MappedByteBuffer mapped = mappedSegment(entry.segment(), entry.offset() + entry.length());
+        byte[] compressed = new byte[entry.length()];
+        mapped.get((int) entry.offset(), compressed);
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Возвращает последние записи для всех авторов в порядке расположения страниц в сегментах,
+     * что позволяет читать архив последовательно.
+     *
+     * @return Записи индекса, по одной на автора.
+     */
+    public synchronized List<Entry> entries() {
+        List<Entry> entries = new ArrayList<>(latest.values());
+        entries.sort(Comparator.comparingInt(Entry::segment).thenComparingLong(Entry::offset));
+        return entries;
+    }
+
+    /**
+     * Возвращает количество авторов в архиве.
+     *
+     * @return Количество авторов.
+     */
+    public synchronized int size() {
+        return latest.size();
+    }
+
+    /**
+     * Сбрасывает записанные данные на диск и закрывает файлы архива.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            segmentChannel.force(false);
+            indexChannel.force(false);
+            segmentChannel.close();
+            indexLock.release();
+            indexChannel.close();
+            mappedSegments.clear();
+            log.info("Архив страниц {} закрыт: {} авторов", directory, latest.size());
+        } catch (IOException e) {
+            log.error("Ошибка при закрытии архива страниц " + directory, e);
+        }
+    }
+
+    /**
+     * Захватывает исключительную блокировку файла индекса без ожидания.
+     *
+     * @return Блокировка, удерживаемая до закрытия архива.
+     * @throws IOException Если архив уже открыт другим процессом или другим экземпляром в этом процессе.
+     */
+    private FileLock lockIndex() throws IOException {
+        FileLock lock;
+        try {
+            lock = indexChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            throw new IOException("Архив страниц " + directory + " уже открыт другим процессом");
+        }
+        return lock;
+    }
+
+    /**
+     * Читает индекс и восстанавливает последние записи для авторов и записи по хешам содержимого.
+     *
+     * @throws IOException Если индекс не удалось прочитать или он имеет неизвестный формат.
+     */
+    private void loadIndex() throws IOException {
+        long size = indexChannel.size();
+        if (size == 0) {
+            writeFully(indexChannel, ByteBuffer.allocate(Integer.BYTES).putInt(INDEX_MAGIC).flip(), 0);
+            return;
+        }
+        indexRecords = (size - Integer.BYTES) / INDEX_RECORD_SIZE;
+        if ((size - Integer.BYTES) % INDEX_RECORD_SIZE != 0) {
+            log.warn("Последняя запись индекса архива {} оборвана и будет перезаписана", directory);
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(directory.resolve(INDEX_FILE)), 64 * 1024))) {
+            if (input.readInt() != INDEX_MAGIC) {
+                throw new IOException("Файл " + directory.resolve(INDEX_FILE) + " не является индексом архива страниц");
+            }
+            byte[] hash = new byte[HASH_SIZE];
+            for (long i = 0; i < indexRecords; i++) {
+                Entry entry = new Entry(input.readInt(), input.readLong(), input.readInt(), input.readLong(), input.readInt());
+                input.readFully(hash);
+                latest.put(entry.authorId(), entry);
+                byHash.putIfAbsent(ByteBuffer.wrap(hash.clone()), entry);
+                segment = Math.max(segment, entry.segment());
+            }
+        } catch (EOFException e) {
+            throw new IOException("Индекс архива страниц " + directory + " поврежден", e);
+        }
+    }
+
+    private FileChannel openSegment(int number) throws IOException {
+        return FileChannel.open(segmentPath(number), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(String.format("segment-%05d.dat", number));
+    }
+
+    /**
+     * Возвращает отображение сегмента в память, покрывающее заданную длину.
+     * Отображение дописываемого сегмента пересоздается, когда запись выходит за его пределы.
+     */
+    private MappedByteBuffer mappedSegment(int number, long requiredSize) throws IOException {
+        MappedByteBuffer mapped = mappedSegments.get(number);
+        if (mapped != null && mapped.capacity() >= requiredSize) {
+            return mapped;
+        }
+        try (FileChannel channel = FileChannel.open(segmentPath(number), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < requiredSize) {
+                throw new IOException("Сегмент " + segmentPath(number) + " короче записи индекса: " + size + " < " + requiredSize);
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        mappedSegments.put(number, mapped);
+        return mapped;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static byte[] compress(byte[] content) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(content);
+        }
+        return output.toByteArray();
+    }
+
+    private static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 не поддерживается", e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package elibraryparser;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Метрики одного вида парсера в реестре {@link Metrics}: время загрузки страниц, ожидание ограничителя частоты,
+ *  коды ответов, ошибки загрузки и поля, которые не удалось извлечь со страницы.
+ *  Все метрики имеют метку {@code parser} с видом парсера.
+ */
+final class ParserMetrics {
+    private final String parser;
+    private final Metrics.Histogram fetchLatency;
+    private final Metrics.Histogram rateLimitWait;
+    private final Metrics.Counter blockPages;
+
+    /**
+     * Регистрирует метрики парсера.
+     *
+     * @param parser Вид парсера, значение метки {@code parser}.
+     */
+    ParserMetrics(String parser) {
+        this.parser = parser;
+        this.fetchLatency = Metrics.histogram("elibrary_fetch_seconds",
+                "Время загрузки страницы автора без ожидания ограничителя частоты", "parser", parser);
+        this.rateLimitWait = Metrics.histogram("elibrary_rate_limit_wait_seconds",
+                "Время ожидания разрешения ограничителя частоты запросов", "parser", parser);
+        this.blockPages = Metrics.counter("elibrary_block_pages_total",
+                "Количество полученных страниц блокировки", "parser", parser);
+    }
+
+    /**
+     * Учитывает время загрузки страницы.
+     *
+     * @param startNanos Момент начала загрузки по {@link System#nanoTime()}.
+     */
+    void recordFetch(long startNanos) {
+        fetchLatency.recordSince(startNanos);
+    }
+
+    /**
+     * Учитывает ожидание ограничителя частоты запросов.
+     *
+     * @param waitMillis Время ожидания в миллисекундах, которое вернул {@link RateLimiter#acquire()}.
+     */
+    void recordRateLimitWait(long waitMillis) {
+        rateLimitWait.record(TimeUnit.MILLISECONDS.toNanos(waitMillis));
+    }
+
+    /**
+     * Учитывает HTTP код ответа.
+     *
+     * @param statusCode HTTP код ответа.
+     */
+    void recordStatus(int statusCode) {
+        Metrics.counter("elibrary_http_responses_total", "Количество HTTP ответов по кодам",
+                "parser", parser, "status", Integer.toString(statusCode)).increment();
+    }
+
+    /**
+     * Учитывает полученную страницу блокировки.
+     */
+    void recordBlockPage() {
+        blockPages.increment();
+    }
+
+    /**
+     * Учитывает ошибку загрузки, после которой ответ не был получен.
+     *
+     * @param error Вид ошибки, значение метки {@code error}.
+     */
+    void recordError(String error) {
+        Metrics.counter("elibrary_fetch_errors_total", "Количество загрузок, завершившихся ошибкой без ответа",
+                "parser", parser, "error", error).increment();
+    }
+
+    /**
+     * Учитывает поля, которые не удалось извлечь со страницы.
+     *
+     * @param data Извлеченные данные.
+     */
+    void recordExtraction(AuthorPageData data) {
+        if (data.name() == null) {
+            recordExtractionFailure("name");
+        }
+        if (data.publishesCount() == null) {
+            recordExtractionFailure("publishes_count");
+        }
+        if (data.citedPublishesCount() == null) {
+            recordExtractionFailure("cited_publishes_count");
+        }
+        if (data.hirshIndex() == null) {
+            recordExtractionFailure("hirsh_index");
+        }
+    }
+
+    private void recordExtractionFailure(String field) {
+        Metrics.counter("elibrary_extraction_failures_total", "Количество страниц, с которых не удалось извлечь поле",
+                "parser", parser, "field", field).increment();
+    }
+}
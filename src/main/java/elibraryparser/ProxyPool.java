@@ -0,0 +1,434 @@
+package elibraryparser;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Пул веб-прокси, между которыми распределяются запросы к elibrary.ru.
+ *  У каждого прокси свой предел одновременных запросов и свой {@link RateLimiter}.
+ *  Прокси для запроса выбирается по принципу "лучший из двух": из доступных прокси случайно берутся два,
+ *  и запрос получает тот, у которого меньше произведение сглаженной (EWMA) задержки ответа на количество
+ *  выполняющихся запросов. Так медленный прокси получает меньше запросов, а нагрузка не собирается на одном прокси.
+ *  <p>
+ *  Если в пуле больше одного прокси, прокси после {@code ejectFailures} ошибок подряд исключается из выбора
+ *  на {@code ejectMillis} миллисекунд (пауза удваивается при повторных исключениях, но не более чем до 10 минут).
+ *  По окончании паузы через прокси выполняется один пробный запрос; успешный ответ возвращает прокси в пул.
+ *  Если недоступны все прокси, {@link #acquire()} ожидает освобождения или окончания паузы,
+ *  а {@link #acquireAsync()} возвращает незавершенный Future, который получит прокси, когда он освободится.
+ *  Экземпляр потокобезопасен.
+ */
+@Log4j2
+public class ProxyPool {
+    private static final double EWMA_ALPHA = 0.3;
+    private static final double MIN_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long MAX_EJECT_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final List<Endpoint> endpoints;
+    private final int ejectFailures;
+    private final long ejectNanos;
+    private final Deque<CompletableFuture<Lease>> asyncWaiters = new ArrayDeque<>();
+    private boolean wakeupScheduled;
+
+    /**
+     *  Параметры одного прокси пула.
+     *
+     *  @param name        Имя прокси для логов и метрик, например ключ конфигурации; не должно содержать ключ API.
+     *  @param url         Префикс, к которому добавляется адрес страницы elibrary.ru; пустая строка - без прокси.
+     *  @param concurrency Максимальное количество одновременных запросов через прокси.
+     *  @param rateLimiter Ограничитель частоты запросов через прокси.
+     */
+    public record EndpointSettings(String name, String url, int concurrency, RateLimiter rateLimiter) {
+    }
+
+    /**
+     * Создает пул.
+     *
+     * @param settings      Параметры прокси, не менее одного.
+     * @param ejectFailures Количество ошибок подряд, после которого прокси исключается из выбора; 0 отключает исключение.
+     *                      Пул из одного прокси прокси не исключает.
+     * @param ejectMillis   Начальная длительность исключения в миллисекундах.
+     * @throws IllegalArgumentException Если список прокси пуст.
+     */
+    public ProxyPool(List<EndpointSettings> settings, int ejectFailures, long ejectMillis) {
+        if (settings.isEmpty()) {
+            throw new IllegalArgumentException("Пул прокси должен содержать хотя бы один прокси");
+        }
+        this.endpoints = new ArrayList<>(settings.size());
+        for (EndpointSettings endpointSettings : settings) {
+            endpoints.add(new Endpoint(endpointSettings));
+        }
+        this.ejectFailures = settings.size() > 1 ? Math.max(0, ejectFailures) : 0;
+        this.ejectNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, ejectMillis));
+        for (Endpoint endpoint : endpoints) {
+            registerMetrics(endpoint);
+        }
+        log.info("Создан ProxyPool: {} прокси, исключение после {} ошибок подряд на {} мс",
+                endpoints.size(), this.ejectFailures, ejectMillis);
+    }
+
+    /**
+     * Создает пул из одного прокси без ограничения одновременных запросов.
+     *
+     * @param url         Префикс прокси или {@code null}, если прокси не используется.
+     * @param rateLimiter Ограничитель частоты запросов.
+     * @return Пул из одного прокси.
+     */
+    public static ProxyPool single(String url, RateLimiter rateLimiter) {
+        return new ProxyPool(List.of(new EndpointSettings("web_proxy", url != null ? url : "", Integer.MAX_VALUE, rateLimiter)), 0, 1);
+    }
+
+    /**
+     * Выбирает прокси для запроса, ожидая, если все прокси заняты или исключены.
+     * Полученную аренду необходимо закрыть после запроса.
+     *
+     * @return Аренда прокси.
+     * @throws InterruptedException Если поток был прерван во время ожидания.
+     */
+    public synchronized Lease acquire() throws InterruptedException {
+        while (true) {
+            long now = System.nanoTime();
+            Endpoint endpoint = choose(now);
+            if (endpoint != null) {
+                endpoint.inFlight++;
+                return new Lease(endpoint);
+            }
+            long waitNanos = Long.MAX_VALUE;
+            for (Endpoint candidate : endpoints) {
+                if (candidate.ejectedUntil > now) {
+                    waitNanos = Math.min(waitNanos, candidate.ejectedUntil - now);
+                }
+            }
+            if (waitNanos == Long.MAX_VALUE) {
+                wait();
+            } else {
+                TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+            }
+        }
+    }
+
+    /**
+     * Выбирает прокси для запроса, не блокируя поток. Если все прокси заняты или исключены, Future завершится,
+     * когда прокси освободится или закончится пауза исключения. Отмененный Future прокси не получает.
+     *
+     * @return Future с арендой прокси, которую необходимо закрыть после запроса.
+     */
+    public CompletableFuture<Lease> acquireAsync() {
+        synchronized (this) {
+            asyncWaiters.removeIf(CompletableFuture::isDone);
+            if (asyncWaiters.isEmpty()) {
+                Endpoint endpoint = choose(System.nanoTime());
+                if (endpoint != null) {
+                    endpoint.inFlight++;
+                    return CompletableFuture.completedFuture(new Lease(endpoint));
+                }
+            }
+            CompletableFuture<Lease> waiter = new CompletableFuture<>();
+            asyncWaiters.add(waiter);
+            scheduleWakeup(System.nanoTime());
+            return waiter;
+        }
+    }
+
+    /**
+     * Возвращает количество прокси в пуле.
+     *
+     * @return Количество прокси.
+     */
+    public int size() {
+        return endpoints.size();
+    }
+
+    /**
+     * Возвращает суммарный предел одновременных запросов через все прокси.
+     *
+     * @return Сумма пределов, не более {@link Integer#MAX_VALUE}.
+     */
+    public int getTotalConcurrency() {
+        long total = 0;
+        for (Endpoint endpoint : endpoints) {
+            total += endpoint.settings.concurrency();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, total);
+    }
+
+    /**
+     * Выбирает лучший из двух случайных доступных прокси.
+     *
+     * @param now Текущее время по {@link System#nanoTime()}.
+     * @return Прокси или {@code null}, если доступных прокси нет.
+     */
+    private Endpoint choose(long now) {
+        List<Endpoint> available = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.isAvailable(now)) {
+                available.add(endpoint);
+            }
+        }
+        if (available.size() <= 1) {
+            return available.isEmpty() ? null : available.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(available.size());
+        int second = random.nextInt(available.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Endpoint a = available.get(first);
+        Endpoint b = available.get(second);
+        return a.score() <= b.score() ? a : b;
+    }
+
+    private void release(Endpoint endpoint, Outcome outcome, long latencyNanos) {
+        synchronized (this) {
+            update(endpoint, outcome, latencyNanos);
+        }
+        dispatchAsyncWaiters();
+    }
+
+    private void update(Endpoint endpoint, Outcome outcome, long latencyNanos) {
+        endpoint.inFlight--;
+        if (outcome != Outcome.CANCELLED) {
+            endpoint.ewmaNanos = endpoint.ewmaNanos == 0 ? latencyNanos
+                    : EWMA_ALPHA * latencyNanos + (1 - EWMA_ALPHA) * endpoint.ewmaNanos;
+        }
+        if (outcome == Outcome.SUCCESS) {
+            if (endpoint.probing) {
+                log.info("Прокси {} снова доступен", endpoint.settings.name());
+            }
+            endpoint.consecutiveFailures = 0;
+            endpoint.ejections = 0;
+            endpoint.probing = false;
+        } else if (outcome == Outcome.FAILURE) {
+            endpoint.consecutiveFailures++;
+            if (ejectFailures > 0 && (endpoint.probing || endpoint.consecutiveFailures >= ejectFailures)) {
+                eject(endpoint);
+            }
+        } else if (outcome == Outcome.CANCELLED && endpoint.probing) {
+            endpoint.ejectedUntil = 0;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Передает освободившиеся прокси ожидающим асинхронным запросам. Future завершаются вне монитора пула,
+     * так как их продолжения могут сразу обращаться к пулу. Прокси, выданный отмененному Future, возвращается в пул.
+     */
+    private void dispatchAsyncWaiters() {
+        while (true) {
+            CompletableFuture<Lease> waiter;
+            Lease lease;
+            synchronized (this) {
+                asyncWaiters.removeIf(CompletableFuture::isDone);
+                long now = System.nanoTime();
+                Endpoint endpoint = asyncWaiters.isEmpty() ? null : choose(now);
+                if (endpoint == null) {
+                    scheduleWakeup(now);
+                    return;
+                }
+                waiter = asyncWaiters.poll();
+                endpoint.inFlight++;
+                lease = new Lease(endpoint);
+            }
+            if (!waiter.complete(lease)) {
+                synchronized (this) {
+                    update(lease.endpoint, Outcome.CANCELLED, 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Если асинхронные запросы ожидают, а все прокси исключены, планирует их повторную раздачу
+     * на момент окончания ближайшей паузы исключения.
+     */
+    private void scheduleWakeup(long now) {
+        if (asyncWaiters.isEmpty() || wakeupScheduled) {
+            return;
+        }
+        long waitNanos = Long.MAX_VALUE;
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.ejectedUntil > now) {
+                waitNanos = Math.min(waitNanos, endpoint.ejectedUntil - now);
+            }
+        }
+        if (waitNanos == Long.MAX_VALUE) {
+            return;
+        }
+        wakeupScheduled = true;
+        CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS).execute(() -> {
+            synchronized (this) {
+                wakeupScheduled = false;
+            }
+            dispatchAsyncWaiters();
+        });
+    }
+
+    private void eject(Endpoint endpoint) {
+        long pause = Math.min(MAX_EJECT_NANOS, ejectNanos << Math.min(endpoint.ejections, 20));
+        endpoint.ejections++;
+        endpoint.ejectedUntil = System.nanoTime() + pause;
+        endpoint.probing = true;
+        endpoint.ejectionCounter.increment();
+        log.warn("Прокси {} исключен на {} мс после {} ошибок подряд",
+                endpoint.settings.name(), TimeUnit.NANOSECONDS.toMillis(pause), endpoint.consecutiveFailures);
+    }
+
+    private void registerMetrics(Endpoint endpoint) {
+        String name = endpoint.settings.name();
+        Metrics.gauge("elibrary_proxy_latency_seconds", "Сглаженная (EWMA) задержка ответа прокси",
+                () -> {
+                    synchronized (this) {
+                        return endpoint.ewmaNanos / 1e9;
+                    }
+                }, "proxy", name);
+        Metrics.gauge("elibrary_proxy_in_flight", "Количество выполняющихся запросов через прокси",
+                () -> {
+                    synchronized (this) {
+                        return endpoint.inFlight;
+                    }
+                }, "proxy", name);
+        Metrics.gauge("elibrary_proxy_ejected", "Исключен ли прокси из выбора: 1 - исключен или ожидает пробного запроса",
+                () -> {
+                    synchronized (this) {
+                        return endpoint.probing ? 1 : 0;
+                    }
+                }, "proxy", name);
+    }
+
+    /**
+     *  Результат запроса через прокси.
+     */
+    private enum Outcome {
+        SUCCESS, FAILURE, CANCELLED
+    }
+
+    /**
+     *  Состояние одного прокси. Изменяется только под монитором пула.
+     */
+    private static final class Endpoint {
+        private final EndpointSettings settings;
+        private final Metrics.Counter ejectionCounter;
+        private int inFlight;
+        private double ewmaNanos;
+        private int consecutiveFailures;
+        private int ejections;
+        private long ejectedUntil;
+        private boolean probing;
+
+        private Endpoint(EndpointSettings settings) {
+            this.settings = settings;
+            this.ejectionCounter = Metrics.counter("elibrary_proxy_ejections_total",
+                    "Количество исключений прокси из выбора", "proxy", settings.name());
+        }
+
+        private boolean isAvailable(long now) {
+            if (probing) {
+                return ejectedUntil <= now && inFlight == 0;
+            }
+            return inFlight < settings.concurrency();
+        }
+
+        private double score() {
+            return Math.max(ewmaNanos, MIN_LATENCY_NANOS) * (inFlight + 1);
+        }
+    }
+
+    /**
+     *  Аренда прокси на один запрос. Результат запроса сообщается одним из методов
+     *  {@link #onSuccess()}, {@link #onThrottle()} или {@link #onFailure()}; закрытие без результата
+     *  не влияет на оценку прокси.
+     */
+    public final class Lease implements AutoCloseable {
+        private final Endpoint endpoint;
+        private long startNanos;
+        private Outcome outcome = Outcome.CANCELLED;
+
+        private Lease(Endpoint endpoint) {
+            this.endpoint = endpoint;
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Ожидает разрешения ограничителя частоты запросов этого прокси и начинает отсчет задержки ответа.
+         *
+         * @return Время ожидания в миллисекундах.
+         */
+        public long acquireRate() {
+            long waitMillis = endpoint.settings.rateLimiter().acquire();
+            startNanos = System.nanoTime();
+            return waitMillis;
+        }
+
+        /**
+         * Резервирует разрешение ограничителя частоты запросов этого прокси без ожидания.
+         * Отсчет задержки ответа начинается с момента, на который выдано разрешение.
+         *
+         * @return Время в наносекундах, на которое следует отложить запрос.
+         */
+        public long reserveRate() {
+            long waitNanos = endpoint.settings.rateLimiter().reserve();
+            startNanos = System.nanoTime() + waitNanos;
+            return waitNanos;
+        }
+
+        /**
+         * Возвращает адрес страницы через прокси.
+         *
+         * @param targetUrl Адрес страницы elibrary.ru.
+         * @return Адрес с префиксом прокси.
+         */
+        public String url(String targetUrl) {
+            return endpoint.settings.url() + targetUrl;
+        }
+
+        /**
+         * Возвращает имя прокси.
+         *
+         * @return Имя прокси из параметров.
+         */
+        public String proxyName() {
+            return endpoint.settings.name();
+        }
+
+        /**
+         * Сообщает, что прокси ответил (в том числе кодом "автор не найден").
+         */
+        public void onSuccess() {
+            endpoint.settings.rateLimiter().onSuccess();
+            outcome = Outcome.SUCCESS;
+        }
+
+        /**
+         * Сообщает, что сервер ограничивает запросы через прокси (429, 502/503/504, страница блокировки).
+         */
+        public void onThrottle() {
+            endpoint.settings.rateLimiter().onThrottle();
+            outcome = Outcome.FAILURE;
+        }
+
+        /**
+         * Сообщает об ошибке соединения с прокси или таймауте.
+         */
+        public void onFailure() {
+            outcome = Outcome.FAILURE;
+        }
+
+        /**
+         * Возвращает прокси в пул и учитывает результат запроса.
+         */
+        @Override
+        public void close() {
+            Metrics.counter("elibrary_proxy_requests_total", "Количество запросов через прокси по результату",
+                    "proxy", endpoint.settings.name(), "result", outcome.name().toLowerCase(Locale.ROOT)).increment();
+            release(endpoint, outcome, System.nanoTime() - startNanos);
+        }
+    }
+}
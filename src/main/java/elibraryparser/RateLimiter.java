@@ -0,0 +1,140 @@
+package elibraryparser;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Адаптивный ограничитель частоты запросов на основе алгоритма token bucket.
+ *  Запросы выполняются с частотой не выше текущей, допускается кратковременный всплеск до {@code burst} запросов.
+ *  При признаках блокировки (429, 5xx, страница блокировки) частота уменьшается вдвое,
+ *  после серии успешных запросов постепенно восстанавливается до максимальной.
+ *  Экземпляр потокобезопасен и может использоваться несколькими парсерами одновременно.
+ */
+@Log4j2
+public class RateLimiter {
+    private static final double DEFAULT_RATE = 2.0;
+    private static final int DEFAULT_BURST = 2;
+    private static final double MIN_RATE_FRACTION = 0.05;
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final double INCREASE_FRACTION = 0.1;
+    private static final int RECOVERY_STREAK = 20;
+    private static final long DECREASE_COOLDOWN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final double maxRate;
+    private final double minRate;
+    private final int burst;
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos;
+    private long lastDecreaseNanos;
+    private int successStreak;
+
+    /**
+     * Создает ограничитель с частотой и всплеском по умолчанию.
+     */
+    public RateLimiter() {
+        this(DEFAULT_RATE, DEFAULT_BURST);
+    }
+
+    /**
+     * Создает ограничитель с заданной максимальной частотой и размером всплеска.
+     *
+     * @param maxRate Максимальное количество запросов в секунду.
+     * @param burst   Максимальное количество запросов, которые могут быть выполнены без ожидания.
+     * @throws IllegalArgumentException Если частота или всплеск не положительны.
+     */
+    public RateLimiter(double maxRate, int burst) {
+        if (maxRate <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Частота и всплеск должны быть положительными: rate=" + maxRate + ", burst=" + burst);
+        }
+        this.maxRate = maxRate;
+        this.minRate = maxRate * MIN_RATE_FRACTION;
+        this.burst = burst;
+        this.rate = maxRate;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+        this.lastDecreaseNanos = lastRefillNanos - DECREASE_COOLDOWN_NANOS;
+        log.info("Создан RateLimiter: {} запросов/с, всплеск {}", maxRate, burst);
+    }
+
+    /**
+     * Ожидает разрешения на выполнение одного запроса.
+     * При прерывании потока ожидание завершается досрочно, флаг прерывания восстанавливается.
+     *
+     * @return Время ожидания в миллисекундах.
+     */
+    public long acquire() {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            log.debug("Ожидание разрешения на запрос: {} мс", TimeUnit.NANOSECONDS.toMillis(waitNanos));
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                log.warn("Ожидание разрешения на запрос было прервано");
+                Thread.currentThread().interrupt();
+            }
+        }
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos);
+    }
+
+    /**
+     * Резервирует разрешение на один запрос без ожидания. Используется асинхронными запросами,
+     * которые откладывают выполнение на возвращенное время вместо того, чтобы занимать поток.
+     *
+     * @return Время в наносекундах, через которое можно выполнить запрос; 0 - можно выполнить сразу.
+     */
+    public synchronized long reserve() {
+        refill();
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) (-tokens / rate * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Сообщает об успешном запросе. После серии успешных запросов частота увеличивается.
+     */
+    public synchronized void onSuccess() {
+        if (++successStreak < RECOVERY_STREAK || rate >= maxRate) {
+            return;
+        }
+        successStreak = 0;
+        refill();
+        rate = Math.min(maxRate, rate + maxRate * INCREASE_FRACTION);
+        log.debug("Частота запросов увеличена до {} запросов/с", rate);
+    }
+
+    /**
+     * Сообщает о признаке блокировки со стороны сервера. Частота уменьшается вдвое,
+     * но не чаще одного раза в секунду, чтобы одновременные ошибки не обрушили частоту до минимума.
+     */
+    public synchronized void onThrottle() {
+        successStreak = 0;
+        long now = System.nanoTime();
+        if (now - lastDecreaseNanos < DECREASE_COOLDOWN_NANOS) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        refill();
+        rate = Math.max(minRate, rate * DECREASE_FACTOR);
+        log.warn("Сервер ограничивает запросы, частота уменьшена до {} запросов/с", rate);
+    }
+
+    /**
+     * Возвращает текущую разрешенную частоту запросов.
+     *
+     * @return Количество запросов в секунду.
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    /**
+     * Пополняет корзину токенов за время, прошедшее с последнего пополнения.
+     */
+    private void refill() {
+        long now = System.nanoTime();
+        double elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        tokens = Math.min(burst, tokens + elapsedSeconds * rate);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,118 @@
+package elibraryparser;
+
+import lombok.extern.log4j.Log4j2;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ *  Подкоманда {@code reparse}: заново разбирает страницы из архива {@link PageArchive} и обновляет таблицу авторов
+ *  без обращения к сети. Используется после исправления разбора, когда elibrary.ru меняет разметку страниц.
+ *  Страницы читаются в порядке расположения в архиве, распаковываются и разбираются параллельно,
+ *  авторы сохраняются пакетами с временем загрузки страницы.
+ */
+@Log4j2
+@Command(name = "reparse", mixinStandardHelpOptions = true, description = "Заново разбирает страницы из архива и обновляет авторов в базе данных без обращения к сети")
+public class ReparseCommand implements Callable<Integer> {
+    private static final int BATCH_SIZE = 1000;
+
+    @Option(names = "--archive", description = "Каталог архива страниц (по умолчанию параметр page_archive из конфигурации)")
+    private Path archivePath;
+
+    @Option(names = "--config", description = "Файл конфигурации (по умолчанию ${DEFAULT-VALUE})")
+    private String configPath = "analyzer.config";
+
+    @Option(names = "--threads", description = "Количество потоков разбора (по умолчанию количество процессоров)")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     *  Результат разбора одной страницы архива.
+     *
+     *  @param entry Запись архива.
+     *  @param data  Извлеченные данные или {@code null}, если страницу не удалось прочитать.
+     */
+    private record Reparsed(PageArchive.Entry entry, AuthorPageData data) {
+    }
+
+    /**
+     *  Выполняет повторный разбор.
+     *  @return 0 после обработки архива, 1, если архив не задан или не существует.
+     *  @throws Exception если архив не удалось открыть или разбор был прерван.
+     */
+    @Override
+    public Integer call() throws Exception {
+        Path directory = archivePath;
+        if (directory == null) {
+            String configured = FileService.readConfigFile(configPath).getOrDefault("page_archive", "").trim();
+            directory = configured.isEmpty() ? null : Path.of(configured);
+        }
+        if (directory == null || !Files.isDirectory(directory)) {
+            log.error("Архив страниц не найден: укажите --archive или параметр page_archive в {}", configPath);
+            return 1;
+        }
+
+        AuthorPageExtractor extractor = new AuthorPageExtractor();
+        ParserMetrics metrics = new ParserMetrics("reparse");
+        long startNanos = System.nanoTime();
+        long saved = 0;
+        long incomplete = 0;
+        long unreadable = 0;
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try (PageArchive archive = new PageArchive(directory);
+             DatabaseManager database = new DatabaseManager()) {
+            List<PageArchive.Entry> entries = archive.entries();
+            log.info("Повторный разбор {} страниц из архива {} в {} потоков", entries.size(), directory, pool.getParallelism());
+            for (int start = 0; start < entries.size(); start += BATCH_SIZE) {
+                List<PageArchive.Entry> batch = entries.subList(start, Math.min(start + BATCH_SIZE, entries.size()));
+                List<Reparsed> results = pool.submit(() -> batch.parallelStream()
+                        .map(entry -> reparse(archive, extractor, entry))
+                        .toList()).get();
+
+                List<Author> authors = new ArrayList<>(results.size());
+                Map<Integer, Long> fetchedAt = new HashMap<>();
+                for (Reparsed result : results) {
+                    if (result.data() == null) {
+                        unreadable++;
+                        continue;
+                    }
+                    metrics.recordExtraction(result.data());
+                    if (!result.data().isComplete()) {
+                        incomplete++;
+                        log.warn("Автор {}: не удалось извлечь поля {}", result.entry().authorId(), result.data().missingFields());
+                        continue;
+                    }
+                    authors.add(result.data().toAuthor(result.entry().authorId()));
+                    fetchedAt.put(result.entry().authorId(), result.entry().fetchedAt());
+                }
+                saved += database.addAuthors(authors, author -> fetchedAt.get(author.authorId())).values().stream()
+                        .filter(Boolean::booleanValue).count();
+                log.info("Разобрано {} из {} страниц", start + batch.size(), entries.size());
+            }
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            log.info("Повторный разбор завершен за {} с ({} страниц/с): сохранено {}, неполных страниц {}, не прочитано {}",
+                    String.format("%.1f", seconds), String.format("%.0f", entries.size() / Math.max(seconds, 1e-9)),
+                    saved, incomplete, unreadable);
+        } finally {
+            pool.shutdown();
+        }
+        return 0;
+    }
+
+    private static Reparsed reparse(PageArchive archive, AuthorPageExtractor extractor, PageArchive.Entry entry) {
+        try {
+            return new Reparsed(entry, extractor.extract(archive.read(entry)));
+        } catch (IOException e) {
+            log.error("Не удалось прочитать страницу автора {} из архива: {}", entry.authorId(), e.getMessage());
+            return new Reparsed(entry, null);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package elibraryparser;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ *  Обертка над {@link ElibraryParser}, повторяющая запросы при временных ошибках.
+ *  Запрос, завершившийся повторяемым {@link FetchException}, выполняется снова через экспоненциально растущую паузу
+ *  со случайным разбросом (от 0 до {@code baseDelay * 2^(попытка - 1)}, но не более {@code maxDelay}),
+ *  чтобы одновременные запросы не повторялись синхронно. Отсутствие автора и неповторяемые ошибки не повторяются.
+ *  Все запросы проходят через общий {@link CircuitBreaker}: пока прокси не отвечает или отклоняет запросы,
+ *  запросы ожидают, а не расходуют попытки.
+ *  Асинхронный {@link #getAuthorAsync(int)} выполняет те же попытки через асинхронный метод оборачиваемого парсера
+ *  и откладывает повторы по таймеру, не занимая поток на время пауз.
+ *  Экземпляр потокобезопасен, если потокобезопасен оборачиваемый парсер.
+ */
+@Log4j2
+public class ResilientParser implements ElibraryParser {
+    private static final Metrics.Counter RETRIES = Metrics.counter("elibrary_fetch_retries_total",
+            "Количество повторных запросов после временных ошибок");
+    private static final Metrics.Counter EXHAUSTED = Metrics.counter("elibrary_fetch_retries_exhausted_total",
+            "Количество ID, для которых исчерпаны все попытки");
+
+    private final ElibraryParser delegate;
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * Создает обертку.
+     *
+     * @param delegate        Оборачиваемый парсер.
+     * @param maxAttempts     Максимальное количество попыток для одного ID, включая первую; значения меньше 1 заменяются на 1.
+     * @param baseDelayMillis Пауза перед первым повтором в миллисекундах.
+     * @param maxDelayMillis  Максимальная пауза между попытками в миллисекундах.
+     * @param circuitBreaker  Выключатель, общий для всех запросов через прокси.
+     */
+    public ResilientParser(ElibraryParser delegate, int maxAttempts, long baseDelayMillis, long maxDelayMillis,
+                           CircuitBreaker circuitBreaker) {
+        log.info("Инициализация ResilientParser: до {} попыток, пауза от {} до {} мс", maxAttempts, baseDelayMillis, maxDelayMillis);
+        this.delegate = delegate;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = Math.max(0, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Получает данные об авторе, повторяя запрос при временных ошибках.
+     *
+     * @param authorId Идентификатор автора.
+     * @return Объект {@link Author} или {@code null}, если автор не найден.
+     * @throws FetchException Если ошибка неповторяемая, исчерпаны все попытки или ожидание было прервано.
+     */
+    @Override
+    public Author getAuthor(int authorId) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                circuitBreaker.acquirePermission();
+            } catch (InterruptedException e) {
+                log.warn("Ожидание разрешения на запрос автора {} было прервано", authorId);
+                Thread.currentThread().interrupt();
+                throw new FetchException("Ожидание разрешения на запрос автора " + authorId + " было прервано", e, true);
+            }
+            try {
+                Author author = delegate.getAuthor(authorId);
+                if (Thread.currentThread().isInterrupted()) {
+                    circuitBreaker.onCancel();
+                } else {
+                    circuitBreaker.onSuccess();
+                }
+                return author;
+            } catch (FetchException e) {
+                recordFailure(e);
+                if (!e.isRetryable() || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    EXHAUSTED.increment();
+                    log.warn("Автор {}: исчерпаны все {} попыток, последняя ошибка: {}", authorId, maxAttempts, e.getMessage());
+                    throw e;
+                }
+                long delayMillis = backoffMillis(attempt);
+                RETRIES.increment();
+                log.info("Автор {}: повтор через {} мс (попытка {} из {}) после ошибки: {}",
+                        authorId, delayMillis, attempt + 1, maxAttempts, e.getMessage());
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            } catch (RuntimeException e) {
+                circuitBreaker.onCancel();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Асинхронно получает данные об авторе, повторяя запрос при временных ошибках.
+     * Отмена возвращенного Future отменяет выполняющуюся попытку и прекращает повторы.
+     *
+     * @param authorId Идентификатор автора.
+     * @return Future с объектом {@link Author} или {@code null}, если автор не найден. Завершается {@link FetchException},
+     *         если ошибка неповторяемая или исчерпаны все попытки.
+     */
+    @Override
+    public CompletableFuture<Author> getAuthorAsync(int authorId) {
+        CompletableFuture<Author> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<?>> currentStep = new AtomicReference<>();
+        result.whenComplete((author, error) -> {
+            CompletableFuture<?> step = currentStep.get();
+            if (result.isCancelled() && step != null) {
+                step.cancel(true);
+            }
+        });
+        attemptAsync(authorId, 1, result, currentStep);
+        return result;
+    }
+
+    /**
+     * Выполняет одну попытку асинхронного запроса и по ее результату завершает {@code result} или планирует повтор.
+     *
+     * @param authorId    Идентификатор автора.
+     * @param attempt     Номер попытки, начиная с 1.
+     * @param result      Future, возвращенный вызывающему.
+     * @param currentStep Выполняющийся шаг (ожидание разрешения или запрос), который отменяется вместе с {@code result}.
+     */
+    private void attemptAsync(int authorId, int attempt, CompletableFuture<Author> result,
+                              AtomicReference<CompletableFuture<?>> currentStep) {
+        if (result.isDone()) {
+            return;
+        }
+        CompletableFuture<Void> permission = circuitBreaker.acquirePermissionAsync();
+        currentStep.set(permission);
+        permission.thenRun(() -> {
+            if (result.isDone()) {
+                circuitBreaker.onCancel();
+                return;
+            }
+            CompletableFuture<Author> fetch;
+            try {
+                fetch = delegate.getAuthorAsync(authorId);
+            } catch (RuntimeException e) {
+                fetch = CompletableFuture.failedFuture(e);
+            }
+            currentStep.set(fetch);
+            if (result.isCancelled()) {
+                fetch.cancel(true);
+            }
+            fetch.whenComplete((author, error) -> onAttemptComplete(authorId, attempt, result, currentStep, author, error));
+        });
+    }
+
+    private void onAttemptComplete(int authorId, int attempt, CompletableFuture<Author> result,
+                                   AtomicReference<CompletableFuture<?>> currentStep, Author author, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause == null) {
+            if (result.isDone()) {
+                circuitBreaker.onCancel();
+            } else {
+                circuitBreaker.onSuccess();
+                result.complete(author);
+            }
+            return;
+        }
+        if (!(cause instanceof FetchException e)) {
+            circuitBreaker.onCancel();
+            if (!(cause instanceof CancellationException)) {
+                result.completeExceptionally(cause);
+            }
+            return;
+        }
+        recordFailure(e);
+        if (!e.isRetryable() || e.getCause() instanceof InterruptedException) {
+            result.completeExceptionally(e);
+            return;
+        }
+        if (attempt >= maxAttempts) {
+            EXHAUSTED.increment();
+            log.warn("Автор {}: исчерпаны все {} попыток, последняя ошибка: {}", authorId, maxAttempts, e.getMessage());
+            result.completeExceptionally(e);
+            return;
+        }
+        long delayMillis = backoffMillis(attempt);
+        RETRIES.increment();
+        log.info("Автор {}: повтор через {} мс (попытка {} из {}) после ошибки: {}",
+                authorId, delayMillis, attempt + 1, maxAttempts, e.getMessage());
+        CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS)
+                .execute(() -> attemptAsync(authorId, attempt + 1, result, currentStep));
+    }
+
+    /**
+     * Сообщает выключателю о попытке, завершившейся {@link FetchException}. Ошибкой считаются как временные ошибки,
+     * так и неожиданные коды ответа (например, 401 или 403 от прокси): прокси, отклоняющий каждый запрос,
+     * размыкает выключатель, а не расходует входные ID. Ошибка, после которой запрос не был отправлен
+     * (некорректный URL) или была прервана, о состоянии прокси ничего не говорит и учитывается как отмена.
+     *
+     * @param e Ошибка попытки.
+     */
+    private void recordFailure(FetchException e) {
+        if (e.getCause() instanceof InterruptedException) {
+            circuitBreaker.onCancel();
+        } else if (e.isRetryable() || e.getStatusCode() != 0) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onCancel();
+        }
+    }
+
+    /**
+     * Вычисляет паузу перед повтором со случайным разбросом.
+     *
+     * @param attempt Номер завершившейся неудачей попытки, начиная с 1.
+     * @return Пауза в миллисекундах.
+     */
+    private long backoffMillis(int attempt) {
+        long ceiling = baseDelayMillis << Math.min(attempt - 1, 30);
+        if (ceiling <= 0 || ceiling > maxDelayMillis) {
+            ceiling = maxDelayMillis;
+        }
+        return ceiling == 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Возвращает выключатель запросов.
+     *
+     * @return Выключатель, общий для всех запросов через обертку.
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Освобождает ресурсы оборачиваемого парсера.
+     */
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
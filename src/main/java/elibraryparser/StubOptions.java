@@ -0,0 +1,41 @@
+package elibraryparser;
+
+import picocli.CommandLine.Option;
+
+import java.nio.file.Path;
+
+/**
+ *  Общие опции командной строки для параметров {@link ElibraryStubServer}.
+ */
+public class StubOptions {
+
+    @Option(names = "--latency-median", description = "Медиана задержки ответа в мс (по умолчанию ${DEFAULT-VALUE})")
+    private int latencyMedianMillis = 200;
+
+    @Option(names = "--latency-p99", description = "99-й перцентиль задержки ответа в мс (по умолчанию ${DEFAULT-VALUE})")
+    private int latencyP99Millis = 1500;
+
+    @Option(names = "--not-found-rate", description = "Доля ответов 500 'автор не найден' (по умолчанию ${DEFAULT-VALUE})")
+    private double notFoundRate = 0.02;
+
+    @Option(names = "--block-rate", description = "Доля страниц блокировки (по умолчанию ${DEFAULT-VALUE})")
+    private double blockRate = 0.01;
+
+    @Option(names = "--throttle-rate", description = "Доля ответов 429 (по умолчанию ${DEFAULT-VALUE})")
+    private double throttleRate = 0.01;
+
+    @Option(names = "--page-size", description = "Размер формируемой страницы в КБ (по умолчанию ${DEFAULT-VALUE})")
+    private int pageSizeKb = 500;
+
+    @Option(names = "--pages-dir", description = "Каталог записанных страниц <ID>.html")
+    private Path pagesDir;
+
+    /**
+     *  Возвращает параметры заглушки, заданные опциями.
+     *  @return Параметры {@link ElibraryStubServer}.
+     */
+    public ElibraryStubServer.Settings toSettings() {
+        return new ElibraryStubServer.Settings(latencyMedianMillis, latencyP99Millis, notFoundRate, blockRate,
+                throttleRate, pageSizeKb, pagesDir);
+    }
+}
@@ -0,0 +1,38 @@
+package elibraryparser;
+
+import lombok.extern.log4j.Log4j2;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ *  Подкоманда {@code stub}: запускает локальную заглушку elibrary.ru до завершения процесса.
+ */
+@Log4j2
+@Command(name = "stub", mixinStandardHelpOptions = true, description = "Запускает локальную заглушку elibrary.ru для нагрузочного тестирования")
+public class StubServerCommand implements Callable<Integer> {
+
+    @Option(names = {"-p", "--port"}, description = "Порт (по умолчанию ${DEFAULT-VALUE})")
+    private int port = 8089;
+
+    @Mixin
+    private StubOptions stubOptions;
+
+    /**
+     *  Запускает сервер и ожидает завершения процесса.
+     *  @return 0 после остановки сервера.
+     *  @throws Exception если порт не удалось открыть.
+     */
+    @Override
+    public Integer call() throws Exception {
+        ElibraryStubServer server = new ElibraryStubServer(port, stubOptions.toSettings());
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.start();
+        log.info("Параметр для analyzer.config: web_proxy = {}", server.getProxyUrl());
+        new CountDownLatch(1).await();
+        return 0;
+    }
+}
@@ -0,0 +1,60 @@
+package elibraryparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *  Вытеснение и устаревание записей {@link AuthorCache}.
+ */
+class AuthorCacheTest {
+    private static final Author AUTHOR = new Author(1, "Автор 1", 10, 4, 3);
+
+    @Test
+    void keepsEntryWithoutLimits() {
+        AuthorCache cache = new AuthorCache(10, Duration.ZERO);
+        cache.put(AUTHOR);
+        assertEquals(AUTHOR, cache.get(1));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    void evictsEntriesBeyondMaxSize() {
+        AuthorCache cache = new AuthorCache(16, Duration.ZERO);
+        for (int authorId = 1; authorId <= 100; authorId++) {
+            cache.put(new Author(authorId, "Автор " + authorId, 1, 1, 0));
+        }
+        assertTrue(cache.size() <= 16);
+        assertEquals(100 - cache.size(), cache.getEvictionCount());
+        assertEquals(new Author(100, "Автор 100", 1, 1, 0), cache.get(100));
+    }
+
+    @Test
+    void doesNotCacheAuthorOlderThanMaxAge() {
+        AuthorCache cache = new AuthorCache(10, Duration.ZERO, Duration.ofDays(30));
+        cache.put(AUTHOR, System.currentTimeMillis() - Duration.ofDays(31).toMillis());
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    void expiresEntryWhenDataBecomesStale() throws InterruptedException {
+        AuthorCache cache = new AuthorCache(10, Duration.ZERO, Duration.ofDays(30));
+        cache.put(AUTHOR, System.currentTimeMillis() - Duration.ofDays(30).toMillis() + 50);
+        assertEquals(AUTHOR, cache.get(1));
+        Thread.sleep(100);
+        assertNull(cache.get(1), "Запись должна устареть по времени загрузки, а не по времени помещения в кэш");
+    }
+
+    @Test
+    void replacesStaleEntryWithRefreshedAuthor() {
+        AuthorCache cache = new AuthorCache(10, Duration.ZERO, Duration.ofDays(30));
+        cache.put(AUTHOR, System.currentTimeMillis() - Duration.ofDays(29).toMillis());
+        Author refreshed = new Author(1, "Автор 1", 11, 4, 4);
+        cache.put(refreshed);
+        assertEquals(refreshed, cache.get(1));
+    }
+}
@@ -0,0 +1,65 @@
+package elibraryparser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *  Набор ID авторов и разбор файла с ID через {@link FileService}.
+ */
+class AuthorIdSetTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void iteratesIdsAcrossChunksInAscendingOrder() {
+        AuthorIdSet authorIds = new AuthorIdSet();
+        int[] expected = {1, 63, 64, 65_535, 65_536, 1_000_000, Integer.MAX_VALUE};
+        for (int i = expected.length - 1; i >= 0; i--) {
+            assertTrue(authorIds.add(expected[i]));
+        }
+        assertFalse(authorIds.add(65_536));
+
+        assertEquals(expected.length, authorIds.size());
+        assertArrayEquals(expected, authorIds.stream().toArray());
+        assertTrue(authorIds.contains(Integer.MAX_VALUE));
+        assertFalse(authorIds.contains(2));
+        assertFalse(authorIds.contains(-1));
+        assertEquals("AuthorIdSet[размер: 7, блоков: 4]", authorIds.toString());
+    }
+
+    @Test
+    void rejectsNonPositiveIds() {
+        AuthorIdSet authorIds = new AuthorIdSet();
+        assertThrows(IllegalArgumentException.class, () -> authorIds.add(0));
+        assertThrows(IllegalArgumentException.class, () -> authorIds.add(-5));
+        assertTrue(authorIds.isEmpty());
+        assertFalse(authorIds.iterator().hasNext());
+    }
+
+    @Test
+    void readsIdsSkippingInvalidTokens() throws IOException {
+        Path file = directory.resolve("ids.txt");
+        Files.write(file, ("\uFEFF12, 7\n7\t2147483647 2147483648 0 -3 12a\r\n\n5").getBytes(StandardCharsets.UTF_8));
+
+        AuthorIdSet authorIds = new FileService().readAuthorIds(file);
+
+        assertArrayEquals(new int[]{5, 7, 12, Integer.MAX_VALUE}, authorIds.stream().toArray());
+    }
+
+    @Test
+    void parsesIdsFromText() {
+        assertEquals(Set.of(3, 10, 42), new FileService().parseAuthorIds("42,3 , 10\nabc,,10"));
+    }
+}
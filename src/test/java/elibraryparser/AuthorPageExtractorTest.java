@@ -0,0 +1,139 @@
+package elibraryparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *  Разбор страниц профиля из набора {@code src/test/resources/pages}: каждая страница разбирается целиком
+ *  и потоково порциями разного размера, результаты должны совпадать.
+ */
+class AuthorPageExtractorTest {
+    private static final int[] CHUNK_SIZES = {1, 7, 64, 4096, Integer.MAX_VALUE};
+
+    private final AuthorPageExtractor extractor = new AuthorPageExtractor();
+
+    @Test
+    void extractsCompletePage() {
+        AuthorPageData data = extractAll("complete.html", false);
+        assertEquals(new AuthorPageData("Петрова Анна Сергеевна", 96, 55, 9), data);
+        assertTrue(data.isComplete());
+        assertEquals(new Author(654321, "Петрова Анна Сергеевна", 96, 41, 9), data.toAuthor(654321));
+    }
+
+    @Test
+    void reportsMissingName() {
+        AuthorPageData data = extractAll("missing_name.html", false);
+        assertEquals(new AuthorPageData(null, 96, 55, 9), data);
+        assertEquals(List.of("ФИО"), data.missingFields());
+    }
+
+    @Test
+    void reportsMissingPublishesCount() {
+        AuthorPageData data = extractAll("missing_publishes.html", false);
+        assertEquals(new AuthorPageData("Петрова Анна Сергеевна", null, 55, 9), data);
+        assertEquals(List.of("Число публикаций"), data.missingFields());
+    }
+
+    @Test
+    void reportsMissingCitedPublishesCount() {
+        AuthorPageData data = extractAll("missing_cited.html", false);
+        assertEquals(new AuthorPageData("Петрова Анна Сергеевна", 96, null, 9), data);
+        assertEquals(List.of("Число цитирований"), data.missingFields());
+    }
+
+    @Test
+    void reportsMissingHirshIndex() {
+        AuthorPageData data = extractAll("missing_hirsh.html", false);
+        assertEquals(new AuthorPageData("Петрова Анна Сергеевна", 96, 55, null), data);
+        assertEquals(List.of("Индекс Хирша"), data.missingFields());
+    }
+
+    @Test
+    void treatsOverflowingNumberAsMissing() {
+        AuthorPageData data = extractAll("number_overflow.html", false);
+        assertEquals(new AuthorPageData("Петрова Анна Сергеевна", 96, 55, null), data);
+    }
+
+    @Test
+    void extractsNothingFromNotFoundPage() {
+        AuthorPageData data = extractAll("not_found.html", false);
+        assertEquals(new AuthorPageData(null, null, null, null), data);
+        assertEquals(4, data.missingFields().size());
+        assertThrows(IllegalStateException.class, () -> data.toAuthor(1));
+    }
+
+    @Test
+    void detectsBlockPage() {
+        AuthorPageData data = extractAll("block_page.html", true);
+        assertFalse(data.isComplete());
+    }
+
+    @Test
+    void detectsCaptchaPage() {
+        AuthorPageData data = extractAll("captcha.html", true);
+        assertFalse(data.isComplete());
+    }
+
+    @Test
+    void streamingStopsOnceAllFieldsFound() {
+        String page = load("complete.html");
+        char[] padded = page.replace("</body>", "<p>заполнитель</p>\n".repeat(10_000) + "</body>").toCharArray();
+        AuthorPageExtractor.Session session = extractor.newSession();
+        int fed = 0;
+        while (fed < padded.length && !session.isDone()) {
+            int length = Math.min(512, padded.length - fed);
+            session.feed(padded, fed, length);
+            fed += length;
+        }
+        assertTrue(session.isDone());
+        assertTrue(fed < padded.length / 2, "Загрузка должна прекратиться после извлечения всех полей");
+        assertEquals(new AuthorPageData("Петрова Анна Сергеевна", 96, 55, 9), session.finish());
+    }
+
+    /**
+     * Разбирает страницу целиком и потоково порциями {@link #CHUNK_SIZES}, проверяет совпадение результатов
+     * и признак страницы блокировки.
+     */
+    private AuthorPageData extractAll(String name, boolean blockPage) {
+        String page = load(name);
+        assertEquals(blockPage, ElibraryParser.isBlockPage(page), name);
+        AuthorPageData expected = extractor.extract(page);
+        char[] chars = page.toCharArray();
+        for (int chunkSize : CHUNK_SIZES) {
+            AuthorPageExtractor.Session session = extractor.newSession();
+            for (int offset = 0; offset < chars.length && !session.isDone(); offset += chunkSize) {
+                session.feed(chars, offset, Math.min(chunkSize, chars.length - offset));
+            }
+            assertEquals(blockPage, session.isBlockPage(), name + ", порция " + chunkSize);
+            if (!blockPage) {
+                assertEquals(expected, session.finish(), name + ", порция " + chunkSize);
+            }
+        }
+        if (blockPage) {
+            assertNull(expected.name(), name);
+        }
+        return expected;
+    }
+
+    private static String load(String name) {
+        try (InputStream stream = AuthorPageExtractorTest.class.getClassLoader().getResourceAsStream("pages/" + name)) {
+            if (stream == null) {
+                throw new IllegalStateException("Ресурс не найден: pages/" + name);
+            }
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package elibraryparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *  Ограничение запросов и передача авторов подписчику в {@link AuthorPublisher}.
+ */
+class AuthorPublisherTest {
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+
+    @Test
+    void publishesFoundAuthorsWithinConcurrencyLimit() throws Exception {
+        TestSubscriber subscriber = new TestSubscriber(1);
+        new AuthorPublisher(delayedParser(), IntStream.rangeClosed(1, 10), 2).subscribe(subscriber);
+
+        subscriber.completed.get(5, TimeUnit.SECONDS);
+        Set<Integer> published = subscriber.received.stream().map(Author::authorId).collect(Collectors.toSet());
+        assertEquals(Set.of(1, 2, 4, 8, 10), published, "Ненайденные и незагруженные авторы пропускаются");
+        assertEquals(10, calls.get());
+        assertTrue(maxActive.get() <= 2, "Одновременно выполнялось " + maxActive.get() + " запросов");
+    }
+
+    @Test
+    void startsNoMoreRequestsThanSubscriberDemanded() throws Exception {
+        TestSubscriber subscriber = new TestSubscriber(0);
+        new AuthorPublisher(delayedParser(), IntStream.of(1, 2, 4, 8, 10), 4).subscribe(subscriber);
+        subscriber.subscription.request(2);
+
+        while (subscriber.received.size() < 2) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(50);
+        assertEquals(2, subscriber.received.size());
+        assertEquals(2, calls.get(), "Запросы сверх запрошенного подписчиком количества не выполняются");
+    }
+
+    @Test
+    void rejectsSecondSubscriber() throws Exception {
+        AuthorPublisher publisher = new AuthorPublisher(delayedParser(), IntStream.of(1), 1);
+        publisher.subscribe(new TestSubscriber(1));
+        TestSubscriber second = new TestSubscriber(1);
+        publisher.subscribe(second);
+
+        assertInstanceOf(IllegalStateException.class, second.error.get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Парсер, завершающий запрос через 5 мс: ID, кратные 3, не найдены, а ID 5 и 7 не загружаются.
+     */
+    private ElibraryParser delayedParser() {
+        return new ElibraryParser() {
+            @Override
+            public Author getAuthor(int authorId) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<Author> getAuthorAsync(int authorId) {
+                calls.incrementAndGet();
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                CompletableFuture<Author> result = new CompletableFuture<>();
+                CompletableFuture.delayedExecutor(5, TimeUnit.MILLISECONDS).execute(() -> {
+                    active.decrementAndGet();
+                    if (authorId == 5 || authorId == 7) {
+                        result.completeExceptionally(new FetchException("Ответ 500", 500, false));
+                    } else {
+                        result.complete(authorId % 3 == 0 ? null : new Author(authorId, "Автор " + authorId, 10, 4, 3));
+                    }
+                });
+                return result;
+            }
+        };
+    }
+
+    /**
+     *  Подписчик, запрашивающий следующую порцию авторов после каждого полученного.
+     */
+    private static final class TestSubscriber implements Flow.Subscriber<Author> {
+        private final long batch;
+        private final List<Author> received = new CopyOnWriteArrayList<>();
+        private final CompletableFuture<Void> completed = new CompletableFuture<>();
+        private final CompletableFuture<Throwable> error = new CompletableFuture<>();
+        private volatile Flow.Subscription subscription;
+
+        private TestSubscriber(long batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (batch > 0) {
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onNext(Author author) {
+            received.add(author);
+            if (batch > 0) {
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error.complete(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completed.complete(null);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package elibraryparser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ *  Ответы HTTP API {@link AuthorsApiServer} на случайном порту с базой данных во временном файле.
+ */
+class AuthorsApiServerTest {
+    @TempDir
+    Path directory;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void returnsAuthorAndNotFound() throws Exception {
+        ElibraryParser parser = authorId -> authorId == 1 ? new Author(1, "Автор 1", 10, 4, 3) : null;
+        try (AuthorsManager manager = new AuthorsManager(parser, database());
+             AuthorsApiServer server = new AuthorsApiServer(manager, 0, 2, 100)) {
+            HttpResponse<String> found = get(server, "/authors/1");
+            assertEquals(200, found.statusCode());
+            assertEquals("{\"id\":1,\"name\":\"Автор 1\",\"publishesCount\":10,\"zeroCittPublishesCount\":4,\"hirshIndex\":3}",
+                    found.body());
+
+            HttpResponse<String> missing = get(server, "/authors/2");
+            assertEquals(404, missing.statusCode());
+            assertEquals("{\"id\":2,\"found\":false}", missing.body());
+
+            assertEquals(400, get(server, "/authors/abc").statusCode());
+            assertEquals(400, get(server, "/authors/0").statusCode());
+            assertEquals(400, get(server, "/authors/-5").statusCode());
+        }
+    }
+
+    @Test
+    void distinguishesFailedFetchFromNotFound() throws Exception {
+        ElibraryParser parser = authorId -> {
+            if (authorId == 3) {
+                throw new FetchException("Ответ прокси 403", 403, false);
+            }
+            return authorId == 1 ? new Author(1, "Автор 1", 10, 4, 3) : null;
+        };
+        try (AuthorsManager manager = new AuthorsManager(parser, database());
+             AuthorsApiServer server = new AuthorsApiServer(manager, 0, 2, 100)) {
+            HttpResponse<String> failed = get(server, "/authors/3");
+            assertEquals(503, failed.statusCode(), "Ошибка загрузки не должна выглядеть как отсутствие автора");
+
+            HttpResponse<String> batch = post(server, "/authors:batch", "[2, 3]");
+            assertEquals(200, batch.statusCode());
+            assertEquals(Set.of("{\"id\":2,\"found\":false}", "{\"id\":3,\"found\":false,\"error\":true}"),
+                    Set.copyOf(batch.body().lines().toList()));
+
+            assertEquals(400, post(server, "/authors:batch", "[1, 0]").statusCode());
+        }
+    }
+
+    @Test
+    void returnsJsonErrorOnUnexpectedException() throws Exception {
+        ElibraryParser parser = authorId -> null;
+        try (AuthorsManager manager = new AuthorsManager(parser, database()) {
+            @Override
+            public Set<Author> getAuthors(Set<Integer> authorIds, FetchListener listener) {
+                throw new IllegalStateException("База данных недоступна");
+            }
+        };
+             AuthorsApiServer server = new AuthorsApiServer(manager, 0, 2, 100)) {
+            HttpResponse<String> response = get(server, "/authors/1");
+
+            assertEquals(500, response.statusCode());
+            assertEquals("application/json; charset=utf-8", response.headers().firstValue("Content-Type").orElse(""));
+            assertEquals("{\"error\":\"Внутренняя ошибка сервера\"}", response.body());
+        }
+    }
+
+    private DatabaseManager database() {
+        return new DatabaseManager("jdbc:sqlite:" + directory.resolve("authors.db"));
+    }
+
+    private HttpResponse<String> get(AuthorsApiServer server, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + path)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(AuthorsApiServer server, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
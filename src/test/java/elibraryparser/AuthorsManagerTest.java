@@ -0,0 +1,234 @@
+package elibraryparser;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *  Получение авторов через {@link AuthorsManager} с базой данных во временном файле и парсером-заглушкой.
+ */
+class AuthorsManagerTest {
+    private static final long STALE_FETCHED_AT = System.currentTimeMillis() - Duration.ofDays(60).toMillis();
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger parserCalls = new AtomicInteger();
+    private String databaseUrl;
+
+    @BeforeEach
+    void setUp() {
+        databaseUrl = "jdbc:sqlite:" + directory.resolve("authors.db");
+    }
+
+    @AfterEach
+    void tearDown() {
+        parserCalls.set(0);
+    }
+
+    @Test
+    void refreshesQueuedStaleAuthorsBeforeClose() {
+        DatabaseManager database = new DatabaseManager(databaseUrl);
+        database.addAuthors(List.of(author(1, 1), author(2, 1), author(3, 1)), author -> STALE_FETCHED_AT);
+        try (AuthorsManager manager = new AuthorsManager(slowParser(50), database, 2, null, Duration.ofDays(30), 1)) {
+            assertEquals(Set.of(author(1, 1), author(2, 1), author(3, 1)), manager.getAuthors(Set.of(1, 2, 3)));
+        }
+
+        assertEquals(3, parserCalls.get(), "Запланированные обновления должны выполниться до закрытия");
+        try (DatabaseManager reopened = new DatabaseManager(databaseUrl)) {
+            DatabaseManager.AuthorsLookup lookup = reopened.getAuthors(Set.of(1, 2, 3), Duration.ofDays(30));
+            assertEquals(Set.of(author(1, 2), author(2, 2), author(3, 2)), lookup.found());
+            assertEquals(Set.of(), lookup.stale());
+        }
+    }
+
+    @Test
+    void reportsNotFoundSeparatelyFromFetchFailure() {
+        ElibraryParser parser = authorId -> switch (authorId) {
+            case 1 -> author(1, 1);
+            case 2 -> null;
+            default -> throw new FetchException("Ответ прокси 403", 403, false);
+        };
+        Map<Integer, AuthorsManager.FetchOutcome> outcomes = new ConcurrentHashMap<>();
+        try (AuthorsManager manager = new AuthorsManager(parser, new DatabaseManager(databaseUrl), 2)) {
+            Set<Author> authors = manager.getAuthors(Set.of(1, 2, 3), (authorId, author, outcome) -> outcomes.put(authorId, outcome));
+            assertEquals(Set.of(author(1, 1)), authors);
+        }
+
+        assertEquals(Map.of(1, AuthorsManager.FetchOutcome.FOUND, 2, AuthorsManager.FetchOutcome.NOT_FOUND,
+                3, AuthorsManager.FetchOutcome.FAILED), outcomes);
+    }
+
+    @Test
+    void propagatesListenerFailureForStoredAndFetchedAuthors() {
+        DatabaseManager database = new DatabaseManager(databaseUrl);
+        database.addAuthors(List.of(author(1, 1)));
+        AuthorsManager.FetchListener failing = (authorId, author, outcome) -> {
+            throw new UncheckedIOException(new IOException("Диск заполнен"));
+        };
+        try (AuthorsManager manager = new AuthorsManager(slowParser(10), database, 2)) {
+            assertThrows(UncheckedIOException.class, () -> manager.getAuthors(Set.of(1), failing));
+            assertThrows(UncheckedIOException.class, () -> manager.getAuthors(Set.of(2), failing));
+        }
+    }
+
+    @Test
+    void countsFoundAuthorsWithoutCollectingThem() {
+        try (AuthorsManager manager = new AuthorsManager(slowParser(0), new DatabaseManager(databaseUrl), 4)) {
+            Set<Integer> reported = ConcurrentHashMap.newKeySet();
+            int foundCount = manager.processAuthors(IntStream.rangeClosed(1, 250),
+                    (authorId, author, outcome) -> reported.add(authorId));
+            assertEquals(250, foundCount);
+            assertEquals(250, reported.size());
+        }
+    }
+
+    @Test
+    void interruptedCallerDoesNotCancelCoalescedFetch() throws Exception {
+        CompletableFuture<Author> pending = new CompletableFuture<>();
+        CountDownLatch requested = new CountDownLatch(1);
+        ElibraryParser parser = new ElibraryParser() {
+            @Override
+            public Author getAuthor(int authorId) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<Author> getAuthorAsync(int authorId) {
+                parserCalls.incrementAndGet();
+                requested.countDown();
+                return pending;
+            }
+        };
+        try (AuthorsManager manager = new AuthorsManager(parser, new DatabaseManager(databaseUrl), 2)) {
+            CompletableFuture<Set<Author>> first = new CompletableFuture<>();
+            CompletableFuture<Set<Author>> second = new CompletableFuture<>();
+            Thread firstCaller = new Thread(() -> first.complete(manager.getAuthors(Set.of(1))));
+            Thread secondCaller = new Thread(() -> second.complete(manager.getAuthors(Set.of(1))));
+            firstCaller.start();
+            assertTrue(requested.await(5, TimeUnit.SECONDS));
+            secondCaller.start();
+            while (secondCaller.getState() != Thread.State.WAITING) {
+                Thread.sleep(5);
+            }
+
+            firstCaller.interrupt();
+            assertEquals(Set.of(), first.get(5, TimeUnit.SECONDS));
+            assertFalse(pending.isCancelled(), "Запрос, которого ожидает другой вызов, не должен отменяться");
+
+            pending.complete(author(1, 1));
+            assertEquals(Set.of(author(1, 1)), second.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, parserCalls.get());
+    }
+
+    @Test
+    void limitsConcurrentParserRequests() {
+        AtomicInteger maxActive = new AtomicInteger();
+        try (AuthorsManager manager = new AuthorsManager(trackingParser(maxActive), new DatabaseManager(databaseUrl), 3)) {
+            assertEquals(20, manager.getAuthors(IntStream.rangeClosed(1, 20).boxed().collect(Collectors.toSet())).size());
+        }
+
+        assertEquals(20, parserCalls.get());
+        assertTrue(maxActive.get() <= 3, "Одновременно выполнялось " + maxActive.get() + " запросов");
+    }
+
+    @Test
+    void backgroundRefreshesShareConcurrencyLimit() {
+        DatabaseManager database = new DatabaseManager(databaseUrl);
+        Set<Integer> authorIds = IntStream.rangeClosed(1, 10).boxed().collect(Collectors.toSet());
+        database.addAuthors(authorIds.stream().map(authorId -> author(authorId, 1)).toList(), author -> STALE_FETCHED_AT);
+        AtomicInteger maxActive = new AtomicInteger();
+        try (AuthorsManager manager = new AuthorsManager(trackingParser(maxActive), database, 2, null, Duration.ofDays(30), 8)) {
+            assertEquals(10, manager.getAuthors(authorIds).size());
+        }
+
+        assertEquals(10, parserCalls.get());
+        assertTrue(maxActive.get() <= 2, "Фоновые обновления выполняли одновременно " + maxActive.get() + " запросов");
+        try (DatabaseManager reopened = new DatabaseManager(databaseUrl)) {
+            assertEquals(Set.of(), reopened.getAuthors(authorIds, Duration.ofDays(30)).stale());
+        }
+    }
+
+    @Test
+    void sizesConcurrencyLimitFromProxyPoolUnlessSet() {
+        Map<String, String> config = new HashMap<>(Map.of(
+                "web_proxy.1", "http://first/?url=", "web_proxy.1.concurrency", "3",
+                "web_proxy.2", "http://second/?url=", "web_proxy.2.concurrency", "5"));
+        assertEquals(8, AuthorsManager.getMaxConcurrency(config, AuthorsManager.createProxyPool(config)));
+
+        config.put("max_concurrency", "4");
+        assertEquals(4, AuthorsManager.getMaxConcurrency(config, AuthorsManager.createProxyPool(config)));
+
+        Map<String, String> single = Map.of("web_proxy", "http://single/?url=");
+        assertEquals(8, AuthorsManager.getMaxConcurrency(single, AuthorsManager.createProxyPool(single)));
+    }
+
+    /**
+     * Асинхронный парсер, возвращающий автора с индексом Хирша 1 через 10 мс и запоминающий наибольшее
+     * количество одновременно выполнявшихся запросов.
+     */
+    private ElibraryParser trackingParser(AtomicInteger maxActive) {
+        AtomicInteger active = new AtomicInteger();
+        return new ElibraryParser() {
+            @Override
+            public Author getAuthor(int authorId) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<Author> getAuthorAsync(int authorId) {
+                parserCalls.incrementAndGet();
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                CompletableFuture<Author> result = new CompletableFuture<>();
+                CompletableFuture.delayedExecutor(10, TimeUnit.MILLISECONDS).execute(() -> {
+                    active.decrementAndGet();
+                    result.complete(author(authorId, 1));
+                });
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Парсер, возвращающий автора с индексом Хирша 2 после задержки.
+     */
+    private ElibraryParser slowParser(long delayMillis) {
+        return authorId -> {
+            parserCalls.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            return author(authorId, 2);
+        };
+    }
+
+    private static Author author(int authorId, int hirshIndex) {
+        return new Author(authorId, "Автор " + authorId, 10, 4, hirshIndex);
+    }
+}
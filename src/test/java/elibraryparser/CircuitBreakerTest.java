@@ -0,0 +1,72 @@
+package elibraryparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *  Переходы состояний {@link CircuitBreaker} с короткой паузой.
+ */
+class CircuitBreakerTest {
+    private static final long PAUSE_MILLIS = 50;
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(3, PAUSE_MILLIS);
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(), "Успешный ответ сбрасывает счетчик ошибок");
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.acquirePermissionAsync().isDone());
+    }
+
+    @Test
+    void probeSuccessClosesBreakerAndWakesWaiters() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, PAUSE_MILLIS);
+        breaker.onFailure();
+        CompletableFuture<Void> probe = breaker.acquirePermissionAsync();
+        CompletableFuture<Void> waiter = breaker.acquirePermissionAsync();
+
+        probe.get(5, TimeUnit.SECONDS);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(waiter.isDone(), "Во время пробного запроса остальные запросы ожидают");
+
+        breaker.onSuccess();
+        waiter.get(5, TimeUnit.SECONDS);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void probeFailureReopensBreaker() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, PAUSE_MILLIS);
+        breaker.onFailure();
+        breaker.acquirePermission();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void cancelledProbePassesPermissionToNextWaiter() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, PAUSE_MILLIS);
+        breaker.onFailure();
+        breaker.acquirePermissionAsync().get(5, TimeUnit.SECONDS);
+        CompletableFuture<Void> waiter = breaker.acquirePermissionAsync();
+
+        breaker.onCancel();
+        waiter.get(5, TimeUnit.SECONDS);
+        assertTrue(waiter.isDone());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+}
@@ -0,0 +1,121 @@
+package elibraryparser;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *  Пакетный поиск авторов в базе данных во временном файле.
+ */
+class DatabaseManagerTest {
+    @TempDir
+    Path directory;
+
+    private String databaseUrl;
+    private DatabaseManager database;
+
+    @BeforeEach
+    void openDatabase() {
+        databaseUrl = "jdbc:sqlite:" + directory.resolve("authors.db");
+        database = new DatabaseManager(databaseUrl);
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        database.close();
+    }
+
+    @Test
+    void splitsLookupIntoFoundAndMissing() {
+        database.addAuthors(List.of(author(1), author(2)));
+
+        DatabaseManager.AuthorsLookup lookup = database.getAuthors(Set.of(1, 2, 3), Duration.ofDays(30));
+
+        assertEquals(Set.of(author(1), author(2)), lookup.found());
+        assertEquals(Set.of(3), lookup.missing());
+        assertTrue(lookup.stale().isEmpty());
+        assertTrue(lookup.failed().isEmpty());
+    }
+
+    @Test
+    void reportsIdsAsFailedInsteadOfMissingOnSqlError() throws SQLException {
+        database.addAuthors(List.of(author(1)));
+        database.getAuthors(Set.of(1));
+        try (Connection connection = DriverManager.getConnection(databaseUrl);
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DROP TABLE authors");
+        }
+
+        DatabaseManager.AuthorsLookup lookup = database.getAuthors(Set.of(1, 2));
+
+        assertTrue(lookup.found().isEmpty());
+        assertTrue(lookup.missing().isEmpty(), "ID с ошибкой SQL не должны запрашиваться через парсер");
+        assertEquals(Set.of(1, 2), lookup.failed());
+    }
+
+    @Test
+    void migrationMarksExistingAuthorsAsFetchedNow() throws SQLException {
+        database.close();
+        String oldDatabaseUrl = "jdbc:sqlite:" + directory.resolve("old.db");
+        try (Connection connection = DriverManager.getConnection(oldDatabaseUrl);
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE authors (id INTEGER PRIMARY KEY, name TEXT, publishesCount INTEGER,"
+                    + " zeroCittPublishesCount INTEGER, hirshIndex INTEGER)");
+            statement.executeUpdate("INSERT INTO authors VALUES (1, 'Автор 1', 10, 4, 3)");
+        }
+        database = new DatabaseManager(oldDatabaseUrl);
+
+        DatabaseManager.AuthorsLookup lookup = database.getAuthors(Set.of(1), Duration.ofDays(30));
+
+        assertEquals(Set.of(author(1)), lookup.found());
+        assertTrue(lookup.stale().isEmpty(), "После миграции сохраненные авторы не должны считаться устаревшими");
+        assertTrue(lookup.fetchedAt().containsKey(1));
+    }
+
+    @Test
+    void resumesOnlyPendingAndFailedRunItems() {
+        AuthorIdSet authorIds = new AuthorIdSet();
+        for (int authorId = 1; authorId <= 4; authorId++) {
+            authorIds.add(authorId);
+        }
+        long runId = database.createRun("ids.txt", "report.md", authorIds);
+        database.updateRunItem(runId, 1, DatabaseManager.RunItemStatus.DONE);
+        database.updateRunItem(runId, 2, DatabaseManager.RunItemStatus.NOT_FOUND);
+        database.updateRunItem(runId, 3, DatabaseManager.RunItemStatus.FAILED);
+
+        assertEquals(Set.of(3, 4), database.getUnfinishedRunItems(runId).toSet());
+    }
+
+    @Test
+    void olderFetchDoesNotOverwriteNewerAuthor() {
+        Author newer = new Author(1, "Автор 1", 20, 4, 5);
+        Author archived = new Author(1, "Автор 1", 10, 4, 3);
+        database.addAuthors(List.of(newer), author -> 2_000L);
+
+        assertEquals(Map.of(1, false), database.addAuthors(List.of(archived), author -> 1_000L));
+        DatabaseManager.AuthorsLookup lookup = database.getAuthors(Set.of(1));
+        assertEquals(Set.of(newer), lookup.found(), "Старая страница из архива не должна затирать более свежие данные");
+        assertEquals(2_000L, lookup.fetchedAt().get(1));
+
+        assertEquals(Map.of(1, true), database.addAuthors(List.of(archived), author -> 3_000L));
+        assertEquals(Set.of(archived), database.getAuthors(Set.of(1)).found());
+    }
+
+    private static Author author(int authorId) {
+        return new Author(authorId, "Автор " + authorId, 10, 4, 3);
+    }
+}
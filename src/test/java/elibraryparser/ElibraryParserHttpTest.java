@@ -0,0 +1,50 @@
+package elibraryparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *  Асинхронная загрузка {@link ElibraryParserHttp} при ошибках до начала запроса, без обращения к сети.
+ */
+class ElibraryParserHttpTest {
+    @Test
+    void failsFutureAndReleasesProxyWhenRateLimiterThrows() throws Exception {
+        RateLimiter failing = new RateLimiter() {
+            @Override
+            public synchronized long reserve() {
+                throw new IllegalStateException("Ограничитель недоступен");
+            }
+        };
+        ProxyPool pool = new ProxyPool(List.of(new ProxyPool.EndpointSettings("rate-failing", "", 1, failing)), 0, 1000);
+        try (ElibraryParserHttp parser = new ElibraryParserHttp(pool, new HttpFetcher(), false, null)) {
+            ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> parser.getAuthorAsync(1).get(2, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, error.getCause());
+        }
+
+        assertTrue(pool.acquireAsync().isDone(), "Аренда прокси должна быть закрыта после ошибки");
+    }
+
+    @Test
+    void failsFutureWhenProxyLeaseFails() throws Exception {
+        ProxyPool pool = new ProxyPool(List.of(new ProxyPool.EndpointSettings("lease-failing", "", 1, new RateLimiter())), 0, 1000) {
+            @Override
+            public CompletableFuture<Lease> acquireAsync() {
+                return CompletableFuture.failedFuture(new IllegalStateException("Пул закрыт"));
+            }
+        };
+        try (ElibraryParserHttp parser = new ElibraryParserHttp(pool, new HttpFetcher(), false, null)) {
+            ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> parser.getAuthorAsync(1).get(2, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, error.getCause());
+        }
+    }
+}
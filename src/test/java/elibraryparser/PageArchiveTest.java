@@ -0,0 +1,102 @@
+package elibraryparser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *  Запись и чтение {@link PageArchive} во временном каталоге.
+ */
+class PageArchiveTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void storesDuplicatePagesOnce() throws IOException {
+        try (PageArchive archive = new PageArchive(directory)) {
+            archive.put(1, page("Иванов"));
+            archive.put(2, page("Иванов"));
+            archive.put(1, page("Иванов Иван"));
+
+            assertEquals(page("Иванов Иван"), archive.get(1));
+            assertEquals(page("Иванов"), archive.get(2));
+            assertNull(archive.get(3));
+            List<PageArchive.Entry> entries = archive.entries();
+            assertEquals(2, entries.size());
+            assertEquals(0, entries.get(0).offset(), "Страница автора 2 ссылается на запись автора 1");
+        }
+    }
+
+    @Test
+    void restoresIndexAfterReopen() throws IOException {
+        try (PageArchive archive = new PageArchive(directory, 200)) {
+            for (int authorId = 1; authorId <= 20; authorId++) {
+                archive.put(authorId, page("Автор " + authorId));
+            }
+        }
+        assertTrue(Files.exists(directory.resolve("segment-00001.dat")), "Запись должна продолжиться в новом сегменте");
+
+        try (PageArchive archive = new PageArchive(directory, 200)) {
+            assertEquals(20, archive.size());
+            for (int authorId = 1; authorId <= 20; authorId++) {
+                assertEquals(page("Автор " + authorId), archive.get(authorId));
+            }
+        }
+    }
+
+    @Test
+    void rejectsSecondOpenOfSameDirectory() throws IOException {
+        try (PageArchive archive = new PageArchive(directory)) {
+            archive.put(1, page("Иванов"));
+            IOException error = assertThrows(IOException.class, () -> new PageArchive(directory));
+            assertTrue(error.getMessage().contains("уже открыт"), error.getMessage());
+        }
+        try (PageArchive archive = new PageArchive(directory)) {
+            assertEquals(page("Иванов"), archive.get(1));
+        }
+    }
+
+    @Test
+    void storesPagesFromSeveralThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (PageArchive archive = new PageArchive(directory, 4096)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int authorId = 1; authorId <= 200; authorId++) {
+                int id = authorId;
+                futures.add(executor.submit(() -> {
+                    archive.put(id, page("Автор " + (id % 50)));
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertEquals(200, archive.size());
+            long storedPages = archive.entries().stream()
+                    .map(entry -> entry.segment() + ":" + entry.offset())
+                    .distinct()
+                    .count();
+            assertEquals(50, storedPages, "Одинаковые страницы должны храниться один раз");
+            assertEquals(page("Автор 7"), archive.get(57));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String page(String name) {
+        return "<html><body><span style=\"font-size:18px;\"><b>" + name + "</b></span></body></html>";
+    }
+}
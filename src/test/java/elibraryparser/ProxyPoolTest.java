@@ -0,0 +1,81 @@
+package elibraryparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ *  Выбор прокси в {@link ProxyPool}: пределы одновременных запросов, исключение после ошибок и метрики.
+ */
+class ProxyPoolTest {
+    @Test
+    void waitsForFreeProxyWhenAllAreBusy() throws Exception {
+        ProxyPool pool = new ProxyPool(List.of(settings("busy-a", 1), settings("busy-b", 1)), 0, 1000);
+        ProxyPool.Lease first = pool.acquire();
+        ProxyPool.Lease second = pool.acquire();
+        assertNotEquals(first.proxyName(), second.proxyName(), "Каждый прокси допускает один запрос");
+
+        CompletableFuture<ProxyPool.Lease> waiting = pool.acquireAsync();
+        assertFalse(waiting.isDone());
+        second.onSuccess();
+        second.close();
+
+        try (ProxyPool.Lease third = waiting.get(5, TimeUnit.SECONDS)) {
+            assertEquals(second.proxyName(), third.proxyName());
+            third.onSuccess();
+        }
+        first.close();
+    }
+
+    @Test
+    void ejectsProxyAfterConsecutiveFailures() throws Exception {
+        ProxyPool pool = new ProxyPool(List.of(settings("eject-bad", 10), settings("eject-good", 10)), 2, 60_000);
+        int failures = 0;
+        while (failures < 2) {
+            try (ProxyPool.Lease lease = pool.acquire()) {
+                if (lease.proxyName().equals("eject-bad")) {
+                    lease.onFailure();
+                    failures++;
+                } else {
+                    lease.onSuccess();
+                }
+            }
+        }
+
+        for (int i = 0; i < 20; i++) {
+            try (ProxyPool.Lease lease = pool.acquire()) {
+                assertEquals("eject-good", lease.proxyName(), "Исключенный прокси не должен выбираться до конца паузы");
+                lease.onSuccess();
+            }
+        }
+    }
+
+    @Test
+    void labelsResultMetricIndependentlyOfDefaultLocale() throws Exception {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            ProxyPool pool = new ProxyPool(List.of(settings("locale-proxy", 1)), 0, 1000);
+            try (ProxyPool.Lease lease = pool.acquire()) {
+                lease.onFailure();
+            }
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+
+        Metrics.Counter failures = Metrics.counter("elibrary_proxy_requests_total",
+                "Количество запросов через прокси по результату", "proxy", "locale-proxy", "result", "failure");
+        assertEquals(1, failures.get());
+    }
+
+    private static ProxyPool.EndpointSettings settings(String name, int concurrency) {
+        return new ProxyPool.EndpointSettings(name, "http://" + name + "/?url=", concurrency, new RateLimiter(1000, 1000));
+    }
+}
@@ -0,0 +1,113 @@
+package elibraryparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ *  Повторы {@link ResilientParser} и учет ошибок в выключателе запросов на парсере-заглушке.
+ */
+class ResilientParserTest {
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void retriesTransientErrorsUntilSuccess() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 1000);
+        ResilientParser parser = new ResilientParser(authorId -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new FetchException("Ответ 503", 503, true);
+            }
+            return author(authorId);
+        }, 5, 1, 5, breaker);
+
+        assertEquals(author(7), parser.getAuthor(7));
+        assertEquals(3, calls.get());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void doesNotRetryNotFound() {
+        ResilientParser parser = new ResilientParser(authorId -> {
+            calls.incrementAndGet();
+            return null;
+        }, 5, 1, 5, new CircuitBreaker(10, 1000));
+
+        assertNull(parser.getAuthor(7));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void proxyRejectionsOpenBreakerWithoutRetries() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 60_000);
+        ResilientParser parser = new ResilientParser(authorId -> {
+            calls.incrementAndGet();
+            throw new FetchException("Ответ прокси 403", 403, false);
+        }, 5, 1, 5, breaker);
+
+        assertThrows(FetchException.class, () -> parser.getAuthor(1));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertThrows(FetchException.class, () -> parser.getAuthor(2));
+
+        assertEquals(2, calls.get(), "Неповторяемая ошибка не должна повторяться");
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void asyncProxyRejectionsOpenBreaker() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 60_000);
+        ResilientParser parser = new ResilientParser(authorId -> {
+            calls.incrementAndGet();
+            throw new FetchException("Ответ прокси 401", 401, false);
+        }, 5, 1, 5, breaker);
+
+        for (int authorId = 1; authorId <= 2; authorId++) {
+            int id = authorId;
+            ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> parser.getAuthorAsync(id).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(FetchException.class, error.getCause());
+        }
+
+        assertEquals(2, calls.get());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void invalidUrlDoesNotCountAsProxyFailure() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 60_000);
+        ResilientParser parser = new ResilientParser(authorId -> {
+            throw new FetchException("Некорректный URL", new IllegalArgumentException(), false);
+        }, 5, 1, 5, breaker);
+
+        assertThrows(FetchException.class, () -> parser.getAuthor(1));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void interruptedDownloadIsNotRetriedNorCountedAsFailure() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 60_000);
+        ResilientParser parser = new ResilientParser(authorId -> {
+            calls.incrementAndGet();
+            Thread.currentThread().interrupt();
+            throw new FetchException("Загрузка страницы была прервана", new InterruptedException(), true);
+        }, 5, 1, 5, breaker);
+
+        try {
+            assertThrows(FetchException.class, () -> parser.getAuthor(1), "Прерывание не должно выглядеть как отсутствие автора");
+            assertEquals(1, calls.get(), "Прерванная загрузка не должна повторяться");
+            assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    private static Author author(int authorId) {
+        return new Author(authorId, "Автор " + authorId, 10, 4, 3);
+    }
+}